@@ -1,5 +1,7 @@
 package DesignPattern.DesignPatternQuestions.AtmCashWithdrawl;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public abstract class ATMHandler {
 
     protected ATMHandler nextHandler;
@@ -13,5 +15,17 @@ public abstract class ATMHandler {
     public void setNextHandler(ATMHandler nextHandler){
         this.nextHandler = nextHandler;
     }
+
+    // Takes up to notesNeeded notes from the cassette with a CAS loop so that
+    // concurrent withdrawals can never drive the count below zero.
+    protected static int takeNotes(AtomicInteger availableNotes, int notesNeeded) {
+        while(true) {
+            int available = availableNotes.get();
+            int taken = Math.min(notesNeeded, available);
+            if(taken <= 0 || availableNotes.compareAndSet(available, available - taken)) {
+                return Math.max(taken, 0);
+            }
+        }
+    }
     
 }
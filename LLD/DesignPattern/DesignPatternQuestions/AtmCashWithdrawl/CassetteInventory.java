@@ -0,0 +1,194 @@
+package DesignPattern.DesignPatternQuestions.AtmCashWithdrawl;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+ * Note counts for every cassette of one ATM, shared by all sessions.
+ *
+ * The counts live in one immutable int[] snapshot behind an AtomicReference.
+ * A withdrawal plans its notes against the current snapshot and installs the
+ * reduced counts with a single compareAndSet, so a multi-denomination
+ * reservation is all-or-nothing and takes effect at exactly one point in time
+ * (linearizable) without any lock. Losers of the CAS simply re-plan.
+ */
+public class CassetteInventory {
+
+    private final int[] denominations;
+    private final AtomicReference<int[]> counts;
+    private final AtomicLong reservationIds = new AtomicLong();
+
+    // denominations must be given from the highest to the lowest note value
+    public CassetteInventory(int[] denominations, int[] initialCounts) {
+        if(denominations.length != initialCounts.length) {
+            throw new IllegalArgumentException("Need one count per denomination");
+        }
+        for(int i = 0; i < denominations.length; i++) {
+            if(initialCounts[i] < 0 || (i > 0 && denominations[i] >= denominations[i - 1])) {
+                throw new IllegalArgumentException("Denominations must be descending and counts non-negative");
+            }
+        }
+        this.denominations = denominations.clone();
+        this.counts = new AtomicReference<>(initialCounts.clone());
+    }
+
+    /*
+     * Atomically takes the notes for amount, planned greedily from the highest
+     * denomination down like the handler chain does. Returns null when the
+     * amount cannot be paid exactly; nothing is taken in that case.
+     */
+    public Reservation reserve(int amount) {
+        if(amount <= 0) {
+            return null;
+        }
+        while(true) {
+            int[] current = counts.get();
+            int[] notes = plan(current, amount);
+            if(notes == null) {
+                return null;
+            }
+            int[] updated = new int[current.length];
+            for(int i = 0; i < current.length; i++) {
+                updated[i] = current[i] - notes[i];
+            }
+            if(counts.compareAndSet(current, updated)) {
+                return new Reservation(reservationIds.incrementAndGet(), amount, notes);
+            }
+        }
+    }
+
+    // The notes were handed out; the reservation can no longer be undone.
+    public void commit(Reservation reservation) {
+        reservation.complete(Reservation.COMMITTED);
+    }
+
+    // The notes were not handed out (dispenser jam, cancelled session): put them back.
+    public void rollback(Reservation reservation) {
+        reservation.complete(Reservation.ROLLED_BACK);
+        release(reservation.notes);
+    }
+
+    // Loads extra notes into the cassettes, e.g. on a refill visit.
+    public void restock(int[] notes) {
+        if(notes.length != denominations.length) {
+            throw new IllegalArgumentException("Need one count per denomination");
+        }
+        release(notes);
+    }
+
+    private void release(int[] notes) {
+        while(true) {
+            int[] current = counts.get();
+            int[] updated = new int[current.length];
+            for(int i = 0; i < current.length; i++) {
+                updated[i] = current[i] + notes[i];
+            }
+            if(counts.compareAndSet(current, updated)) {
+                return;
+            }
+        }
+    }
+
+    private int[] plan(int[] available, int amount) {
+        int[] notes = new int[denominations.length];
+        int remaining = amount;
+        for(int i = 0; i < denominations.length && remaining > 0; i++) {
+            notes[i] = Math.min(remaining / denominations[i], available[i]);
+            remaining -= notes[i] * denominations[i];
+        }
+        return remaining == 0 ? notes : null;
+    }
+
+    // Used after journal replay so new reservation ids never repeat recovered ones.
+    void resumeReservationIdsAfter(long lastId) {
+        reservationIds.accumulateAndGet(lastId, Math::max);
+    }
+
+    // Re-creates a reservation found pending in a journal; its notes are
+    // already missing from the counts this inventory was rebuilt with.
+    Reservation recoverReservation(long id, int amount, int[] notes) {
+        resumeReservationIdsAfter(id);
+        return new Reservation(id, amount, notes.clone());
+    }
+
+    public int[] getDenominations() {
+        return denominations.clone();
+    }
+
+    // A consistent view of all cassettes at one instant.
+    public int[] snapshot() {
+        return counts.get().clone();
+    }
+
+    public int getAvailableNotes(int denomination) {
+        int index = indexOf(denomination);
+        return counts.get()[index];
+    }
+
+    public long getTotalCash() {
+        int[] current = counts.get();
+        long total = 0;
+        for(int i = 0; i < current.length; i++) {
+            total += (long) current[i] * denominations[i];
+        }
+        return total;
+    }
+
+    public int indexOf(int denomination) {
+        for(int i = 0; i < denominations.length; i++) {
+            if(denominations[i] == denomination) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown denomination: " + denomination);
+    }
+
+    public static class Reservation {
+
+        static final int PENDING = 0;
+        static final int COMMITTED = 1;
+        static final int ROLLED_BACK = 2;
+
+        private final long id;
+        private final int amount;
+        private final int[] notes;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        Reservation(long id, int amount, int[] notes) {
+            this.id = id;
+            this.amount = amount;
+            this.notes = notes;
+        }
+
+        private void complete(int newState) {
+            if(!state.compareAndSet(PENDING, newState)) {
+                throw new IllegalStateException("Reservation " + id + " is already completed");
+            }
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public int getAmount() {
+            return amount;
+        }
+
+        // Notes per denomination, in the inventory's denomination order.
+        public int[] getNotes() {
+            return notes.clone();
+        }
+
+        public boolean isPending() {
+            return state.get() == PENDING;
+        }
+
+        @Override
+        public String toString() {
+            return "Reservation [id=" + id + ", amount=" + amount + ", notes=" + Arrays.toString(notes) + "]";
+        }
+    }
+
+}
@@ -0,0 +1,81 @@
+package DesignPattern.DesignPatternQuestions.AtmCashWithdrawl;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ConcurrentWithdrawalDemo {
+
+    public static void main(String args[]) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int withdrawalsPerThread = 10_000;
+
+        int[] denominations = {1000, 500, 200, 100};
+        int[] initialCounts = {1_000_000, 1_000_000, 1_000_000, 1_000_000};
+        CassetteInventory inventory = new CassetteInventory(denominations, initialCounts);
+        long initialCash = inventory.getTotalCash();
+
+        AtomicLong dispensedCash = new AtomicLong();
+        AtomicLong declined = new AtomicLong();
+        long[] dispensedNotes = new long[denominations.length];
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+
+        for(int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                long[] localNotes = new long[denominations.length];
+                long localCash = 0;
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for(int i = 0; i < withdrawalsPerThread; i++) {
+                    int amount = 100 * random.nextInt(1, 80);
+                    CassetteInventory.Reservation reservation = inventory.reserve(amount);
+                    if(reservation == null) {
+                        declined.incrementAndGet();
+                        continue;
+                    }
+                    // roughly one session in ten is cancelled after reserving
+                    if(random.nextInt(10) == 0) {
+                        inventory.rollback(reservation);
+                    } else {
+                        inventory.commit(reservation);
+                        int[] notes = reservation.getNotes();
+                        for(int d = 0; d < notes.length; d++) {
+                            localNotes[d] += notes[d];
+                        }
+                        localCash += amount;
+                    }
+                }
+                synchronized (dispensedNotes) {
+                    for(int d = 0; d < localNotes.length; d++) {
+                        dispensedNotes[d] += localNotes[d];
+                    }
+                }
+                dispensedCash.addAndGet(localCash);
+            });
+            workers[t].start();
+        }
+
+        long began = System.nanoTime();
+        start.countDown();
+        for(Thread worker : workers) {
+            worker.join();
+        }
+        long elapsedMs = (System.nanoTime() - began) / 1_000_000;
+
+        int[] remaining = inventory.snapshot();
+        boolean consistent = inventory.getTotalCash() + dispensedCash.get() == initialCash;
+        for(int d = 0; d < denominations.length; d++) {
+            consistent &= remaining[d] >= 0 && remaining[d] + dispensedNotes[d] == initialCounts[d];
+            System.out.println(denominations[d] + " notes: dispensed " + dispensedNotes[d] + ", remaining " + remaining[d]);
+        }
+        System.out.println(threads + " threads, " + (threads * withdrawalsPerThread) + " withdrawals in " + elapsedMs + " ms, declined " + declined.get());
+        System.out.println("Inventory consistent: " + consistent);
+    }
+
+}
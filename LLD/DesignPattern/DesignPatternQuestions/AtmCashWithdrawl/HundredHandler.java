@@ -1,24 +1,19 @@
 package DesignPattern.DesignPatternQuestions.AtmCashWithdrawl;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class HundredHandler extends ATMHandler{
 
-    private int availableNotes;
+    private final AtomicInteger availableNotes;
 
     public HundredHandler(ATMHandler nextHandler, int availableNotes) {
         super(nextHandler);
-        this.availableNotes = availableNotes;
+        this.availableNotes = new AtomicInteger(availableNotes);
     }
 
     @Override
     public void handlerRequest(int amount) {
-        int notesNeeded = amount / 100;
-        if(notesNeeded > availableNotes){
-            notesNeeded = availableNotes;
-            availableNotes = 0;
-        }
-        else {
-            availableNotes = availableNotes - notesNeeded;
-        }
+        int notesNeeded = takeNotes(availableNotes, amount / 100);
         if(notesNeeded > 0) {
             System.out.println("Dispensing " + notesNeeded + " x hundred notes");
         }
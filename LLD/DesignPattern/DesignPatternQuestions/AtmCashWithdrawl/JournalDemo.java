@@ -0,0 +1,64 @@
+package DesignPattern.DesignPatternQuestions.AtmCashWithdrawl;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class JournalDemo {
+
+    public static void main(String args[]) throws Exception {
+        int[] denominations = {1000, 500, 200, 100};
+        int[] initialCounts = {20_000, 20_000, 20_000, 20_000};
+        int sessions = 32;
+        int withdrawalsPerSession = 200;
+        Path file = Files.createTempFile("atm-journal", ".log");
+        Files.delete(file);
+
+        JournaledCassetteInventory atm = JournaledCassetteInventory.open(file, denominations, initialCounts);
+        Thread[] threads = new Thread[sessions];
+        long start = System.nanoTime();
+        for(int s = 0; s < sessions; s++) {
+            boolean crashesMidWithdrawal = s % 8 == 0;
+            threads[s] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for(int i = 0; i < withdrawalsPerSession; i++) {
+                    CassetteInventory.Reservation reservation = atm.reserve(100 * random.nextInt(1, 60));
+                    if(reservation == null) {
+                        continue;
+                    }
+                    if(crashesMidWithdrawal && i == withdrawalsPerSession - 1) {
+                        return; // reserved but never completed when the "crash" happens
+                    }
+                    if(random.nextInt(10) == 0) {
+                        atm.rollback(reservation);
+                    } else {
+                        atm.commit(reservation);
+                    }
+                }
+            });
+            threads[s].start();
+        }
+        for(Thread thread : threads) {
+            thread.join();
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        int[] beforeCrash = atm.getInventory().snapshot();
+        TransactionJournal journal = atm.getJournal();
+        System.out.println(journal.getRecordCount() + " records in " + journal.getForceCount() + " fsyncs ("
+                + (journal.getRecordCount() / Math.max(1, journal.getForceCount())) + " records per fsync) in " + elapsedMs + " ms");
+        atm.close();
+
+        JournaledCassetteInventory recovered = JournaledCassetteInventory.open(file, denominations, initialCounts);
+        System.out.println("Cassettes before crash: " + Arrays.toString(beforeCrash));
+        System.out.println("Cassettes after replay: " + Arrays.toString(recovered.getInventory().snapshot()));
+        System.out.println("In-doubt reservations: " + recovered.getInDoubt());
+        for(CassetteInventory.Reservation reservation : recovered.getInDoubt()) {
+            recovered.rollback(reservation); // the cash count found these notes still in the cassettes
+        }
+        System.out.println("Cassettes after settling: " + Arrays.toString(recovered.getInventory().snapshot()));
+        recovered.close();
+        Files.delete(file);
+    }
+
+}
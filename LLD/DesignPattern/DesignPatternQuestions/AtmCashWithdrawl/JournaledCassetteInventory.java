@@ -0,0 +1,95 @@
+package DesignPattern.DesignPatternQuestions.AtmCashWithdrawl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/*
+ * A CassetteInventory whose reservations, commits and rollbacks are on disk
+ * before the caller acts on them. On open an existing journal is replayed,
+ * so the cassettes come back as they were when the process stopped.
+ */
+public class JournaledCassetteInventory implements AutoCloseable {
+
+    private final CassetteInventory inventory;
+    private final TransactionJournal journal;
+    private final List<CassetteInventory.Reservation> inDoubt;
+
+    private JournaledCassetteInventory(CassetteInventory inventory, TransactionJournal journal, List<CassetteInventory.Reservation> inDoubt) {
+        this.inventory = inventory;
+        this.journal = journal;
+        this.inDoubt = inDoubt;
+    }
+
+    // initialCounts are only used when the journal is new or empty.
+    public static JournaledCassetteInventory open(Path file, int[] denominations, int[] initialCounts) throws IOException {
+        TransactionJournal.Recovery recovery = Files.exists(file) ? TransactionJournal.replay(file, denominations) : null;
+        TransactionJournal journal = new TransactionJournal(file);
+        if(recovery != null) {
+            return new JournaledCassetteInventory(recovery.getInventory(), journal, recovery.getInDoubt());
+        }
+        CassetteInventory inventory = new CassetteInventory(denominations, initialCounts);
+        await(journal.appendLoad(initialCounts));
+        return new JournaledCassetteInventory(inventory, journal, Collections.emptyList());
+    }
+
+    public CassetteInventory.Reservation reserve(int amount) {
+        CassetteInventory.Reservation reservation = inventory.reserve(amount);
+        if(reservation == null) {
+            return null;
+        }
+        try {
+            await(journal.appendReserve(reservation));
+        } catch (RuntimeException e) {
+            inventory.rollback(reservation);
+            throw e;
+        }
+        return reservation;
+    }
+
+    public void commit(CassetteInventory.Reservation reservation) {
+        await(journal.appendCommit(reservation.getId()));
+        inventory.commit(reservation);
+    }
+
+    public void rollback(CassetteInventory.Reservation reservation) {
+        await(journal.appendRollback(reservation.getId()));
+        inventory.rollback(reservation);
+    }
+
+    private static void await(CompletableFuture<Void> durable) {
+        try {
+            durable.join();
+        } catch (CompletionException e) {
+            if(e.getCause() instanceof IOException) {
+                throw new UncheckedIOException((IOException) e.getCause());
+            }
+            throw e;
+        }
+    }
+
+    public CassetteInventory getInventory() {
+        return inventory;
+    }
+
+    // Reservations found open in the journal at start-up; commit or roll
+    // them back once the cassettes have been counted.
+    public List<CassetteInventory.Reservation> getInDoubt() {
+        return inDoubt;
+    }
+
+    public TransactionJournal getJournal() {
+        return journal;
+    }
+
+    @Override
+    public void close() throws IOException {
+        journal.close();
+    }
+
+}
@@ -1,27 +1,20 @@
 package DesignPattern.DesignPatternQuestions.AtmCashWithdrawl;
 
-
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ThousandHandler extends ATMHandler{
 
-    private int availableNotes;
+    private final AtomicInteger availableNotes;
 
     public ThousandHandler(ATMHandler nextHandler, int availableNotes) {
         super(nextHandler);
-        this.availableNotes = availableNotes;
+        this.availableNotes = new AtomicInteger(availableNotes);
     }
 
     @Override
     public void handlerRequest(int amount) {
         // TODO Auto-generated method stub
-        int notesNeeded = amount / 1000;
-        if(notesNeeded > availableNotes){
-            notesNeeded = availableNotes;
-            availableNotes = 0;
-        }
-        else {
-            availableNotes = availableNotes - notesNeeded;
-        }
+        int notesNeeded = takeNotes(availableNotes, amount / 1000);
         if(notesNeeded > 0) {
             System.out.println("Dispensing " + notesNeeded + " x thousand notes");
         }
@@ -0,0 +1,369 @@
+package DesignPattern.DesignPatternQuestions.AtmCashWithdrawl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/*
+ * Append-only journal of cassette loads, reservations, commits and rollbacks.
+ *
+ * Sessions hand their records to a queue and wait on the returned future.
+ * A single writer thread drains everything that queued up while the previous
+ * fsync was running, writes it in one go and calls FileChannel.force once for
+ * the whole batch (group commit), then completes all of those futures.
+ *
+ * Record layout: int length | byte type | long id | int amount |
+ * byte noteCount | int[noteCount] notes | int crc32. A torn or corrupt tail
+ * left by a crash fails its length or CRC check and is cut off on replay.
+ *
+ * If a write or force fails, the batch may be partly on disk and replay
+ * would stop at its torn bytes, losing every record written after it. So
+ * the journal cuts the file back to the end of the last forced batch and
+ * fails for good: that batch, everything still queued and every later
+ * append complete exceptionally.
+ */
+public class TransactionJournal implements AutoCloseable {
+
+    static final byte LOAD = 1;
+    static final byte RESERVE = 2;
+    static final byte COMMIT = 3;
+    static final byte ROLLBACK = 4;
+    private static final byte CLOSE = 0;
+
+    private static final int MAX_BATCH = 4096;
+    private static final int HEADER_BYTES = 1 + 8 + 4 + 1;
+
+    private final FileChannel channel;
+    private final LinkedBlockingQueue<PendingRecord> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private final AtomicLong records = new AtomicLong();
+    private final AtomicLong forces = new AtomicLong();
+    // guards closed and failure, so no record can be queued behind the close marker or a failure
+    private final Object intake = new Object();
+    private boolean closed;
+    private IOException failure;
+    // end of the last batch that was written and forced; only the writer thread touches it
+    private long forcedBytes;
+    private ByteBuffer batchBuffer = ByteBuffer.allocateDirect(64 * 1024);
+
+    public TransactionJournal(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        this.forcedBytes = channel.size();
+        this.channel.position(forcedBytes);
+        this.writer = new Thread(this::writeLoop, "atm-journal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public CompletableFuture<Void> appendLoad(int[] counts) {
+        return append(LOAD, 0, 0, counts);
+    }
+
+    public CompletableFuture<Void> appendReserve(CassetteInventory.Reservation reservation) {
+        return append(RESERVE, reservation.getId(), reservation.getAmount(), reservation.getNotes());
+    }
+
+    public CompletableFuture<Void> appendCommit(long reservationId) {
+        return append(COMMIT, reservationId, 0, new int[0]);
+    }
+
+    public CompletableFuture<Void> appendRollback(long reservationId) {
+        return append(ROLLBACK, reservationId, 0, new int[0]);
+    }
+
+    // Completes once the record and everything queued before it is on disk.
+    private CompletableFuture<Void> append(byte type, long id, int amount, int[] notes) {
+        PendingRecord record = new PendingRecord(type, id, amount, notes);
+        synchronized (intake) {
+            if(closed) {
+                record.done.completeExceptionally(new IllegalStateException("Journal is closed"));
+                return record.done;
+            }
+            if(failure != null) {
+                record.done.completeExceptionally(new IllegalStateException("Journal failed", failure));
+                return record.done;
+            }
+            queue.add(record);
+        }
+        return record.done;
+    }
+
+    private void writeLoop() {
+        List<PendingRecord> batch = new ArrayList<>();
+        boolean stop = false;
+        while(!stop) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                continue;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            // everything queued before the close marker is still written
+            for(int i = 0; i < batch.size(); i++) {
+                if(batch.get(i).type == CLOSE) {
+                    queue.addAll(batch.subList(i + 1, batch.size()));
+                    batch.subList(i, batch.size()).clear();
+                    stop = true;
+                    break;
+                }
+            }
+            IOException failed;
+            synchronized (intake) {
+                failed = failure;
+            }
+            if(failed != null) {
+                // queued before the failure was seen
+                for(PendingRecord record : batch) {
+                    record.done.completeExceptionally(new IllegalStateException("Journal failed", failed));
+                }
+            } else {
+                try {
+                    if(!batch.isEmpty()) {
+                        writeBatch(batch);
+                    }
+                    for(PendingRecord record : batch) {
+                        record.done.complete(null);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    fail(e instanceof IOException ? (IOException) e : new IOException("Journal write failed", e));
+                    for(PendingRecord record : batch) {
+                        record.done.completeExceptionally(e);
+                    }
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    // Stops all further appends and cuts off whatever part of the failed batch reached the file.
+    private void fail(IOException cause) {
+        synchronized (intake) {
+            failure = cause;
+        }
+        try {
+            channel.truncate(forcedBytes);
+            channel.force(false);
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    private void writeBatch(List<PendingRecord> batch) throws IOException {
+        int size = 0;
+        for(PendingRecord record : batch) {
+            size += encodedSize(record.notes.length);
+        }
+        if(batchBuffer.capacity() < size) {
+            batchBuffer = ByteBuffer.allocateDirect(Math.max(size, batchBuffer.capacity() * 2));
+        }
+        ByteBuffer buffer = batchBuffer;
+        buffer.clear();
+        CRC32 crc = new CRC32();
+        for(PendingRecord record : batch) {
+            int start = buffer.position();
+            buffer.putInt(HEADER_BYTES + 4 * record.notes.length);
+            buffer.put(record.type).putLong(record.id).putInt(record.amount).put((byte) record.notes.length);
+            for(int note : record.notes) {
+                buffer.putInt(note);
+            }
+            crc.reset();
+            crc.update(buffer.duplicate().position(start + 4).limit(buffer.position()));
+            buffer.putInt((int) crc.getValue());
+        }
+        buffer.flip();
+        while(buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+        forcedBytes = channel.position();
+        records.addAndGet(batch.size());
+        forces.incrementAndGet();
+    }
+
+    private static int encodedSize(int noteCount) {
+        return 4 + HEADER_BYTES + 4 * noteCount + 4;
+    }
+
+    public long getRecordCount() {
+        return records.get();
+    }
+
+    public long getForceCount() {
+        return forces.get();
+    }
+
+    // The write or force failure that stopped the journal, or null.
+    public IOException getFailure() {
+        synchronized (intake) {
+            return failure;
+        }
+    }
+
+    // Waits for queued records to reach the disk, then closes the file.
+    @Override
+    public void close() throws IOException {
+        synchronized (intake) {
+            if(closed) {
+                return;
+            }
+            closed = true;
+            queue.add(new PendingRecord(CLOSE, 0, 0, new int[0]));
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // only left when the writer was interrupted out of its join
+        PendingRecord late;
+        while((late = queue.poll()) != null) {
+            late.done.completeExceptionally(new IllegalStateException("Journal is closed"));
+        }
+        channel.close();
+    }
+
+    /*
+     * Rebuilds the cassettes from a journal: the last LOAD gives the counts,
+     * every RESERVE takes its notes out and every ROLLBACK puts them back.
+     * Reservations without a COMMIT or ROLLBACK are in doubt - the dispenser
+     * may or may not have paid them - so their notes stay out and they are
+     * returned pending, to be committed or rolled back after a cash count.
+     */
+    public static Recovery replay(Path file, int[] denominations) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // read rather than mapped: the torn tail is truncated below, and a file must not
+            // shrink under a live mapping of it
+            long size = in.size();
+            if(size > Integer.MAX_VALUE) {
+                throw new IOException("Journal of " + size + " bytes is too large to replay");
+            }
+            ByteBuffer data = ByteBuffer.allocate((int) size);
+            while(data.hasRemaining()) {
+                if(in.read(data) < 0) {
+                    break;
+                }
+            }
+            data.flip();
+
+            int[] counts = null;
+            Map<Long, PendingRecord> open = new LinkedHashMap<>();
+            long lastId = 0;
+            long committed = 0;
+            long validBytes = 0;
+            CRC32 crc = new CRC32();
+            while(data.remaining() >= 4) {
+                int start = data.position();
+                int length = data.getInt();
+                if(length < HEADER_BYTES || length > data.remaining() - 4) {
+                    break;
+                }
+                crc.reset();
+                crc.update(data.duplicate().limit(start + 4 + length));
+                if((int) crc.getValue() != data.getInt(start + 4 + length)) {
+                    break;
+                }
+                byte type = data.get();
+                long id = data.getLong();
+                int amount = data.getInt();
+                int[] notes = new int[data.get()];
+                for(int i = 0; i < notes.length; i++) {
+                    notes[i] = data.getInt();
+                }
+                data.getInt();
+                validBytes = data.position();
+                lastId = Math.max(lastId, id);
+
+                if(type == LOAD) {
+                    counts = notes;
+                    open.clear();
+                } else if(counts == null) {
+                    throw new IOException("Journal has records before the first cassette load");
+                } else if(type == RESERVE) {
+                    add(counts, notes, -1);
+                    open.put(id, new PendingRecord(type, id, amount, notes));
+                } else if(type == COMMIT) {
+                    if(open.remove(id) != null) {
+                        committed++;
+                    }
+                } else if(type == ROLLBACK) {
+                    PendingRecord reserved = open.remove(id);
+                    if(reserved != null) {
+                        add(counts, reserved.notes, 1);
+                    }
+                }
+            }
+            if(counts == null) {
+                return null;
+            }
+            if(validBytes < in.size()) {
+                in.truncate(validBytes);
+            }
+
+            CassetteInventory inventory = new CassetteInventory(denominations, counts);
+            inventory.resumeReservationIdsAfter(lastId);
+            List<CassetteInventory.Reservation> inDoubt = new ArrayList<>();
+            for(PendingRecord reserved : open.values()) {
+                inDoubt.add(inventory.recoverReservation(reserved.id, reserved.amount, reserved.notes));
+            }
+            return new Recovery(inventory, inDoubt, committed);
+        }
+    }
+
+    private static void add(int[] counts, int[] notes, int sign) {
+        for(int i = 0; i < counts.length; i++) {
+            counts[i] += sign * notes[i];
+        }
+    }
+
+    private static class PendingRecord {
+
+        final byte type;
+        final long id;
+        final int amount;
+        final int[] notes;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        PendingRecord(byte type, long id, int amount, int[] notes) {
+            this.type = type;
+            this.id = id;
+            this.amount = amount;
+            this.notes = notes;
+        }
+    }
+
+    public static class Recovery {
+
+        private final CassetteInventory inventory;
+        private final List<CassetteInventory.Reservation> inDoubt;
+        private final long committedWithdrawals;
+
+        Recovery(CassetteInventory inventory, List<CassetteInventory.Reservation> inDoubt, long committedWithdrawals) {
+            this.inventory = inventory;
+            this.inDoubt = inDoubt;
+            this.committedWithdrawals = committedWithdrawals;
+        }
+
+        public CassetteInventory getInventory() {
+            return inventory;
+        }
+
+        public List<CassetteInventory.Reservation> getInDoubt() {
+            return inDoubt;
+        }
+
+        public long getCommittedWithdrawals() {
+            return committedWithdrawals;
+        }
+    }
+
+}
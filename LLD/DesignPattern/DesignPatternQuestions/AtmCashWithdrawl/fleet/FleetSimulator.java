@@ -0,0 +1,145 @@
+package DesignPattern.DesignPatternQuestions.AtmCashWithdrawl.fleet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import DesignPattern.behavioralDesign.statePattern.ATMSessions;
+import DesignPattern.behavioralDesign.statePattern.TableDrivenATM;
+
+/*
+ * Runs every ATM of a fleet on its own thread until it cashes out, then
+ * reports the sessions each ATM got through per wall-clock second, the
+ * simulated load it was offered, time-to-cash-out and how close the streaming
+ * rate forecast came to the moment each ATM's first cassette ran dry.
+ */
+public class FleetSimulator {
+
+    private static final long NANOS_PER_HOUR = 3_600_000_000_000L;
+
+    public static void main(String args[]) throws InterruptedException {
+        int atmCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int[] denominations = {1000, 500, 200, 100};
+        int[] initialCounts = {200, 400, 500, 600};
+        long horizonNanos = 72 * NANOS_PER_HOUR;
+        long checkpointNanos = NANOS_PER_HOUR;
+
+        TableDrivenATM stateTable = new TableDrivenATM();
+        ATMSessions fleetSessions = new ATMSessions(stateTable, atmCount);
+        List<SimulatedATM> fleet = new ArrayList<>(atmCount);
+        for(int i = 0; i < atmCount; i++) {
+            // quiet ATMs see a customer every ten minutes, busy ones every minute
+            double meanGap = 60 + (i * 7919L % 541);
+            fleet.add(new SimulatedATM(i, denominations, initialCounts, meanGap, 1800));
+        }
+
+        long start = System.nanoTime();
+        ExecutorService executor = newSessionExecutor();
+        for(int i = 0; i < atmCount; i++) {
+            SimulatedATM atm = fleet.get(i);
+            int slot = i;
+            executor.execute(() -> atm.run(fleetSessions, slot, horizonNanos, checkpointNanos));
+        }
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.HOURS);
+        long wallNanos = System.nanoTime() - start;
+
+        report(fleet, fleetSessions, denominations, wallNanos);
+    }
+
+    // Virtual threads when the JDK has them, otherwise one platform thread per core.
+    static ExecutorService newSessionExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        }
+    }
+
+    private static void report(List<SimulatedATM> fleet, ATMSessions fleetSessions, int[] denominations, long wallNanos) {
+        int atmCount = fleet.size();
+        double[] sessionsPerSecond = new double[atmCount];
+        double[] sessionsPerHour = new double[atmCount];
+        List<Double> cashOutHours = new ArrayList<>();
+        List<Double> forecastErrors = new ArrayList<>();
+        long totalSessions = 0;
+        int stuckSessions = 0;
+
+        for(int i = 0; i < atmCount; i++) {
+            SimulatedATM atm = fleet.get(i);
+            totalSessions += atm.getSessions();
+            sessionsPerSecond[i] = atm.getSessions() * 1e9 / Math.max(atm.getWallNanos(), 1);
+            sessionsPerHour[i] = atm.getSessions() / Math.max(atm.getClockNanos() / (double) NANOS_PER_HOUR, 1e-9);
+            if(atm.getCashOutNanos() >= 0) {
+                cashOutHours.add(atm.getCashOutNanos() / (double) NANOS_PER_HOUR);
+            }
+            if(fleetSessions.getState(i) != TableDrivenATM.IDLE) {
+                stuckSessions++;
+            }
+            int first = firstDryCassette(atm, denominations.length);
+            if(first >= 0 && atm.getForecastDryNanos(first) > 0) {
+                double actual = atm.getDryNanos(first);
+                forecastErrors.add(Math.abs(atm.getForecastDryNanos(first) - actual) / actual);
+            }
+        }
+
+        Arrays.sort(sessionsPerSecond);
+        Arrays.sort(sessionsPerHour);
+        double[] cashOut = cashOutHours.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+        double[] errors = forecastErrors.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+
+        System.out.println("Fleet of " + atmCount + " ATMs, executor: " + (supportsVirtualThreads() ? "virtual threads" : "platform thread pool"));
+        System.out.printf("Simulated %d sessions in %d ms wall time (%.0f sessions/s)%n",
+                totalSessions, wallNanos / 1_000_000, totalSessions * 1e9 / wallNanos);
+        System.out.printf("Per-ATM throughput (sessions/wall-clock second): min %.0f, median %.0f, p90 %.0f, max %.0f%n",
+                sessionsPerSecond[0], percentile(sessionsPerSecond, 0.5), percentile(sessionsPerSecond, 0.9),
+                sessionsPerSecond[atmCount - 1]);
+        System.out.printf("Offered load (sessions/simulated hour, set by the customer gaps): min %.1f, median %.1f, p90 %.1f, max %.1f%n",
+                sessionsPerHour[0], percentile(sessionsPerHour, 0.5), percentile(sessionsPerHour, 0.9), sessionsPerHour[atmCount - 1]);
+        if(cashOut.length > 0) {
+            System.out.printf("Time to cash-out (hours) for %d ATMs: p10 %.1f, median %.1f, p90 %.1f%n",
+                    cashOut.length, percentile(cashOut, 0.1), percentile(cashOut, 0.5), percentile(cashOut, 0.9));
+        }
+        if(errors.length > 0) {
+            System.out.printf("Forecast of first empty cassette made after 1 hour, relative error: median %.1f%%, p90 %.1f%% (%d ATMs)%n",
+                    100 * percentile(errors, 0.5), 100 * percentile(errors, 0.9), errors.length);
+        }
+        System.out.println("Sessions left outside IDLE: " + stuckSessions);
+
+        SimulatedATM sample = fleet.get(0);
+        long now = sample.getClockNanos();
+        for(int d = 0; d < denominations.length; d++) {
+            System.out.printf("ATM %d, %d notes: %.4f notes/s at end of run, %d left%n",
+                    sample.getAtmId(), denominations[d], sample.getRateTracker().notesPerSecond(d, now),
+                    sample.getInventory().getAvailableNotes(denominations[d]));
+        }
+    }
+
+    private static int firstDryCassette(SimulatedATM atm, int cassettes) {
+        int first = -1;
+        for(int d = 0; d < cassettes; d++) {
+            long dry = atm.getDryNanos(d);
+            if(dry >= 0 && (first < 0 || dry < atm.getDryNanos(first))) {
+                first = d;
+            }
+        }
+        return first;
+    }
+
+    private static boolean supportsVirtualThreads() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static double percentile(double[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (p * sorted.length))];
+    }
+
+}
@@ -0,0 +1,144 @@
+package DesignPattern.DesignPatternQuestions.AtmCashWithdrawl.fleet;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import DesignPattern.DesignPatternQuestions.AtmCashWithdrawl.CassetteInventory;
+import DesignPattern.behavioralDesign.statePattern.ATMSessions;
+
+/*
+ * One ATM of the fleet: its cassettes, its withdrawal rate tracker and a
+ * simulated clock. Customers arrive with exponential gaps, and each session
+ * runs insertCard -> enterPin -> withdrawCash through the shared state table
+ * while the cash comes out of the CassetteInventory. The inventory stands in
+ * for the ATMHandler cassette chain: it plans the notes greedily from the
+ * highest denomination down, as the chain does, but reserves them in one
+ * atomic step that can be rolled back when the session fails.
+ */
+public class SimulatedATM {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final int atmId;
+    private final CassetteInventory inventory;
+    private final WithdrawalRateTracker rateTracker;
+    private final double meanSecondsBetweenCustomers;
+    private final SplittableRandom random;
+
+    private long clockNanos;
+    private long sessions;
+    private long withdrawals;
+    private long cashOutNanos = -1;
+    private long wallNanos;
+    private final long[] dryNanos;
+    private final double[] forecastDryNanos;
+
+    public SimulatedATM(int atmId, int[] denominations, int[] initialCounts, double meanSecondsBetweenCustomers, double rateTauSeconds) {
+        this.atmId = atmId;
+        this.inventory = new CassetteInventory(denominations, initialCounts);
+        this.rateTracker = new WithdrawalRateTracker(denominations.length, rateTauSeconds);
+        this.meanSecondsBetweenCustomers = meanSecondsBetweenCustomers;
+        this.random = new SplittableRandom(atmId);
+        this.dryNanos = new long[denominations.length];
+        this.forecastDryNanos = new double[denominations.length];
+        Arrays.fill(dryNanos, -1);
+        Arrays.fill(forecastDryNanos, -1);
+    }
+
+    // Serves customers until the ATM first has to decline for lack of notes
+    // or the horizon passes. Cassette forecasts are captured at the checkpoint.
+    public void run(ATMSessions fleetSessions, int slot, long horizonNanos, long checkpointNanos) {
+        boolean forecastTaken = false;
+        long start = System.nanoTime();
+        while(clockNanos < horizonNanos && cashOutNanos < 0) {
+            double gapSeconds = -Math.log(1 - random.nextDouble()) * meanSecondsBetweenCustomers;
+            clockNanos += (long) (gapSeconds * NANOS_PER_SECOND);
+            if(!forecastTaken && clockNanos >= checkpointNanos) {
+                takeForecast();
+                forecastTaken = true;
+            }
+            serveCustomer(fleetSessions, slot);
+        }
+        wallNanos = System.nanoTime() - start;
+    }
+
+    private void serveCustomer(ATMSessions fleetSessions, int slot) {
+        sessions++;
+        fleetSessions.insertCard(slot);
+        fleetSessions.enterPin(slot);
+        int amount = 100 * (1 + random.nextInt(100));
+        CassetteInventory.Reservation reservation = inventory.reserve(amount);
+        if(reservation == null) {
+            fleetSessions.ejectCard(slot);
+            cashOutNanos = clockNanos;
+            return;
+        }
+        if(fleetSessions.withdrawCash(slot)) {
+            inventory.commit(reservation);
+            withdrawals++;
+            rateTracker.record(clockNanos, reservation.getNotes());
+            int[] remaining = inventory.snapshot();
+            for(int i = 0; i < remaining.length; i++) {
+                if(remaining[i] == 0 && dryNanos[i] < 0) {
+                    dryNanos[i] = clockNanos;
+                }
+            }
+        } else {
+            inventory.rollback(reservation);
+            fleetSessions.ejectCard(slot);
+        }
+    }
+
+    private void takeForecast() {
+        int[] remaining = inventory.snapshot();
+        for(int i = 0; i < remaining.length; i++) {
+            double seconds = rateTracker.secondsUntilEmpty(i, remaining[i], clockNanos);
+            forecastDryNanos[i] = Double.isInfinite(seconds) ? -1 : clockNanos + seconds * NANOS_PER_SECOND;
+        }
+    }
+
+    public int getAtmId() {
+        return atmId;
+    }
+
+    public CassetteInventory getInventory() {
+        return inventory;
+    }
+
+    public WithdrawalRateTracker getRateTracker() {
+        return rateTracker;
+    }
+
+    public long getClockNanos() {
+        return clockNanos;
+    }
+
+    // Real time run() took, the ATM's share of the simulation's work.
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    public long getSessions() {
+        return sessions;
+    }
+
+    public long getWithdrawals() {
+        return withdrawals;
+    }
+
+    // Simulated time of the first decline for lack of notes, or -1.
+    public long getCashOutNanos() {
+        return cashOutNanos;
+    }
+
+    // Simulated time each cassette ran empty, or -1.
+    public long getDryNanos(int denominationIndex) {
+        return dryNanos[denominationIndex];
+    }
+
+    // Forecast empty time of each cassette made at the checkpoint, or -1.
+    public double getForecastDryNanos(int denominationIndex) {
+        return forecastDryNanos[denominationIndex];
+    }
+
+}
@@ -0,0 +1,67 @@
+package DesignPattern.DesignPatternQuestions.AtmCashWithdrawl.fleet;
+
+/*
+ * Streaming withdrawal rate per denomination for one ATM.
+ *
+ * Each cassette keeps an exponentially decayed note count: on every
+ * withdrawal the old value is decayed by exp(-elapsed / tau) and the new
+ * notes are added. count / tau is then the recent rate in notes per second,
+ * so forecasting a cassette only needs its current count, not the
+ * transaction history. Until tau has passed the rate is scaled up by the
+ * share of the window actually observed, so young trackers are not biased low.
+ */
+public class WithdrawalRateTracker {
+
+    private final double tauSeconds;
+    private final double[] decayedNotes;
+    private long startNanos;
+    private long lastUpdateNanos;
+    private boolean started;
+
+    public WithdrawalRateTracker(int denominationCount, double tauSeconds) {
+        this.tauSeconds = tauSeconds;
+        this.decayedNotes = new double[denominationCount];
+    }
+
+    public synchronized void record(long nowNanos, int[] notes) {
+        decayTo(nowNanos);
+        for(int i = 0; i < notes.length; i++) {
+            decayedNotes[i] += notes[i];
+        }
+    }
+
+    // Recent withdrawal rate of one cassette, in notes per second.
+    public synchronized double notesPerSecond(int denominationIndex, long nowNanos) {
+        decayTo(nowNanos);
+        double observed = 1 - Math.exp(-((lastUpdateNanos - startNanos) / 1e9) / tauSeconds);
+        return observed > 0 ? decayedNotes[denominationIndex] / (tauSeconds * observed) : 0;
+    }
+
+    // Seconds until the cassette is empty at the recent rate; infinite when idle.
+    public double secondsUntilEmpty(int denominationIndex, int remainingNotes, long nowNanos) {
+        if(remainingNotes <= 0) {
+            return 0;
+        }
+        double rate = notesPerSecond(denominationIndex, nowNanos);
+        return rate > 0 ? remainingNotes / rate : Double.POSITIVE_INFINITY;
+    }
+
+    private void decayTo(long nowNanos) {
+        if(!started) {
+            started = true;
+            startNanos = nowNanos;
+            lastUpdateNanos = nowNanos;
+            return;
+        }
+        long elapsed = nowNanos - lastUpdateNanos;
+        if(elapsed <= 0) {
+            return;
+        }
+        double factor = Math.exp(-(elapsed / 1e9) / tauSeconds);
+        for(int i = 0; i < decayedNotes.length; i++) {
+            decayedNotes[i] *= factor;
+        }
+        lastUpdateNanos = nowNanos;
+    }
+
+}
@@ -0,0 +1,127 @@
+package DesignPattern.DesignPatternQuestions.customerEscalation;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Caps how many tickets a tier works at once and adapts the cap to the
+ * handling latency it observes (AIMD, as in TCP congestion control).
+ *
+ * The signal is a moving average of the handling latency, so single slow
+ * tickets do not count. While it is under the target every completion adds
+ * 1/limit, so the limit grows by one per limit's worth of tickets - but only
+ * while the limit is actually being used. While it is over the target the
+ * limit is multiplied by the backoff factor, at most once per average
+ * latency so the effect of one cut is seen before the next. When a tier's
+ * backend degrades the limit shrinks, the excess waits in the queue where
+ * priorities still apply, and the tickets that do run are handled at
+ * normal speed.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetNanos;
+    private final double backoff;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Object released = new Object();
+    private volatile int waiting;
+    private volatile int limit;
+    private double estimate;
+    private long lastDecreaseAt;
+    private volatile long averageNanos;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long targetNanos, double backoff) {
+        if(minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit || backoff <= 0 || backoff >= 1) {
+            throw new IllegalArgumentException("Need 1 <= min <= initial <= max and 0 < backoff < 1");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetNanos = targetNanos;
+        this.backoff = backoff;
+        this.limit = initialLimit;
+        this.estimate = initialLimit;
+        this.averageNanos = targetNanos / 2;
+    }
+
+    public boolean tryAcquire() {
+        while(true) {
+            int current = inFlight.get();
+            if(current >= limit) {
+                return false;
+            }
+            if(inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    // Waits up to timeoutMillis for a permit; a raised limit is only seen when the wait ends.
+    public boolean tryAcquire(long timeoutMillis) {
+        if(tryAcquire()) {
+            return true;
+        }
+        synchronized (released) {
+            waiting++;
+            try {
+                if(tryAcquire()) {
+                    return true;
+                }
+                released.wait(timeoutMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                waiting--;
+            }
+        }
+        return tryAcquire();
+    }
+
+    // Gives the permit back after a ticket was handled in latencyNanos.
+    public void release(long latencyNanos) {
+        int busy = inFlight.getAndDecrement();
+        wakeWaiter();
+        long now = System.nanoTime();
+        synchronized (this) {
+            long average = averageNanos + ((latencyNanos - averageNanos) >> 4);
+            averageNanos = average;
+            if(average > targetNanos) {
+                if(now - lastDecreaseAt >= average) {
+                    estimate = Math.max(minLimit, estimate * backoff);
+                    lastDecreaseAt = now;
+                }
+            } else if(busy * 2 >= limit) {
+                estimate = Math.min(maxLimit, estimate + 1 / estimate);
+            }
+            limit = (int) estimate;
+        }
+    }
+
+    // Gives the permit back without a sample, when it was not used after all.
+    public void cancel() {
+        inFlight.decrementAndGet();
+        wakeWaiter();
+    }
+
+    private void wakeWaiter() {
+        if(waiting > 0) {
+            synchronized (released) {
+                released.notify();
+            }
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    // Moving average over roughly the last 16 handling latencies.
+    public long getAverageNanos() {
+        return averageNanos;
+    }
+
+}
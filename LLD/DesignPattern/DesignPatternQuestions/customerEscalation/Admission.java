@@ -0,0 +1,10 @@
+package DesignPattern.DesignPatternQuestions.customerEscalation;
+
+// Outcome of offering a ticket to the AdmissionController.
+public enum Admission {
+
+    ACCEPTED,   // queued at its tier
+    DEFERRED,   // parked until the tier has room again
+    REJECTED    // shed; the caller has to come back later
+
+}
@@ -0,0 +1,254 @@
+package DesignPattern.DesignPatternQuestions.customerEscalation;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Admission control in front of a TicketDispatcher, so an overloaded tier
+ * sheds work at the door instead of queueing it without limit.
+ *
+ * For every ticket the controller estimates how long it would wait at its
+ * tier: the tickets of its own or a higher priority queued there, times the
+ * average handling time, divided by the concurrency (Little's law) -
+ * stretched by the share of capacity that higher priorities offered
+ * meanwhile will take - and compares that with the wait budget of the
+ * ticket's priority. Each priority below CRITICAL may also only fill part
+ * of the tier's queue, so the rest stays free for CRITICAL tickets. A
+ * ticket over budget is deferred when its priority is deferrable and there
+ * is room in the bounded deferral queue, otherwise rejected. Deferred
+ * tickets are retried, highest priority first, as soon as their tier is
+ * back under budget, and rejected when they have waited longer than
+ * maxDeferMillis.
+ *
+ * CRITICAL tickets skip the checks; they are only refused when the tier
+ * queue itself is full. With an AdaptiveConcurrencyLimiter on the tier the
+ * average handling time stays close to the backend's normal latency, so
+ * the estimate tracks the real queueing delay.
+ */
+public class AdmissionController implements AutoCloseable {
+
+    private static final double[] DEFAULT_QUEUE_SHARE = {0.5, 0.7, 0.9, 1.0};
+
+    private final TicketDispatcher dispatcher;
+    private final long[] waitBudgetNanos;
+    private final double[] queueShare;
+    private final Priority lowestDeferred;
+    private final int deferCapacity;
+    private final long maxDeferNanos;
+    private final ArrayDeque<Deferred>[] deferred;
+    private int deferredCount;
+    private final LongAdder[] accepted = new LongAdder[Priority.values().length];
+    private final LongAdder[] deferrals = new LongAdder[Priority.values().length];
+    private final LongAdder[] rejected = new LongAdder[Priority.values().length];
+    private final ScheduledExecutorService retrier;
+    private final LongAdder[] offered = new LongAdder[Priority.values().length];
+    // offered tickets per nanosecond and priority, a moving average over 20 ms windows
+    private final double[] arrivalRate = new double[Priority.values().length];
+    private final long[] offeredAtWindowStart = new long[Priority.values().length];
+    private long windowStart = System.nanoTime();
+
+    // waitBudgetMillis[priority] is the longest queueing delay a ticket of that priority is admitted into.
+    public AdmissionController(TicketDispatcher dispatcher, long[] waitBudgetMillis, Priority lowestDeferred,
+                               int deferCapacity, long maxDeferMillis) {
+        this(dispatcher, waitBudgetMillis, DEFAULT_QUEUE_SHARE, lowestDeferred, deferCapacity, maxDeferMillis);
+    }
+
+    // queueShare[priority] is the fraction of a tier's queue that priority may fill.
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public AdmissionController(TicketDispatcher dispatcher, long[] waitBudgetMillis, double[] queueShare,
+                               Priority lowestDeferred, int deferCapacity, long maxDeferMillis) {
+        int priorities = Priority.values().length;
+        if(waitBudgetMillis.length != priorities || queueShare.length != priorities) {
+            throw new IllegalArgumentException("Need one wait budget and queue share per priority");
+        }
+        this.dispatcher = dispatcher;
+        this.waitBudgetNanos = new long[priorities];
+        for(int i = 0; i < priorities; i++) {
+            waitBudgetNanos[i] = TimeUnit.MILLISECONDS.toNanos(waitBudgetMillis[i]);
+            offered[i] = new LongAdder();
+            accepted[i] = new LongAdder();
+            deferrals[i] = new LongAdder();
+            rejected[i] = new LongAdder();
+        }
+        this.queueShare = queueShare.clone();
+        this.lowestDeferred = lowestDeferred;
+        this.deferCapacity = deferCapacity;
+        this.maxDeferNanos = TimeUnit.MILLISECONDS.toNanos(maxDeferMillis);
+        this.deferred = new ArrayDeque[priorities];
+        for(int i = 0; i < priorities; i++) {
+            deferred[i] = new ArrayDeque<>();
+        }
+        this.retrier = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "admission-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        retrier.scheduleWithFixedDelay(() -> {
+            // an exception would cancel every later retry and strand the deferred tickets
+            try {
+                retryDeferred();
+            } catch (RuntimeException e) {
+                System.err.println("Admission retry failed: " + e);
+            }
+        }, 5, 5, TimeUnit.MILLISECONDS);
+    }
+
+    public Admission admit(Ticket ticket) {
+        int tier = dispatcher.tierOf(ticket);
+        Priority priority = ticket.getPriority() == null ? Priority.LOW : ticket.getPriority();
+        offered[priority.ordinal()].increment();
+        if(tier >= 0 && (priority == Priority.CRITICAL || hasRoom(tier, priority)) && dispatcher.submit(ticket)) {
+            accepted[priority.ordinal()].increment();
+            return Admission.ACCEPTED;
+        }
+        if(tier >= 0 && priority.compareTo(lowestDeferred) >= 0 && defer(ticket, priority)) {
+            deferrals[priority.ordinal()].increment();
+            ticket.setStatus("DEFERRED");
+            return Admission.DEFERRED;
+        }
+        reject(ticket, priority);
+        return Admission.REJECTED;
+    }
+
+    private boolean hasRoom(int tier, Priority priority) {
+        int backlog = dispatcher.getBacklog(tier);
+        if(backlog >= dispatcher.getCapacity(tier) * queueShare[priority.ordinal()]) {
+            return false;
+        }
+        return estimatedWaitNanos(tier, priority) <= waitBudgetNanos[priority.ordinal()];
+    }
+
+    // Little's law: the tickets ahead drain at concurrency / handling time tickets per nanosecond.
+    public long estimatedWaitNanos(int tier, Priority priority) {
+        int backlog = dispatcher.getBacklog(tier, priority);
+        if(backlog == 0) {
+            return 0;
+        }
+        AdaptiveConcurrencyLimiter limiter = dispatcher.getConcurrencyLimiter(tier);
+        if(limiter == null) {
+            // without a limiter there is no latency signal; fall back to the queue shares alone
+            return 0;
+        }
+        int concurrency = Math.max(1, Math.min(limiter.getLimit(), dispatcher.getWorkers(tier)));
+        double handlingNanos = limiter.getAverageNanos();
+        double higherLoad = 0;
+        synchronized (arrivalRate) {
+            for(int p = priority.ordinal() + 1; p < arrivalRate.length; p++) {
+                higherLoad += arrivalRate[p] * handlingNanos / concurrency;
+            }
+        }
+        if(higherLoad >= 1) {
+            // higher priorities alone keep the tier busy
+            return Long.MAX_VALUE;
+        }
+        return (long) (backlog * handlingNanos / concurrency / (1 - higherLoad));
+    }
+
+    private void measureArrivals() {
+        long now = System.nanoTime();
+        long elapsed = now - windowStart;
+        if(elapsed < 20_000_000L) {
+            return;
+        }
+        synchronized (arrivalRate) {
+            for(int p = 0; p < arrivalRate.length; p++) {
+                long total = offered[p].sum();
+                arrivalRate[p] += ((double) (total - offeredAtWindowStart[p]) / elapsed - arrivalRate[p]) / 4;
+                offeredAtWindowStart[p] = total;
+            }
+        }
+        windowStart = now;
+    }
+
+    private synchronized boolean defer(Ticket ticket, Priority priority) {
+        if(deferredCount >= deferCapacity) {
+            return false;
+        }
+        deferred[priority.ordinal()].addLast(new Deferred(ticket, System.nanoTime()));
+        deferredCount++;
+        return true;
+    }
+
+    private void reject(Ticket ticket, Priority priority) {
+        rejected[priority.ordinal()].increment();
+        ticket.setStatus("REJECTED");
+    }
+
+    // Runs on the retry thread; within a priority the oldest ticket goes first.
+    private void retryDeferred() {
+        measureArrivals();
+        long now = System.nanoTime();
+        for(int p = deferred.length - 1; p >= 0; p--) {
+            Priority priority = Priority.of(p);
+            while(true) {
+                Deferred next;
+                synchronized (this) {
+                    next = deferred[p].peekFirst();
+                    if(next == null) {
+                        break;
+                    }
+                    boolean expired = now - next.deferredAt > maxDeferNanos;
+                    if(!expired) {
+                        int tier = dispatcher.tierOf(next.ticket);
+                        if(!hasRoom(tier, priority) || !dispatcher.submit(next.ticket)) {
+                            break;
+                        }
+                    }
+                    deferred[p].pollFirst();
+                    deferredCount--;
+                    if(expired) {
+                        reject(next.ticket, priority);
+                    } else {
+                        accepted[p].increment();
+                    }
+                }
+            }
+        }
+    }
+
+    public long getAccepted(Priority priority) {
+        return accepted[priority.ordinal()].sum();
+    }
+
+    public long getDeferred(Priority priority) {
+        return deferrals[priority.ordinal()].sum();
+    }
+
+    public long getRejected(Priority priority) {
+        return rejected[priority.ordinal()].sum();
+    }
+
+    public synchronized int getDeferredBacklog() {
+        return deferredCount;
+    }
+
+    // Stops retrying; tickets still deferred are rejected.
+    @Override
+    public void close() {
+        retrier.shutdownNow();
+        synchronized (this) {
+            for(int p = 0; p < deferred.length; p++) {
+                for(Deferred left : deferred[p]) {
+                    reject(left.ticket, Priority.of(p));
+                }
+                deferred[p].clear();
+            }
+            deferredCount = 0;
+        }
+    }
+
+    private static class Deferred {
+
+        final Ticket ticket;
+        final long deferredAt;
+
+        Deferred(Ticket ticket, long deferredAt) {
+            this.ticket = ticket;
+            this.deferredAt = deferredAt;
+        }
+    }
+
+}
@@ -12,10 +12,33 @@ public abstract class CustomerHandler {
         this.nextHandler = nextHandler;
     }
     
-    public abstract void handleRequest(Ticket ticket);
+    // Template method: this tier works the ticket or passes it up the chain.
+    public void handleRequest(Ticket ticket) {
+        if(canHandle(ticket)) {
+            process(ticket);
+        }
+        else if(nextHandler != null) {
+            nextHandler.handleRequest(ticket);
+        }
+        else {
+            unhandled(ticket);
+        }
+    }
+
+    public abstract boolean canHandle(Ticket ticket);
+
+    protected abstract void process(Ticket ticket);
+
+    // Called by the last handler for a ticket nobody could take.
+    protected void unhandled(Ticket ticket) {
+    }
 
     public void setNextHandler(CustomerHandler nextHandler){
         this.nextHandler = nextHandler;
     }
+
+    public CustomerHandler getNextHandler() {
+        return nextHandler;
+    }
     
 }
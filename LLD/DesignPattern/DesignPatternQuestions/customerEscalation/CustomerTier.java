@@ -0,0 +1,23 @@
+package DesignPattern.DesignPatternQuestions.customerEscalation;
+
+// Support contract of the customer who raised a ticket, lowest first.
+public enum CustomerTier {
+
+    BASIC, STANDARD, PREMIUM, ENTERPRISE;
+
+    private static final CustomerTier[] VALUES = values();
+
+    // Case-insensitive; returns null for a missing or unknown tier.
+    public static CustomerTier parse(String tier) {
+        if(tier == null) {
+            return null;
+        }
+        for(CustomerTier customerTier : VALUES) {
+            if(customerTier.name().equalsIgnoreCase(tier)) {
+                return customerTier;
+            }
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,177 @@
+package DesignPattern.DesignPatternQuestions.customerEscalation;
+
+import java.util.function.Consumer;
+
+/*
+ * Deadline tracker for very many timers, in the style of the Linux kernel
+ * timer wheel.
+ *
+ * Time is cut into ticks. Level 0 has one slot per tick for the next 256
+ * ticks, level 1 one slot per 256 ticks for the next 65536, and so on for
+ * four levels. Each slot is an intrusive doubly linked list, so scheduling
+ * is a level/slot computation plus a list insert and cancelling is an
+ * unlink, both O(1). Advancing one tick expires one level-0 slot; every 256
+ * ticks the next level-1 slot is cascaded down into level 0 (and so on up),
+ * so each timer is moved at most once per level over its lifetime.
+ *
+ * Methods synchronize on the wheel; expired payloads are handed to the
+ * callback after the lock is released.
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private static final int LEVELS = 4;
+    private static final int SLOT_BITS = 8;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private final long tickNanos;
+    private final long originNanos;
+    private final Timeout<T>[][] heads;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public HierarchicalTimingWheel(long tickNanos, long originNanos) {
+        this.tickNanos = tickNanos;
+        this.originNanos = originNanos;
+        this.heads = new Timeout[LEVELS][SLOTS];
+    }
+
+    public synchronized Timeout<T> schedule(T payload, long deadlineNanos) {
+        long ticks = Math.floorDiv(deadlineNanos - originNanos + tickNanos - 1, tickNanos);
+        Timeout<T> timeout = new Timeout<>(payload, ticks);
+        place(timeout, false);
+        size++;
+        return timeout;
+    }
+
+    // Returns false when the timer already expired or was cancelled.
+    public synchronized boolean cancel(Timeout<T> timeout) {
+        if(timeout.level < 0) {
+            return false;
+        }
+        unlink(timeout);
+        size--;
+        return true;
+    }
+
+    // Moves the wheel up to now and passes every payload whose deadline has come to expired.
+    public void advanceTo(long nowNanos, Consumer<T> expired) {
+        Timeout<T> due = null;
+        synchronized (this) {
+            long target = Math.floorDiv(nowNanos - originNanos, tickNanos);
+            while(currentTick < target) {
+                currentTick++;
+                cascade(currentTick);
+                int slot = (int) (currentTick & SLOT_MASK);
+                Timeout<T> timeout = heads[0][slot];
+                heads[0][slot] = null;
+                while(timeout != null) {
+                    Timeout<T> next = timeout.next;
+                    timeout.level = -1;
+                    timeout.prev = null;
+                    timeout.next = due;
+                    due = timeout;
+                    size--;
+                    timeout = next;
+                }
+            }
+        }
+        for(Timeout<T> timeout = due; timeout != null; ) {
+            Timeout<T> next = timeout.next;
+            timeout.next = null;
+            expired.accept(timeout.payload);
+            timeout = next;
+        }
+    }
+
+    // At every 256th tick the matching slot one level up is spread over the level below.
+    private void cascade(long tick) {
+        for(int level = 1; level < LEVELS; level++) {
+            if(((tick >> (SLOT_BITS * (level - 1))) & SLOT_MASK) != 0) {
+                return;
+            }
+            int slot = (int) ((tick >> (SLOT_BITS * level)) & SLOT_MASK);
+            Timeout<T> timeout = heads[level][slot];
+            heads[level][slot] = null;
+            while(timeout != null) {
+                Timeout<T> next = timeout.next;
+                timeout.prev = null;
+                timeout.next = null;
+                place(timeout, true);
+                timeout = next;
+            }
+        }
+    }
+
+    // While cascading, the level-0 slot of the current tick is still to be
+    // expired, so a timer due right now can go there; otherwise it waits a tick.
+    private void place(Timeout<T> timeout, boolean cascading) {
+        long delta = timeout.deadlineTick - currentTick;
+        if(delta < 0 || (delta == 0 && !cascading)) {
+            timeout.deadlineTick = currentTick + 1;
+            delta = 1;
+        }
+        int level = 0;
+        while(level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        long tick = timeout.deadlineTick;
+        if(delta >= 1L << (SLOT_BITS * LEVELS)) {
+            // beyond the wheel: park in the farthest slot, it is placed again when cascaded
+            tick = currentTick + (1L << (SLOT_BITS * LEVELS)) - 1;
+        }
+        int slot = (int) ((tick >> (SLOT_BITS * level)) & SLOT_MASK);
+        Timeout<T> head = heads[level][slot];
+        timeout.next = head;
+        if(head != null) {
+            head.prev = timeout;
+        }
+        heads[level][slot] = timeout;
+        timeout.level = level;
+        timeout.slot = slot;
+    }
+
+    private void unlink(Timeout<T> timeout) {
+        if(timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            heads[timeout.level][timeout.slot] = timeout.next;
+        }
+        if(timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.level = -1;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public long getTickNanos() {
+        return tickNanos;
+    }
+
+    // Handle for one scheduled deadline; level is -1 once it expired or was cancelled.
+    public static final class Timeout<T> {
+
+        private final T payload;
+        private long deadlineTick;
+        private int level = -1;
+        private int slot;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+
+        private Timeout(T payload, long deadlineTick) {
+            this.payload = payload;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+    }
+
+}
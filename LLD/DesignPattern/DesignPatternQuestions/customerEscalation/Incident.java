@@ -0,0 +1,51 @@
+package DesignPattern.DesignPatternQuestions.customerEscalation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// A group of near-identical tickets: the parent goes through escalation,
+// the children only follow its status.
+public class Incident {
+
+    private final int incidentId;
+    private final Ticket parent;
+    private final int[] signature;
+    private final long[] bandKeys;
+    private final List<Ticket> children = new ArrayList<>();
+
+    Incident(int incidentId, Ticket parent, int[] signature, long[] bandKeys) {
+        this.incidentId = incidentId;
+        this.parent = parent;
+        this.signature = signature;
+        this.bandKeys = bandKeys;
+    }
+
+    public int getIncidentId() {
+        return incidentId;
+    }
+
+    public Ticket getParent() {
+        return parent;
+    }
+
+    public synchronized List<Ticket> getChildren() {
+        return new ArrayList<>(children);
+    }
+
+    public synchronized int getChildCount() {
+        return children.size();
+    }
+
+    synchronized void addChild(Ticket child) {
+        children.add(child);
+    }
+
+    int[] getSignature() {
+        return signature;
+    }
+
+    long[] getBandKeys() {
+        return bandKeys;
+    }
+
+}
@@ -0,0 +1,258 @@
+package DesignPattern.DesignPatternQuestions.customerEscalation;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * First handler of the chain during incident storms: near-identical tickets
+ * are folded into one Incident and only its parent walks the rest of the
+ * chain.
+ *
+ * The issue text becomes a set of word and word-pair shingles, and a
+ * MinHash signature of SIGNATURE_SIZE values estimates the Jaccard
+ * similarity of two such sets. The signature is cut into BANDS bands of
+ * ROWS values; each band is hashed into a table of open incidents (LSH), so
+ * a ticket only compares itself with incidents that share a band. The work
+ * per ticket is fixed by the signature size, not by how many incidents are
+ * open. A ticket whose estimated similarity to a candidate reaches the
+ * threshold becomes that incident's child and is marked LINKED; otherwise
+ * it opens a new incident and carries on to the next handler. Text without
+ * a single word has no fingerprint; such a ticket is not compared with
+ * anything and simply carries on.
+ *
+ * When the parent leaves the escalation path - resolved, closed, marked
+ * unresolved, rejected or deferred by admission control - its children get
+ * the same status and the incident stops collecting new tickets. Children
+ * keep following the parent's later status changes, e.g. a deferred parent
+ * that is worked after all.
+ */
+public class IncidentDeduplicator extends CustomerHandler {
+
+    private static final int SIGNATURE_SIZE = 64;
+    private static final int BANDS = 16;
+    private static final int ROWS = SIGNATURE_SIZE / BANDS;
+    // hash i of a shingle x is (MULTIPLIERS[i] * x + ADDENDS[i]) >>> 33 (multiply-shift hashing)
+    private static final long[] MULTIPLIERS = new long[SIGNATURE_SIZE];
+    private static final long[] ADDENDS = new long[SIGNATURE_SIZE];
+
+    static {
+        long seed = 0x9E3779B97F4A7C15L;
+        for(int i = 0; i < SIGNATURE_SIZE; i++) {
+            seed = mix(seed + i);
+            MULTIPLIERS[i] = seed | 1;
+            seed = mix(seed + i);
+            ADDENDS[i] = seed;
+        }
+    }
+
+    private final double threshold;
+    private final Map<Long, Incident> incidentsByBand = new HashMap<>();
+    private final AtomicInteger incidentIds = new AtomicInteger();
+    private final LongAdder linked = new LongAdder();
+
+    public IncidentDeduplicator(CustomerHandler nextHandler, double threshold) {
+        super(nextHandler);
+        this.threshold = threshold;
+    }
+
+    // Folds a duplicate into its incident; a new parent or a ticket without a fingerprint is passed on.
+    @Override
+    public void handleRequest(Ticket ticket) {
+        int[] signature = signature(ticket.getIssue());
+        Incident incident = signature == null ? null : deduplicate(ticket, signature, true);
+        if(incident != null && incident.getParent() != ticket) {
+            ticket.setStatus("LINKED");
+        } else if(nextHandler != null) {
+            nextHandler.handleRequest(ticket);
+        } else {
+            unhandled(ticket);
+        }
+    }
+
+    // True when the ticket would be folded into an open incident; registers nothing.
+    @Override
+    public boolean canHandle(Ticket ticket) {
+        int[] signature = signature(ticket.getIssue());
+        if(signature == null) {
+            return false;
+        }
+        synchronized (this) {
+            return findIncident(signature) != null;
+        }
+    }
+
+    // Folds the ticket into a matching open incident as handleRequest does; it never opens one.
+    @Override
+    protected void process(Ticket ticket) {
+        int[] signature = signature(ticket.getIssue());
+        if(signature != null && deduplicate(ticket, signature, false) != null) {
+            ticket.setStatus("LINKED");
+        }
+    }
+
+    // Returns the incident the ticket now belongs to, as child or as new parent, or null when
+    // its text has no words to compare.
+    public Incident deduplicate(Ticket ticket) {
+        int[] signature = signature(ticket.getIssue());
+        return signature == null ? null : deduplicate(ticket, signature, true);
+    }
+
+    // Without open, a ticket that matches no incident is left alone and null returned.
+    private Incident deduplicate(Ticket ticket, int[] signature, boolean open) {
+        Incident incident;
+        synchronized (this) {
+            incident = findIncident(signature);
+            if(incident == null) {
+                if(!open) {
+                    return null;
+                }
+                long[] bandKeys = bandKeys(signature);
+                incident = new Incident(incidentIds.incrementAndGet(), ticket, signature, bandKeys);
+                for(long key : bandKeys) {
+                    incidentsByBand.putIfAbsent(key, incident);
+                }
+            }
+        }
+        if(incident.getParent() != ticket) {
+            incident.addChild(ticket);
+            linked.increment();
+            String parentStatus = incident.getParent().getStatus();
+            if(releasesIncident(parentStatus)) {
+                // the parent left the escalation path while this ticket was being attached
+                ticket.setStatus(parentStatus);
+            }
+        } else {
+            Incident opened = incident;
+            ticket.addStatusListener((parent, oldStatus, newStatus) -> parentChanged(opened, newStatus));
+        }
+        return incident;
+    }
+
+    private Incident findIncident(int[] signature) {
+        Incident best = null;
+        double bestSimilarity = threshold;
+        for(int band = 0; band < BANDS; band++) {
+            Incident candidate = incidentsByBand.get(bandKey(signature, band));
+            if(candidate != null && candidate != best) {
+                double similarity = similarity(signature, candidate.getSignature());
+                if(similarity >= bestSimilarity) {
+                    best = candidate;
+                    bestSimilarity = similarity;
+                }
+            }
+        }
+        return best;
+    }
+
+    private void parentChanged(Incident incident, String newStatus) {
+        if(!releasesIncident(newStatus)) {
+            return;
+        }
+        synchronized (this) {
+            for(long key : incident.getBandKeys()) {
+                incidentsByBand.remove(key, incident);
+            }
+        }
+        for(Ticket child : incident.getChildren()) {
+            child.setStatus(newStatus);
+        }
+    }
+
+    private static boolean releasesIncident(String status) {
+        return "RESOLVED".equalsIgnoreCase(status) || "CLOSED".equalsIgnoreCase(status)
+                || "UNRESOLVED".equalsIgnoreCase(status) || "REJECTED".equalsIgnoreCase(status)
+                || "DEFERRED".equalsIgnoreCase(status);
+    }
+
+    public long getLinkedCount() {
+        return linked.sum();
+    }
+
+    public int getIncidentCount() {
+        return incidentIds.get();
+    }
+
+    static double similarity(int[] a, int[] b) {
+        int equal = 0;
+        for(int i = 0; i < a.length; i++) {
+            if(a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return equal / (double) a.length;
+    }
+
+    // Minimum of each seeded hash over all shingles of the text, or null when the text has no
+    // word: an all-MAX_VALUE signature would make every such text identical to every other.
+    static int[] signature(String text) {
+        int[] signature = new int[SIGNATURE_SIZE];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        long previous = 0;
+        boolean anyWord = false;
+        int start = -1;
+        String issue = text == null ? "" : text;
+        for(int i = 0; i <= issue.length(); i++) {
+            boolean wordChar = i < issue.length() && Character.isLetterOrDigit(issue.charAt(i));
+            if(wordChar && start < 0) {
+                start = i;
+            } else if(!wordChar && start >= 0) {
+                long word = wordHash(issue, start, i);
+                addShingle(signature, word);
+                if(previous != 0) {
+                    addShingle(signature, mix(previous * 31 + word));
+                }
+                previous = word;
+                anyWord = true;
+                start = -1;
+            }
+        }
+        return anyWord ? signature : null;
+    }
+
+    private static void addShingle(int[] signature, long shingle) {
+        long x = mix(shingle);
+        for(int i = 0; i < SIGNATURE_SIZE; i++) {
+            int hash = (int) ((MULTIPLIERS[i] * x + ADDENDS[i]) >>> 33);
+            if(hash < signature[i]) {
+                signature[i] = hash;
+            }
+        }
+    }
+
+    // FNV-1a over the lower-cased word.
+    private static long wordHash(String text, int from, int to) {
+        long hash = 0xcbf29ce484222325L;
+        for(int i = from; i < to; i++) {
+            hash ^= Character.toLowerCase(text.charAt(i));
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static long[] bandKeys(int[] signature) {
+        long[] keys = new long[BANDS];
+        for(int band = 0; band < BANDS; band++) {
+            keys[band] = bandKey(signature, band);
+        }
+        return keys;
+    }
+
+    private static long bandKey(int[] signature, int band) {
+        long key = band;
+        for(int row = band * ROWS; row < (band + 1) * ROWS; row++) {
+            key = key * 0x9E3779B97F4A7C15L + signature[row];
+        }
+        return mix(key);
+    }
+
+    // SplitMix64 finaliser.
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+}
@@ -0,0 +1,106 @@
+package DesignPattern.DesignPatternQuestions.customerEscalation;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * An outage produces thousands of tickets that say the same thing in
+ * slightly different words. Without the deduplicator every one of them
+ * reaches a tier; with it, one parent per incident does.
+ */
+public class IncidentStormDemo {
+
+    private static final String[] OUTAGES = {
+            "Production down checkout returns 500 error",
+            "Payment gateway timeout on card payments",
+            "Mobile app crashes on login screen",
+            "Emails with invoices not delivered to customers"};
+    private static final String[] NOISE = {"urgent", "again", "please", "help", "asap", "since", "today", "still", "for", "all", "users"};
+    private static final String[] WORDS = {"export", "report", "password", "reset", "refund", "order", "sync", "upload", "profile",
+            "settings", "language", "invoice", "address", "delivery", "discount", "coupon", "warranty", "account", "photo"};
+
+    public static void main(String args[]) {
+        int tickets = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        Ticket[] storm = storm(tickets, new Random(7));
+
+        AtomicLong[] reached = {new AtomicLong(), new AtomicLong(), new AtomicLong()};
+        CustomerHandler chain = countingChain(reached);
+        for(Ticket ticket : storm(tickets, new Random(7))) {
+            chain.handleRequest(ticket);
+        }
+        System.out.printf("Without deduplication: L1 %d, L2 %d, L3 %d tickets%n", reached[0].get(), reached[1].get(), reached[2].get());
+
+        AtomicLong[] deduplicated = {new AtomicLong(), new AtomicLong(), new AtomicLong()};
+        IncidentDeduplicator deduplicator = new IncidentDeduplicator(countingChain(deduplicated), 0.5);
+        long start = System.nanoTime();
+        for(Ticket ticket : storm) {
+            deduplicator.handleRequest(ticket);
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("With deduplication:    L1 %d, L2 %d, L3 %d tickets; %d incidents, %d tickets linked, %.1f us per ticket%n",
+                deduplicated[0].get(), deduplicated[1].get(), deduplicated[2].get(),
+                deduplicator.getIncidentCount(), deduplicator.getLinkedCount(), elapsed / 1e3 / tickets);
+
+        // resolving the first outage's parent resolves every ticket linked to it
+        Incident first = deduplicator.deduplicate(new Ticket(-1, OUTAGES[0], "Technical", "CRITICAL"));
+        first.getParent().setStatus("RESOLVED");
+        long resolved = 0;
+        for(Ticket child : first.getChildren()) {
+            if("RESOLVED".equals(child.getStatus())) {
+                resolved++;
+            }
+        }
+        System.out.println("Incident " + first.getIncidentId() + " \"" + first.getParent().getIssue() + "\": "
+                + resolved + " of " + first.getChildCount() + " linked tickets resolved with the parent");
+    }
+
+    // Nine in ten tickets report one of the outages, reworded; the rest are unrelated.
+    private static Ticket[] storm(int count, Random random) {
+        Ticket[] tickets = new Ticket[count];
+        for(int i = 0; i < count; i++) {
+            StringBuilder issue = new StringBuilder();
+            String priority;
+            if(random.nextInt(10) > 0) {
+                String[] words = OUTAGES[random.nextInt(OUTAGES.length)].split(" ");
+                int dropped = random.nextInt(words.length);
+                for(int w = 0; w < words.length; w++) {
+                    if(w != dropped || random.nextBoolean()) {
+                        issue.append(random.nextBoolean() ? words[w] : words[w].toLowerCase()).append(' ');
+                    }
+                }
+                issue.append(NOISE[random.nextInt(NOISE.length)]).append(' ').append(NOISE[random.nextInt(NOISE.length)]);
+                priority = random.nextBoolean() ? "CRITICAL" : "HIGH";
+            } else {
+                for(int w = 0; w < 3; w++) {
+                    issue.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+                }
+                issue.append("order ").append(random.nextInt(1_000_000)).append(" customer ").append(random.nextInt(1_000_000));
+                priority = random.nextBoolean() ? "LOW" : "MEDIUM";
+            }
+            tickets[i] = new Ticket(i, issue.toString(), "Technical", priority);
+        }
+        return tickets;
+    }
+
+    private static CustomerHandler countingChain(AtomicLong[] reached) {
+        CustomerHandler l3 = new L3Handler(null) {
+            @Override
+            protected void process(Ticket ticket) {
+                reached[2].incrementAndGet();
+            }
+        };
+        CustomerHandler l2 = new L2Handler(l3) {
+            @Override
+            protected void process(Ticket ticket) {
+                reached[1].incrementAndGet();
+            }
+        };
+        return new L1Handler(l2) {
+            @Override
+            protected void process(Ticket ticket) {
+                reached[0].incrementAndGet();
+            }
+        };
+    }
+
+}
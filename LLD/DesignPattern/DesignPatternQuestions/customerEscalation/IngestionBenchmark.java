@@ -0,0 +1,144 @@
+package DesignPattern.DesignPatternQuestions.customerEscalation;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Writes a CSV and a JSONL backlog of the given size (100 MB each by default)
+ * to a temp directory and streams both into a dispatcher whose handlers only
+ * resolve the ticket. A third of the records come without a priority and
+ * go through the classifier. Reports throughput and the heap in use.
+ */
+public class IngestionBenchmark {
+
+    private static final String[] ISSUES = {
+            "Payment declined at checkout for order",
+            "App is slow when loading the dashboard of account",
+            "Production database down after deploy",
+            "Wrong amount on the invoice for customer",
+            "How do I change the email of account",
+            "Mobile sync missing items since update",
+            "Cannot log in, password reset failed for user",
+            "Security alert: possible breach on tenant"
+    };
+    private static final String[] CATEGORIES = {"Billing", "Technical", "Account", "Technical"};
+    private static final String[] PRIORITIES = {"LOW", "MEDIUM", "HIGH", "CRITICAL", "", ""};
+
+    public static void main(String args[]) throws IOException, InterruptedException {
+        long megabytes = args.length > 0 ? Long.parseLong(args[0]) : 100;
+        Path directory = Files.createTempDirectory("ticket-ingestion");
+        Path csv = directory.resolve("backlog.csv");
+        Path jsonl = directory.resolve("backlog.jsonl");
+        writeCsv(csv, megabytes * 1_000_000);
+        writeJsonLines(jsonl, megabytes * 1_000_000);
+
+        AtomicLong resolved = new AtomicLong();
+        CustomerHandler l3 = new L3Handler(null) {
+            @Override
+            protected void process(Ticket ticket) {
+                ticket.setStatus("RESOLVED");
+                resolved.incrementAndGet();
+            }
+        };
+        CustomerHandler l2 = new L2Handler(l3) {
+            @Override
+            protected void process(Ticket ticket) {
+                ticket.setStatus("RESOLVED");
+                resolved.incrementAndGet();
+            }
+        };
+        CustomerHandler l1 = new L1Handler(l2) {
+            @Override
+            protected void process(Ticket ticket) {
+                ticket.setStatus("RESOLVED");
+                resolved.incrementAndGet();
+            }
+        };
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        TicketIngestionPipeline pipeline = new TicketIngestionPipeline(Math.max(1, cores), 1 << 20, cores + 2, new PriorityClassifier());
+        try {
+            for(int round = 0; round < 2; round++) {
+                // the first round warms up the JIT
+                run(pipeline, csv, TicketIngestionPipeline.Format.CSV, l1, resolved, round == 1);
+                run(pipeline, jsonl, TicketIngestionPipeline.Format.JSONL, l1, resolved, round == 1);
+            }
+        } finally {
+            Files.deleteIfExists(csv);
+            Files.deleteIfExists(jsonl);
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    private static void run(TicketIngestionPipeline pipeline, Path file, TicketIngestionPipeline.Format format,
+                            CustomerHandler chain, AtomicLong resolved, boolean report) throws IOException, InterruptedException {
+        TicketDispatcher dispatcher = new TicketDispatcher(chain, new PriorityRouter(chain), new int[] {2, 1, 1}, 100_000);
+        resolved.set(0);
+        Runtime runtime = Runtime.getRuntime();
+        long[] peak = new long[1];
+        Thread probe = new Thread(() -> {
+            while(!Thread.currentThread().isInterrupted()) {
+                peak[0] = Math.max(peak[0], runtime.totalMemory() - runtime.freeMemory());
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        probe.setDaemon(true);
+        probe.start();
+        TicketIngestionPipeline.Result result = pipeline.ingest(file, format, dispatcher);
+        dispatcher.close();
+        probe.interrupt();
+        probe.join();
+        if(report) {
+            System.out.println(format + ": " + result);
+            System.out.printf("  %d resolved, peak heap %d MB of %d MB max%n",
+                    resolved.get(), peak[0] >> 20, runtime.maxMemory() >> 20);
+        }
+    }
+
+    private static void writeCsv(Path file, long bytes) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            out.write("id,issue,category,priority\n");
+            StringBuilder line = new StringBuilder();
+            long written = 0;
+            for(int i = 0; written < bytes; i++) {
+                line.setLength(0);
+                line.append(i).append(',');
+                if(i % 5 == 0) {
+                    // quoted field with a comma and an escaped quote
+                    line.append('"').append(ISSUES[i % ISSUES.length]).append(' ').append(i).append(", see \"\"notes\"\"\"");
+                } else {
+                    line.append(ISSUES[i % ISSUES.length]).append(' ').append(i);
+                }
+                line.append(',').append(CATEGORIES[i % CATEGORIES.length]).append(',')
+                        .append(PRIORITIES[i % PRIORITIES.length]).append('\n');
+                out.append(line);
+                written += line.length();
+            }
+        }
+    }
+
+    private static void writeJsonLines(Path file, long bytes) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            StringBuilder line = new StringBuilder();
+            long written = 0;
+            for(int i = 0; written < bytes; i++) {
+                line.setLength(0);
+                line.append("{\"id\":").append(i)
+                        .append(",\"issue\":\"").append(ISSUES[i % ISSUES.length]).append(' ').append(i).append("\"")
+                        .append(",\"category\":\"").append(CATEGORIES[i % CATEGORIES.length]).append("\"");
+                String priority = PRIORITIES[i % PRIORITIES.length];
+                line.append(",\"priority\":").append(priority.isEmpty() ? "null" : "\"" + priority + "\"").append("}\n");
+                out.append(line);
+                written += line.length();
+            }
+        }
+    }
+
+}
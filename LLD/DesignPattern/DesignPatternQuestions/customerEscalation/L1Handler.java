@@ -6,18 +6,16 @@ public class L1Handler extends CustomerHandler{
         
     }
 
+    // L1 handles LOW severity issues (FAQ/basic/general queries)
     @Override
-    public void handleRequest(Ticket ticket) {
-        // L1 handles LOW severity issues (FAQ/basic/general queries)
-        if(ticket.getPriorityLevel() != null && ticket.getPriorityLevel().equalsIgnoreCase("LOW")){
-            System.out.println("L1 handled ticket " + ticket.getTicketId());
-            ticket.setStatus("RESOLVED");
-        }
-        else {
-            if(nextHandler != null) {
-                nextHandler.handleRequest(ticket);
-            }
-        }
+    public boolean canHandle(Ticket ticket) {
+        return ticket.getPriority() == Priority.LOW;
+    }
+
+    @Override
+    protected void process(Ticket ticket) {
+        System.out.println("L1 handled ticket " + ticket.getTicketId());
+        ticket.setStatus("RESOLVED");
     }
     
 }
@@ -8,20 +8,16 @@ public class L2Handler extends CustomerHandler{
         
     }
 
+    // L2 handles MEDIUM severity technical/configuration issues
     @Override
-    public void handleRequest(Ticket ticket) {
-        // TODO Auto-generated method stub
-        
-        // L2 handles MEDIUM severity technical/configuration issues
-        if(ticket.getPriorityLevel() != null && ticket.getPriorityLevel().equalsIgnoreCase("MEDIUM")){
-            System.out.println("L2 handled ticket " + ticket.getTicketId());
-            ticket.setStatus("RESOLVED");
-        }
-        else {
-            if(nextHandler != null) {
-                nextHandler.handleRequest(ticket);
-            }
-        }
+    public boolean canHandle(Ticket ticket) {
+        return ticket.getPriority() == Priority.MEDIUM;
+    }
+
+    @Override
+    protected void process(Ticket ticket) {
+        System.out.println("L2 handled ticket " + ticket.getTicketId());
+        ticket.setStatus("RESOLVED");
     }
     
 }
@@ -0,0 +1,52 @@
+package DesignPattern.DesignPatternQuestions.customerEscalation;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Lock-free histogram of durations in power-of-two buckets; percentiles are
+// reported as the upper bound of their bucket, so they are within 2x.
+public class LatencyHistogram {
+
+    private final AtomicLongArray buckets = new AtomicLongArray(64);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(value));
+        count.increment();
+        totalNanos.add(value);
+        if(value > maxNanos.get()) {
+            maxNanos.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getMeanNanos() {
+        long n = count.sum();
+        return n == 0 ? 0 : totalNanos.sum() / (double) n;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    public long percentileNanos(double p) {
+        long n = count.sum();
+        long rank = (long) Math.ceil(p * n);
+        long seen = 0;
+        for(int bucket = 0; bucket < 64; bucket++) {
+            seen += buckets.get(bucket);
+            if(seen >= rank && seen > 0) {
+                return bucket == 0 ? 0 : Math.min(maxNanos.get(), (1L << bucket) - 1);
+            }
+        }
+        return maxNanos.get();
+    }
+
+}
@@ -0,0 +1,114 @@
+package DesignPattern.DesignPatternQuestions.customerEscalation;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Ramps the load on L3 up over a second to two and a half times what its
+ * backend can take and holds it there, once with
+ * plain submission and once through an AdmissionController with an
+ * adaptive concurrency limit, and prints the submit-to-resolved latency per
+ * priority.
+ *
+ * The backend serves 4 tickets at a time in 2 ms each, about 2000 tickets/s;
+ * L3 has 32 workers, so without a limit most of them just wait for the
+ * backend and every ticket, CRITICAL included, is slowed down.
+ */
+public class OverloadDemo {
+
+    private static final int RATE_PER_SECOND = 5000;
+    private static final int SECONDS = 3;  // of tickets at the full rate
+
+    public static void main(String args[]) throws InterruptedException {
+        run(false);
+        run(true);
+    }
+
+    // The rate grows linearly to RATE_PER_SECOND over the first second, then stays.
+    private static long dueNanos(int ticket) {
+        double rampTickets = RATE_PER_SECOND / 2.0;
+        if(ticket < rampTickets) {
+            return (long) (Math.sqrt(ticket / rampTickets) * 1e9);
+        }
+        return 1_000_000_000L + (long) ((ticket - rampTickets) * 1e9 / RATE_PER_SECOND);
+    }
+
+    private static void run(boolean admissionControl) throws InterruptedException {
+        int tickets = RATE_PER_SECOND * SECONDS;
+        long[] submittedAt = new long[tickets];
+        LatencyHistogram[] latency = new LatencyHistogram[Priority.values().length];
+        for(int i = 0; i < latency.length; i++) {
+            latency[i] = new LatencyHistogram();
+        }
+        Semaphore backend = new Semaphore(4, true);
+
+        CustomerHandler l3 = new L3Handler(null) {
+            @Override
+            public boolean canHandle(Ticket ticket) {
+                return true;
+            }
+
+            @Override
+            protected void process(Ticket ticket) {
+                backend.acquireUninterruptibly();
+                try {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(2));
+                } finally {
+                    backend.release();
+                }
+                ticket.setStatus("RESOLVED");
+                latency[ticket.getPriority().ordinal()].record(System.nanoTime() - submittedAt[ticket.getTicketId()]);
+            }
+        };
+        CustomerHandler l1 = new L1Handler(new L2Handler(l3));
+        TicketDispatcher dispatcher = new TicketDispatcher(l1, ticket -> 2, new int[] {1, 1, 32}, 20_000);
+        AdmissionController admission = null;
+        if(admissionControl) {
+            dispatcher.limitConcurrency(2, new AdaptiveConcurrencyLimiter(8, 1, 32, TimeUnit.MILLISECONDS.toNanos(3), 0.9));
+            // wait budgets for LOW, MEDIUM, HIGH and CRITICAL
+            admission = new AdmissionController(dispatcher, new long[] {500, 200, 100, 50}, Priority.MEDIUM, 2_000, 1_000);
+        }
+
+        long[] outcomes = new long[Admission.values().length];
+        long start = System.nanoTime();
+        for(int i = 0; i < tickets; i++) {
+            long due = start + dueNanos(i);
+            while(System.nanoTime() < due) {
+                LockSupport.parkNanos(due - System.nanoTime());
+            }
+            // 5% CRITICAL, 15% HIGH, 30% MEDIUM, half LOW
+            int slot = (i * 7) % 20;
+            String level = slot < 10 ? "LOW" : slot < 16 ? "MEDIUM" : slot < 19 ? "HIGH" : "CRITICAL";
+            Ticket ticket = new Ticket(i, "Incident report " + i, "Technical", level);
+            submittedAt[i] = System.nanoTime();
+            if(admission != null) {
+                outcomes[admission.admit(ticket).ordinal()]++;
+            } else {
+                outcomes[(dispatcher.submit(ticket) ? Admission.ACCEPTED : Admission.REJECTED).ordinal()]++;
+            }
+        }
+        long offeredFor = System.nanoTime() - start;
+        if(admission != null) {
+            // give deferred tickets their chance before shutting down
+            Thread.sleep(1_200);
+            admission.close();
+        }
+        dispatcher.close();
+
+        System.out.println(admissionControl ? "With admission control and an adaptive limit:" : "Plain submission, unbounded concurrency:");
+        System.out.printf("  offered %d tickets in %.1f s: %d accepted, %d deferred, %d rejected at the door; drained after %.1f s%n",
+                tickets, offeredFor / 1e9, outcomes[0], outcomes[1], outcomes[2], (System.nanoTime() - start) / 1e9);
+        if(admission != null) {
+            System.out.println("  final L3 concurrency limit " + dispatcher.getConcurrencyLimiter(2).getLimit());
+        }
+        for(int p = Priority.values().length - 1; p >= 0; p--) {
+            Priority priority = Priority.of(p);
+            String shed = admission == null ? "" : String.format(", %d deferred, %d rejected",
+                    admission.getDeferred(priority), admission.getRejected(priority));
+            System.out.printf("  %-8s resolved %5d: p50 %8.1f ms, p99 %8.1f ms%s%n", priority, latency[p].getCount(),
+                    latency[p].percentileNanos(0.5) / 1e6, latency[p].percentileNanos(0.99) / 1e6, shed);
+        }
+    }
+
+}
@@ -0,0 +1,135 @@
+package DesignPattern.DesignPatternQuestions.customerEscalation;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/*
+ * Ascending document ids of one term, stored as varint-encoded gaps: ids
+ * of common words sit close together, so most gaps fit in one byte instead
+ * of four. Every SKIP_INTERVAL postings the id and byte offset are kept so
+ * an intersection can jump forward without decoding everything in between.
+ */
+final class PostingList {
+
+    private static final int SKIP_INTERVAL = 128;
+
+    private byte[] bytes = new byte[8];
+    private int length;
+    private int count;
+    private int lastDoc = -1;
+    private int[] skipDocs = new int[0];
+    private int[] skipOffsets = new int[0];
+
+    // Ids must be added in increasing order.
+    void add(int doc) {
+        if(doc <= lastDoc) {
+            return;
+        }
+        if(count % SKIP_INTERVAL == 0 && count > 0) {
+            int skips = count / SKIP_INTERVAL;
+            skipDocs = Arrays.copyOf(skipDocs, skips);
+            skipOffsets = Arrays.copyOf(skipOffsets, skips);
+            skipDocs[skips - 1] = lastDoc;
+            skipOffsets[skips - 1] = length;
+        }
+        int gap = doc - lastDoc;
+        if(length + 5 > bytes.length) {
+            bytes = Arrays.copyOf(bytes, bytes.length * 2);
+        }
+        while(gap >= 0x80) {
+            bytes[length++] = (byte) (gap | 0x80);
+            gap >>>= 7;
+        }
+        bytes[length++] = (byte) gap;
+        lastDoc = doc;
+        count++;
+    }
+
+    int size() {
+        return count;
+    }
+
+    int byteSize() {
+        return length + 8 * skipDocs.length;
+    }
+
+    void addTo(BitSet docs) {
+        Cursor cursor = cursor();
+        for(int doc = cursor.next(); doc >= 0; doc = cursor.next()) {
+            docs.set(doc);
+        }
+    }
+
+    // Keeps only the docs of the given set that are also in this list. Few
+    // candidates are looked up with skips; many are intersected in bulk.
+    void retainIn(BitSet docs) {
+        if(docs.cardinality() * 16L > count) {
+            BitSet all = new BitSet();
+            addTo(all);
+            docs.and(all);
+            return;
+        }
+        BitSet kept = new BitSet();
+        Cursor cursor = cursor();
+        for(int candidate = docs.nextSetBit(0); candidate >= 0; candidate = docs.nextSetBit(candidate + 1)) {
+            int doc = cursor.advance(candidate);
+            if(doc < 0) {
+                break;
+            }
+            if(doc == candidate) {
+                kept.set(doc);
+            } else {
+                candidate = doc - 1;
+            }
+        }
+        docs.and(kept);
+    }
+
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    final class Cursor {
+
+        private int offset;
+        private int doc = -1;
+
+        // Next id, or -1 at the end.
+        int next() {
+            if(offset >= length) {
+                return -1;
+            }
+            int gap = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[offset++];
+                gap |= (b & 0x7F) << shift;
+                shift += 7;
+            } while(b < 0);
+            doc += gap;
+            return doc;
+        }
+
+        // First id >= target, or -1 when there is none.
+        int advance(int target) {
+            if(doc >= target) {
+                return doc;
+            }
+            int skip = Arrays.binarySearch(skipDocs, target);
+            int index = skip >= 0 ? skip : -skip - 2;
+            if(index >= 0 && skipDocs[index] > doc && skipOffsets[index] > offset) {
+                doc = skipDocs[index];
+                offset = skipOffsets[index];
+                if(doc >= target) {
+                    return doc;
+                }
+            }
+            int next;
+            while((next = next()) >= 0 && next < target) {
+            }
+            return next;
+        }
+    }
+
+}
@@ -0,0 +1,27 @@
+package DesignPattern.DesignPatternQuestions.customerEscalation;
+
+// Ticket priority, lowest first so ordinal() can index per-priority tables.
+public enum Priority {
+
+    LOW, MEDIUM, HIGH, CRITICAL;
+
+    private static final Priority[] VALUES = values();
+
+    // Case-insensitive; returns null for a missing or unknown level.
+    public static Priority parse(String level) {
+        if(level == null) {
+            return null;
+        }
+        for(Priority priority : VALUES) {
+            if(priority.name().equalsIgnoreCase(level)) {
+                return priority;
+            }
+        }
+        return null;
+    }
+
+    public static Priority of(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+}
@@ -0,0 +1,56 @@
+package DesignPattern.DesignPatternQuestions.customerEscalation;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * Guesses a priority from the words of an issue when the source system did
+ * not supply one: every keyword maps to a priority and the highest one found
+ * wins, LOW when none matches. Lookups are one hash probe per word, and the
+ * map is only read after construction, so one classifier serves all threads.
+ */
+public class PriorityClassifier {
+
+    private final Map<String, Priority> keywords = new HashMap<>();
+
+    public PriorityClassifier() {
+        add(Priority.CRITICAL, "down", "outage", "breach", "security", "corrupted", "dataloss", "production");
+        add(Priority.HIGH, "error", "failed", "failure", "crash", "crashes", "cannot", "unable", "declined", "timeout");
+        add(Priority.MEDIUM, "slow", "bug", "wrong", "missing", "incorrect", "delay", "sync");
+    }
+
+    public PriorityClassifier(Map<String, Priority> keywords) {
+        keywords.forEach((word, priority) -> this.keywords.put(word.toLowerCase(), priority));
+    }
+
+    private void add(Priority priority, String... words) {
+        for(String word : words) {
+            keywords.put(word, priority);
+        }
+    }
+
+    public Priority classify(String issue) {
+        Priority best = Priority.LOW;
+        if(issue == null) {
+            return best;
+        }
+        int start = -1;
+        for(int i = 0; i <= issue.length(); i++) {
+            boolean wordChar = i < issue.length() && Character.isLetterOrDigit(issue.charAt(i));
+            if(wordChar && start < 0) {
+                start = i;
+            } else if(!wordChar && start >= 0) {
+                Priority found = keywords.get(issue.substring(start, i).toLowerCase());
+                if(found != null && found.compareTo(best) > 0) {
+                    best = found;
+                    if(best == Priority.CRITICAL) {
+                        return best;
+                    }
+                }
+                start = -1;
+            }
+        }
+        return best;
+    }
+
+}
@@ -0,0 +1,37 @@
+package DesignPattern.DesignPatternQuestions.customerEscalation;
+
+import java.util.List;
+
+/*
+ * Routes by priority with one array lookup. The table is worked out once
+ * from the chain: entry [priority] is the first tier whose handler accepts a
+ * ticket of that priority, which is where walking the chain would end up.
+ * Tickets without a known priority go to the last tier, like the chain.
+ */
+public class PriorityRouter implements TicketRouter {
+
+    private final int[] tierByPriority = new int[Priority.values().length];
+    private final int fallbackTier;
+
+    public PriorityRouter(CustomerHandler chain) {
+        List<CustomerHandler> tiers = TicketDispatcher.tiersOf(chain);
+        this.fallbackTier = tiers.size() - 1;
+        for(Priority priority : Priority.values()) {
+            Ticket probe = new Ticket(0, "", "", priority.name());
+            tierByPriority[priority.ordinal()] = fallbackTier;
+            for(int tier = 0; tier < tiers.size(); tier++) {
+                if(tiers.get(tier).canHandle(probe)) {
+                    tierByPriority[priority.ordinal()] = tier;
+                    break;
+                }
+            }
+        }
+    }
+
+    @Override
+    public int route(Ticket ticket) {
+        Priority priority = ticket.getPriority();
+        return priority == null ? fallbackTier : tierByPriority[priority.ordinal()];
+    }
+
+}
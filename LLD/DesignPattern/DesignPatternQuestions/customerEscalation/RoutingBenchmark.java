@@ -0,0 +1,124 @@
+package DesignPattern.DesignPatternQuestions.customerEscalation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/*
+ * Routes the same tickets with 3 and with 1000 rules, once through the
+ * compiled RoutingEngine and once by trying the rules one after another, as a
+ * chain with one handler per rule would. The last run keeps reloading the
+ * rule set from another thread while routing. First a dispatcher works two
+ * tickets whose rules disagree with the chain, to show the rules hold.
+ */
+public class RoutingBenchmark {
+
+    private static final int TICKETS = 1 << 20;
+    private static final int ROUNDS = 10;
+
+    public static void main(String args[]) throws IOException, InterruptedException {
+        CustomerHandler chain = new L1Handler(new L2Handler(new L3Handler(null)));
+
+        Path file = Files.createTempFile("routing", ".rules");
+        Files.write(file, List.of(
+                "# category  priority  customer tier  -> tier",
+                "Security    *         *              -> L3",
+                "*           CRITICAL  ENTERPRISE     -> L3",
+                "Billing     *         BASIC          -> L1"));
+        RoutingEngine small = RoutingEngine.fromFile(chain, file);
+        Files.delete(file);
+        System.out.println("Loaded " + small.getRuleCount() + " rules, " + small.getTableSize() + " table cells");
+
+        // the chain would give the LOW ticket to L1 and the CRITICAL one to L3
+        TicketDispatcher dispatcher = new TicketDispatcher(chain, small, new int[] {1, 1, 1}, 16);
+        try (dispatcher) {
+            dispatcher.submit(new Ticket(1, "Suspicious login", "Security", "LOW", CustomerTier.BASIC));
+            dispatcher.submit(new Ticket(2, "Card charged twice", "Billing", "CRITICAL", CustomerTier.BASIC));
+        }
+        System.out.println("Worked per tier: L1 " + dispatcher.getCompleted(0) + ", L2 " + dispatcher.getCompleted(1)
+                + ", L3 " + dispatcher.getCompleted(2));
+
+        List<RoutingRule> manyRules = generateRules(1000, new Random(42));
+        RoutingEngine large = new RoutingEngine(chain, manyRules);
+        System.out.println("Compiled " + large.getRuleCount() + " rules into " + large.getTableSize() + " table cells");
+
+        List<RoutingRule> fewRules = List.of(RoutingRule.parse("Security * * -> L3"),
+                RoutingRule.parse("* CRITICAL ENTERPRISE -> L3"), RoutingRule.parse("Billing * BASIC -> L1"));
+        Ticket[] tickets = generateTickets(new Random(7));
+
+        for(int warmup = 0; warmup < 2; warmup++) {
+            boolean report = warmup == 1;
+            time("compiled, 3 rules   ", report, tickets, small::route);
+            time("compiled, 1000 rules", report, tickets, large::route);
+            time("rule walk, 3 rules   ", report, tickets, ticket -> walk(fewRules, ticket));
+            time("rule walk, 1000 rules", report, tickets, ticket -> walk(manyRules, ticket));
+        }
+
+        List<RoutingRule> otherRules = generateRules(1000, new Random(43));
+        long[] reloads = new long[1];
+        Thread reloader = new Thread(() -> {
+            while(!Thread.currentThread().isInterrupted()) {
+                large.reload(reloads[0]++ % 2 == 0 ? otherRules : manyRules);
+            }
+        });
+        reloader.start();
+        time("compiled, 1000 rules while reloading", true, tickets, large::route);
+        reloader.interrupt();
+        reloader.join();
+        System.out.println("  " + reloads[0] + " reloads during the run");
+    }
+
+    // What a chain with one handler per rule does: the first rule that matches wins.
+    private static int walk(List<RoutingRule> rules, Ticket ticket) {
+        for(RoutingRule rule : rules) {
+            if(rule.matches(ticket)) {
+                return rule.getTier();
+            }
+        }
+        return 2;
+    }
+
+    private static void time(String name, boolean report, Ticket[] tickets, TicketRouter router) {
+        long checksum = 0;
+        long start = System.nanoTime();
+        for(int round = 0; round < ROUNDS; round++) {
+            for(Ticket ticket : tickets) {
+                checksum += router.route(ticket);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        if(report) {
+            System.out.printf("%-38s %6.1f ns/ticket (checksum %d)%n", name, (double) elapsed / ROUNDS / tickets.length, checksum);
+        }
+    }
+
+    // 200 categories with five rules each, wildcards sprinkled in.
+    private static List<RoutingRule> generateRules(int count, Random random) {
+        List<RoutingRule> rules = new ArrayList<>();
+        Priority[] priorities = Priority.values();
+        CustomerTier[] customerTiers = CustomerTier.values();
+        for(int i = 0; i < count; i++) {
+            String category = "Category" + (i / 5);
+            Priority priority = random.nextInt(4) == 0 ? null : priorities[random.nextInt(priorities.length)];
+            CustomerTier customerTier = random.nextInt(3) == 0 ? null : customerTiers[random.nextInt(customerTiers.length)];
+            rules.add(new RoutingRule(category, priority, customerTier, random.nextInt(3)));
+        }
+        return rules;
+    }
+
+    private static Ticket[] generateTickets(Random random) {
+        Priority[] priorities = Priority.values();
+        CustomerTier[] customerTiers = CustomerTier.values();
+        Ticket[] tickets = new Ticket[TICKETS];
+        for(int i = 0; i < tickets.length; i++) {
+            String category = random.nextInt(10) == 0 ? (random.nextBoolean() ? "Security" : "Billing") : "Category" + random.nextInt(220);
+            tickets[i] = new Ticket(i, "Issue " + i, category, priorities[random.nextInt(priorities.length)].name(),
+                    customerTiers[random.nextInt(customerTiers.length)]);
+        }
+        return tickets;
+    }
+
+}
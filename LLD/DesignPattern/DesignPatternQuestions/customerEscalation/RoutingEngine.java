@@ -0,0 +1,101 @@
+package DesignPattern.DesignPatternQuestions.customerEscalation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+ * Routes tickets by a declarative rule set (see RoutingRule) instead of
+ * one CustomerHandler subclass per rule. The rules are compiled into a
+ * RoutingTable, so a ticket costs the same whether there are 3 rules or
+ * 1000. Tickets no rule matches go where PriorityRouter would send them,
+ * i.e. where walking the chain ends.
+ *
+ * The engine assigns: a TicketDispatcher has the tier it picks work the
+ * ticket through process(), so a rule holds even where the tier's canHandle
+ * disagrees, e.g. "Security * * -> L3" for a LOW ticket. That also means a
+ * ticket of unknown priority that no rule matches is worked at the last
+ * tier rather than marked unhandled there.
+ *
+ * reload() compiles the new rule set on the caller's thread and swaps it in
+ * atomically: routing never blocks and every ticket sees either the old or
+ * the new table in full. A rule set that does not fit the chain is refused
+ * and the current one stays.
+ */
+public class RoutingEngine implements TicketRouter {
+
+    private final int tierCount;
+    private final int[] defaultTiers;
+    private final AtomicReference<RoutingTable> table = new AtomicReference<>();
+
+    public RoutingEngine(CustomerHandler chain, List<RoutingRule> rules) {
+        this.tierCount = TicketDispatcher.tiersOf(chain).size();
+        PriorityRouter chainRouter = new PriorityRouter(chain);
+        Priority[] priorities = Priority.values();
+        this.defaultTiers = new int[priorities.length + 1];
+        for(Priority priority : priorities) {
+            defaultTiers[priority.ordinal()] = chainRouter.route(new Ticket(0, "", "", priority.name()));
+        }
+        defaultTiers[priorities.length] = tierCount - 1;
+        reload(rules);
+    }
+
+    public static RoutingEngine fromFile(CustomerHandler chain, Path rules) throws IOException {
+        return new RoutingEngine(chain, readRules(rules));
+    }
+
+    @Override
+    public int route(Ticket ticket) {
+        return table.get().route(ticket);
+    }
+
+    @Override
+    public boolean assigns() {
+        return true;
+    }
+
+    public void reload(List<RoutingRule> rules) {
+        for(RoutingRule rule : rules) {
+            if(rule.getTier() >= tierCount) {
+                throw new IllegalArgumentException("Rule " + rule + " targets a tier the chain of " + tierCount + " does not have");
+            }
+        }
+        table.set(new RoutingTable(new ArrayList<>(rules), defaultTiers));
+    }
+
+    public void reload(Path rules) throws IOException {
+        reload(readRules(rules));
+    }
+
+    // One rule per line; blank lines and # comments are skipped, anything else is an error.
+    public static List<RoutingRule> readRules(Path file) throws IOException {
+        List<RoutingRule> rules = new ArrayList<>();
+        List<String> lines = Files.readAllLines(file);
+        for(int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            int comment = line.indexOf('#');
+            if((comment >= 0 ? line.substring(0, comment) : line).isBlank()) {
+                continue;
+            }
+            RoutingRule rule = RoutingRule.parse(line);
+            if(rule == null) {
+                throw new IllegalArgumentException(file + ":" + (i + 1) + ": not a routing rule: " + line);
+            }
+            rules.add(rule);
+        }
+        return Collections.unmodifiableList(rules);
+    }
+
+    public int getRuleCount() {
+        return table.get().getRuleCount();
+    }
+
+    public int getTableSize() {
+        return table.get().getCellCount();
+    }
+
+}
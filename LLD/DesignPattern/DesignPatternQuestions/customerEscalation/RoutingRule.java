@@ -0,0 +1,95 @@
+package DesignPattern.DesignPatternQuestions.customerEscalation;
+
+/*
+ * One line of a routing rule set:
+ *
+ *     <category> <priority> <customer tier> -> <tier>
+ *
+ * for example "Billing HIGH ENTERPRISE -> L3". Any of the three conditions
+ * may be * to match everything; the tier is L1, L2, ... or its position in
+ * the chain from 0. Categories are compared ignoring case and cannot
+ * contain spaces. Within a rule set the first matching rule wins.
+ */
+public class RoutingRule {
+
+    private final String category;
+    private final Priority priority;
+    private final CustomerTier customerTier;
+    private final int tier;
+
+    // A null condition matches everything.
+    public RoutingRule(String category, Priority priority, CustomerTier customerTier, int tier) {
+        if(tier < 0) {
+            throw new IllegalArgumentException("Negative tier " + tier);
+        }
+        this.category = category;
+        this.priority = priority;
+        this.customerTier = customerTier;
+        this.tier = tier;
+    }
+
+    // Returns null for a line that is not a rule; blank lines and # comments are not rules either.
+    public static RoutingRule parse(String line) {
+        int comment = line.indexOf('#');
+        if(comment >= 0) {
+            line = line.substring(0, comment);
+        }
+        int arrow = line.indexOf("->");
+        if(arrow < 0) {
+            return null;
+        }
+        String[] conditions = line.substring(0, arrow).trim().split("\\s+");
+        String target = line.substring(arrow + 2).trim();
+        if(conditions.length != 3 || target.isEmpty()) {
+            return null;
+        }
+        Priority priority = null;
+        if(!conditions[1].equals("*") && (priority = Priority.parse(conditions[1])) == null) {
+            return null;
+        }
+        CustomerTier customerTier = null;
+        if(!conditions[2].equals("*") && (customerTier = CustomerTier.parse(conditions[2])) == null) {
+            return null;
+        }
+        int tier;
+        try {
+            tier = target.charAt(0) == 'L' || target.charAt(0) == 'l'
+                    ? Integer.parseInt(target.substring(1)) - 1 : Integer.parseInt(target);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if(tier < 0) {
+            return null;
+        }
+        return new RoutingRule(conditions[0].equals("*") ? null : conditions[0], priority, customerTier, tier);
+    }
+
+    public boolean matches(Ticket ticket) {
+        return (category == null || category.equalsIgnoreCase(ticket.getIssueCategory()))
+                && (priority == null || priority == ticket.getPriority())
+                && (customerTier == null || customerTier == ticket.getCustomerTier());
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public Priority getPriority() {
+        return priority;
+    }
+
+    public CustomerTier getCustomerTier() {
+        return customerTier;
+    }
+
+    public int getTier() {
+        return tier;
+    }
+
+    @Override
+    public String toString() {
+        return (category == null ? "*" : category) + " " + (priority == null ? "*" : priority.name()) + " "
+                + (customerTier == null ? "*" : customerTier.name()) + " -> L" + (tier + 1);
+    }
+
+}
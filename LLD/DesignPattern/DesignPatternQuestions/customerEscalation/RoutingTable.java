@@ -0,0 +1,128 @@
+package DesignPattern.DesignPatternQuestions.customerEscalation;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * A rule set compiled into a dense decision table indexed by
+ * [category][priority][customer tier]. Row 0 stands for every category no
+ * rule names; unknown priorities and tiers get a column of their own. Rules
+ * are painted last to first, so each cell ends up with the first rule that
+ * matches it, and routing is one hash lookup plus one array read whatever
+ * the number of rules. Immutable once built.
+ */
+class RoutingTable {
+
+    private static final int PRIORITIES = Priority.values().length + 1;
+    private static final int CUSTOMER_TIERS = CustomerTier.values().length + 1;
+
+    private final Map<String, Integer> rows = new HashMap<>();
+    private final String[] foldedNames;
+    private final int[] foldedRows;
+    private final int[] cells;
+    private final int categoryCount;
+    private final int ruleCount;
+
+    // defaultTiers[priority] (unknown priority last) is used where no rule matches.
+    RoutingTable(List<RoutingRule> rules, int[] defaultTiers) {
+        int categories = 0;
+        for(RoutingRule rule : rules) {
+            if(rule.getCategory() != null) {
+                // keyed by the upper-case name and by the spelling used in the rule, to skip toUpperCase on most lookups
+                Integer row = rows.get(rule.getCategory().toUpperCase());
+                if(row == null) {
+                    row = ++categories;
+                    rows.put(rule.getCategory().toUpperCase(), row);
+                }
+                rows.putIfAbsent(rule.getCategory(), row);
+            }
+        }
+        this.categoryCount = categories;
+        int slots = Integer.highestOneBit(Math.max(1, categories) * 2) * 2;
+        this.foldedNames = new String[slots];
+        this.foldedRows = new int[slots];
+        for(Map.Entry<String, Integer> entry : rows.entrySet()) {
+            int slot = foldedHash(entry.getKey()) & (slots - 1);
+            while(foldedNames[slot] != null && !foldedNames[slot].equalsIgnoreCase(entry.getKey())) {
+                slot = (slot + 1) & (slots - 1);
+            }
+            foldedNames[slot] = entry.getKey();
+            foldedRows[slot] = entry.getValue();
+        }
+        this.ruleCount = rules.size();
+        this.cells = new int[(categories + 1) * PRIORITIES * CUSTOMER_TIERS];
+        for(int cell = 0; cell < cells.length; cell++) {
+            cells[cell] = defaultTiers[(cell / CUSTOMER_TIERS) % PRIORITIES];
+        }
+        for(int i = rules.size() - 1; i >= 0; i--) {
+            paint(rules.get(i));
+        }
+    }
+
+    private void paint(RoutingRule rule) {
+        int firstRow = 0;
+        int lastRow = categoryCount;
+        if(rule.getCategory() != null) {
+            firstRow = lastRow = rows.get(rule.getCategory().toUpperCase());
+        }
+        int firstPriority = 0;
+        int lastPriority = PRIORITIES - 1;
+        if(rule.getPriority() != null) {
+            firstPriority = lastPriority = rule.getPriority().ordinal();
+        }
+        int firstTier = 0;
+        int lastTier = CUSTOMER_TIERS - 1;
+        if(rule.getCustomerTier() != null) {
+            firstTier = lastTier = rule.getCustomerTier().ordinal();
+        }
+        for(int row = firstRow; row <= lastRow; row++) {
+            for(int priority = firstPriority; priority <= lastPriority; priority++) {
+                for(int tier = firstTier; tier <= lastTier; tier++) {
+                    cells[(row * PRIORITIES + priority) * CUSTOMER_TIERS + tier] = rule.getTier();
+                }
+            }
+        }
+    }
+
+    int route(Ticket ticket) {
+        int row = 0;
+        String category = ticket.getIssueCategory();
+        if(category != null && !rows.isEmpty()) {
+            Integer id = rows.get(category);
+            row = id != null ? id : foldedRow(category);
+        }
+        Priority priority = ticket.getPriority();
+        CustomerTier customerTier = ticket.getCustomerTier();
+        return cells[(row * PRIORITIES + (priority == null ? PRIORITIES - 1 : priority.ordinal())) * CUSTOMER_TIERS
+                + (customerTier == null ? CUSTOMER_TIERS - 1 : customerTier.ordinal())];
+    }
+
+    // Case-insensitive probe for spellings no rule used; allocates nothing, unlike toUpperCase.
+    private int foldedRow(String category) {
+        int mask = foldedNames.length - 1;
+        for(int slot = foldedHash(category) & mask; foldedNames[slot] != null; slot = (slot + 1) & mask) {
+            if(foldedNames[slot].equalsIgnoreCase(category)) {
+                return foldedRows[slot];
+            }
+        }
+        return 0;
+    }
+
+    private static int foldedHash(String name) {
+        int hash = 0;
+        for(int i = 0; i < name.length(); i++) {
+            hash = 31 * hash + Character.toUpperCase(name.charAt(i));
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    int getRuleCount() {
+        return ruleCount;
+    }
+
+    int getCellCount() {
+        return cells.length;
+    }
+
+}
@@ -0,0 +1,75 @@
+package DesignPattern.DesignPatternQuestions.customerEscalation;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SlaEscalationDemo {
+
+    public static void main(String args[]) throws InterruptedException {
+        // LOW, MEDIUM, HIGH, CRITICAL may each wait this long at one tier
+        long[] slaMillis = {300, 200, 100, 50};
+
+        CustomerHandler l3 = new L3Handler(null);
+        CustomerHandler l2 = new L2Handler(l3);
+        CustomerHandler l1 = new L1Handler(l2);
+        try (SlaEscalationMonitor monitor = new SlaEscalationMonitor(slaMillis, 10)) {
+            Ticket answered = new Ticket(1, "Password reset", "Account", "LOW");
+            Ticket forgotten = new Ticket(2, "Invoice missing", "Billing", "LOW");
+            monitor.track(answered, l1);
+            monitor.track(forgotten, l1);
+            Thread.sleep(100);
+            answered.setStatus("RESOLVED");
+            Thread.sleep(400);
+            System.out.println("Ticket 1: " + answered.getStatus() + ", ticket 2: " + forgotten.getStatus()
+                    + ", escalations: " + monitor.getEscalatedCount());
+        }
+
+        int tickets = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        scale(tickets);
+    }
+
+    // Every tenth ticket is never answered and climbs L1 -> L2 -> L3 one SLA at a time.
+    private static void scale(int tickets) throws InterruptedException {
+        AtomicLong worked = new AtomicLong();
+        CustomerHandler l3 = new L3Handler(null) {
+            @Override
+            protected void process(Ticket ticket) {
+                worked.incrementAndGet();
+            }
+        };
+        CustomerHandler l2 = new L2Handler(l3) {
+            @Override
+            protected void process(Ticket ticket) {
+                worked.incrementAndGet();
+            }
+        };
+        CustomerHandler l1 = new L1Handler(l2);
+
+        Ticket[] open = new Ticket[tickets];
+        for(int i = 0; i < tickets; i++) {
+            open[i] = new Ticket(i, "Issue " + i, "Technical", "MEDIUM");
+        }
+        try (SlaEscalationMonitor monitor = new SlaEscalationMonitor(new long[] {3000, 3000, 3000, 3000}, 10)) {
+            long start = System.nanoTime();
+            for(Ticket ticket : open) {
+                monitor.track(ticket, l1);
+            }
+            long tracked = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for(int i = 0; i < tickets; i++) {
+                if(i % 10 != 0) {
+                    open[i].setStatus("RESOLVED");
+                }
+            }
+            long resolved = System.nanoTime() - start;
+            System.out.printf("Tracked %d tickets at %.0f ns each, resolved 90%% of them at %.0f ns each (deadline cancelled)%n",
+                    tickets, tracked / (double) tickets, resolved / (tickets * 0.9));
+
+            Thread.sleep(9500);
+            System.out.println("After three SLA periods: " + monitor.getEscalatedCount() + " escalations, "
+                    + monitor.getBreachedAtLastTierCount() + " SLA breaches at L3, " + worked.get()
+                    + " tickets worked by L2/L3, " + monitor.getTrackedCount() + " still tracked");
+        }
+    }
+
+}
@@ -0,0 +1,193 @@
+package DesignPattern.DesignPatternQuestions.customerEscalation;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Moves tickets up the chain when they sit unresolved past their SLA.
+ *
+ * track() starts the SLA clock of a ticket at the tier it was handed to; the
+ * deadline depends on the priority and lives in a HierarchicalTimingWheel.
+ * Each deadline also listens to the ticket's status, so resolving or
+ * closing the ticket cancels it in O(1) without any lookup. When a deadline
+ * passes the ticket is marked ESCALATED, its clock restarts at the next tier
+ * and that tier works it through process(): an escalation is an assignment,
+ * so the tier's canHandle, which only looks at the priority, is not asked.
+ * A ticket has one clock per monitor; tracking it again replaces the old
+ * one. A ticket that breaches its SLA at the last tier is counted and left
+ * there.
+ *
+ * One timer thread advances the wheel; it only hands escalated tickets on.
+ * With a TicketDispatcher they are queued at the next tier for its workers,
+ * otherwise a handler thread of the monitor's own works them one at a time.
+ * Either way a ticket that sits unresolved at the next tier escalates again.
+ */
+public class SlaEscalationMonitor implements AutoCloseable {
+
+    private final long[] slaNanos;
+    private final HierarchicalTimingWheel<Assignment> wheel;
+    private final ScheduledExecutorService ticker;
+    private final TicketDispatcher dispatcher;
+    private final ExecutorService handlers;
+    private final LongAdder escalated = new LongAdder();
+    private final LongAdder breachedAtLastTier = new LongAdder();
+
+    // slaMillis[priority] is the time a ticket of that priority may stay at one tier.
+    public SlaEscalationMonitor(long[] slaMillis, long tickMillis) {
+        this(slaMillis, tickMillis, null);
+    }
+
+    // Escalated tickets are queued at the next tier of dispatcher; null works them on the monitor's own thread.
+    public SlaEscalationMonitor(long[] slaMillis, long tickMillis, TicketDispatcher dispatcher) {
+        if(slaMillis.length != Priority.values().length) {
+            throw new IllegalArgumentException("Need one SLA per priority");
+        }
+        this.slaNanos = new long[slaMillis.length];
+        for(int i = 0; i < slaMillis.length; i++) {
+            slaNanos[i] = TimeUnit.MILLISECONDS.toNanos(slaMillis[i]);
+        }
+        this.wheel = new HierarchicalTimingWheel<>(TimeUnit.MILLISECONDS.toNanos(tickMillis), System.nanoTime());
+        this.dispatcher = dispatcher;
+        this.handlers = dispatcher != null ? null : Executors.newSingleThreadExecutor(runnable -> daemon(runnable, "sla-escalation-handler"));
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, "sla-escalation"));
+        ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private void tick() {
+        // an exception would cancel every later tick
+        try {
+            wheel.advanceTo(System.nanoTime(), this::expired);
+        } catch (RuntimeException e) {
+            System.err.println("SLA tick failed: " + e);
+        }
+    }
+
+    // Starts the SLA clock of ticket at the given tier, stopping the one it had.
+    public void track(Ticket ticket, CustomerHandler tier) {
+        for(TicketStatusListener listener : ticket.getStatusListeners()) {
+            if(listener instanceof Assignment && ((Assignment) listener).isOf(this)) {
+                ((Assignment) listener).cancel();
+            }
+        }
+        if(isClosed(ticket.getStatus())) {
+            return;
+        }
+        Priority priority = ticket.getPriority();
+        long sla = slaNanos[priority == null ? 0 : priority.ordinal()];
+        Assignment assignment = new Assignment(ticket, tier);
+        assignment.timeout = wheel.schedule(assignment, System.nanoTime() + sla);
+        ticket.addStatusListener(assignment);
+        if(isClosed(ticket.getStatus())) {
+            // resolved while we were scheduling
+            assignment.cancel();
+        }
+    }
+
+    private void expired(Assignment assignment) {
+        Ticket ticket = assignment.ticket;
+        ticket.removeStatusListener(assignment);
+        if(isClosed(ticket.getStatus())) {
+            return;
+        }
+        CustomerHandler next = assignment.tier.getNextHandler();
+        if(next == null) {
+            breachedAtLastTier.increment();
+            return;
+        }
+        escalated.increment();
+        track(ticket, next);
+        ticket.setStatus("ESCALATED");
+        if(dispatcher != null) {
+            if(!dispatcher.submit(ticket, next)) {
+                // still tracked at the next tier, so it escalates again if nobody picks it up
+                System.err.println("Escalated ticket " + ticket.getTicketId() + " could not be queued at the next tier");
+            }
+            return;
+        }
+        try {
+            handlers.execute(() -> handle(next, ticket));
+        } catch (RejectedExecutionException e) {
+            // closing
+        }
+    }
+
+    private static void handle(CustomerHandler tier, Ticket ticket) {
+        try {
+            tier.process(ticket);
+        } catch (RuntimeException e) {
+            System.err.println("Escalation of ticket " + ticket.getTicketId() + " failed: " + e);
+        }
+    }
+
+    private static boolean isClosed(String status) {
+        return "RESOLVED".equalsIgnoreCase(status) || "CLOSED".equalsIgnoreCase(status);
+    }
+
+    public int getTrackedCount() {
+        return wheel.size();
+    }
+
+    public long getEscalatedCount() {
+        return escalated.sum();
+    }
+
+    public long getBreachedAtLastTierCount() {
+        return breachedAtLastTier.sum();
+    }
+
+    // Stops the clock and lets escalations already handed to the handler thread finish.
+    @Override
+    public void close() {
+        ticker.shutdownNow();
+        try {
+            ticker.awaitTermination(1, TimeUnit.MINUTES);
+            if(handlers != null) {
+                handlers.shutdown();
+                handlers.awaitTermination(1, TimeUnit.MINUTES);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // One SLA clock: the deadline in the wheel and the listener that cancels it.
+    private class Assignment implements TicketStatusListener {
+
+        final Ticket ticket;
+        final CustomerHandler tier;
+        volatile HierarchicalTimingWheel.Timeout<Assignment> timeout;
+
+        Assignment(Ticket ticket, CustomerHandler tier) {
+            this.ticket = ticket;
+            this.tier = tier;
+        }
+
+        @Override
+        public void statusChanged(Ticket ticket, String oldStatus, String newStatus) {
+            if(isClosed(newStatus)) {
+                cancel();
+            }
+        }
+
+        void cancel() {
+            if(wheel.cancel(timeout)) {
+                ticket.removeStatusListener(this);
+            }
+        }
+
+        boolean isOf(SlaEscalationMonitor monitor) {
+            return SlaEscalationMonitor.this == monitor;
+        }
+    }
+
+}
@@ -1,18 +1,30 @@
 package DesignPattern.DesignPatternQuestions.customerEscalation;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 public class Ticket {
 
     private int ticketId;
     private String issue;
     private String issueCategory;
     private String priorityLevel;
-    private String status;
+    private Priority priority;
+    private CustomerTier customerTier;
+    private volatile String status;
+    private volatile List<TicketStatusListener> listeners;
 
     public Ticket(int ticketId, String issue, String issueCategory, String priorityLevel) {
+        this(ticketId, issue, issueCategory, priorityLevel, CustomerTier.STANDARD);
+    }
+
+    public Ticket(int ticketId, String issue, String issueCategory, String priorityLevel, CustomerTier customerTier) {
         this.ticketId = ticketId;
         this.issue = issue;
         this.issueCategory = issueCategory;
         this.priorityLevel = priorityLevel;
+        this.priority = Priority.parse(priorityLevel);
+        this.customerTier = customerTier;
         this.status = "OPEN";
     }
 
@@ -32,12 +44,52 @@ public class Ticket {
         return priorityLevel;
     }
 
+    // Parsed once from priorityLevel; null when the level is not a known priority.
+    public Priority getPriority() {
+        return priority;
+    }
+
+    public CustomerTier getCustomerTier() {
+        return customerTier;
+    }
+
     public String getStatus() {
         return status;
     }
 
+    // RESOLVED and CLOSED tickets need no more work.
+    public boolean isClosed() {
+        String current = status;
+        return "RESOLVED".equalsIgnoreCase(current) || "CLOSED".equalsIgnoreCase(current);
+    }
+
     public void setStatus(String status) {
+        String oldStatus = this.status;
         this.status = status;
+        List<TicketStatusListener> current = listeners;
+        if(current != null) {
+            for(TicketStatusListener listener : current) {
+                listener.statusChanged(this, oldStatus, status);
+            }
+        }
+    }
+
+    public synchronized void addStatusListener(TicketStatusListener listener) {
+        if(listeners == null) {
+            listeners = new CopyOnWriteArrayList<>();
+        }
+        listeners.add(listener);
+    }
+
+    public synchronized void removeStatusListener(TicketStatusListener listener) {
+        if(listeners != null) {
+            listeners.remove(listener);
+        }
+    }
+
+    List<TicketStatusListener> getStatusListeners() {
+        List<TicketStatusListener> current = listeners;
+        return current == null ? List.of() : current;
     }
     
 }
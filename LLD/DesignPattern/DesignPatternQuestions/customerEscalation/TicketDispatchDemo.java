@@ -0,0 +1,84 @@
+package DesignPattern.DesignPatternQuestions.customerEscalation;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Pushes a million tickets through the dispatcher as fast as two producers
+ * can submit them and reports throughput and queueing latency per priority.
+ * The handlers only resolve the ticket, so this measures the dispatch engine.
+ */
+public class TicketDispatchDemo {
+
+    public static void main(String args[]) throws InterruptedException {
+        int tickets = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        AtomicLong resolved = new AtomicLong();
+
+        CustomerHandler l3 = new L3Handler(null) {
+            @Override
+            protected void process(Ticket ticket) {
+                ticket.setStatus("RESOLVED");
+                resolved.incrementAndGet();
+            }
+        };
+        CustomerHandler l2 = new L2Handler(l3) {
+            @Override
+            protected void process(Ticket ticket) {
+                ticket.setStatus("RESOLVED");
+                resolved.incrementAndGet();
+            }
+        };
+        CustomerHandler l1 = new L1Handler(l2) {
+            @Override
+            protected void process(Ticket ticket) {
+                ticket.setStatus("RESOLVED");
+                resolved.incrementAndGet();
+            }
+        };
+
+        // half the tickets are LOW, 30% MEDIUM, 15% HIGH and 5% CRITICAL
+        String[] mix = new String[20];
+        for(int i = 0; i < mix.length; i++) {
+            mix[i] = i < 10 ? "LOW" : i < 16 ? "MEDIUM" : i < 19 ? "HIGH" : "CRITICAL";
+        }
+        Ticket[] pending = new Ticket[tickets];
+        for(int i = 0; i < tickets; i++) {
+            pending[i] = new Ticket(i, "Issue " + i, "Technical", mix[(i * 7) % mix.length]);
+        }
+
+        TicketDispatcher dispatcher = new TicketDispatcher(l1, new PriorityRouter(l1), new int[] {4, 2, 2}, 50_000);
+        int producers = 2;
+        Thread[] threads = new Thread[producers];
+        AtomicLong retries = new AtomicLong();
+        long start = System.nanoTime();
+        for(int p = 0; p < producers; p++) {
+            int first = p;
+            threads[p] = new Thread(() -> {
+                for(int i = first; i < tickets; i += producers) {
+                    while(!dispatcher.submit(pending[i])) {
+                        retries.incrementAndGet();
+                        Thread.yield();
+                    }
+                }
+            });
+            threads[p].start();
+        }
+        for(Thread thread : threads) {
+            thread.join();
+        }
+        dispatcher.close();
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("%d tickets resolved in %d ms: %.0f tickets/s (%d submits retried on a full tier)%n",
+                resolved.get(), elapsed / 1_000_000, resolved.get() * 1e9 / elapsed, retries.get());
+        for(int tier = 0; tier < dispatcher.getTierCount(); tier++) {
+            System.out.println("  L" + (tier + 1) + " worked " + dispatcher.getCompleted(tier) + " tickets");
+        }
+        System.out.println("  stolen by higher tiers: " + dispatcher.getStolen());
+        for(Priority priority : Priority.values()) {
+            LatencyHistogram latency = dispatcher.getQueueLatency(priority);
+            System.out.printf("  %-8s queued p50 %7.2f ms, p99 %7.2f ms, max %7.2f ms%n", priority,
+                    latency.percentileNanos(0.5) / 1e6, latency.percentileNanos(0.99) / 1e6, latency.getMaxNanos() / 1e6);
+        }
+    }
+
+}
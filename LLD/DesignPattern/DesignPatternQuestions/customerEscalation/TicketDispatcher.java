@@ -0,0 +1,500 @@
+package DesignPattern.DesignPatternQuestions.customerEscalation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Works tickets asynchronously instead of walking the chain on the caller's
+ * thread.
+ *
+ * Every handler of the chain is a tier with its own queue and worker pool.
+ * submit() asks the router for the tier (an array lookup for PriorityRouter)
+ * and appends the ticket to that tier's bucket for its priority. A worker
+ * takes the highest priority first, unless the head of a bucket has waited
+ * past its priority's limit; then the overdue ticket goes first, so low
+ * priorities are delayed but never starved. A worker with nothing in its own
+ * tier steals from the tiers below it - senior agents can always take junior
+ * work - and works the ticket with that tier's handler.
+ *
+ * Queues are bounded per tier; a full tier makes submit() return false.
+ * A ticket that was resolved or closed while it waited is not worked; that
+ * happens when the SLA monitor escalated it and a higher tier got to it first.
+ * A ticket queued at an explicit tier, such as an escalation, or routed by a
+ * router that assigns() is worked by that tier's process() whatever its
+ * canHandle says; any other routed ticket goes through handleRequest from
+ * its tier.
+ * A tier can also get an AdaptiveConcurrencyLimiter: its workers then only
+ * take a ticket while the limiter has a permit, however many there are.
+ * An idle worker sleeps until a ticket is queued at any tier or the
+ * dispatcher closes; it does not poll.
+ *
+ * submit() counts itself in flight while it queues a ticket, and workers
+ * only stop once the dispatcher is closed, no submit is in flight and every
+ * tier is empty, so a ticket accepted before close() is always worked.
+ */
+public class TicketDispatcher implements AutoCloseable {
+
+    private static final long[] DEFAULT_MAX_WAIT_NANOS = {
+            2_000_000_000L, 1_000_000_000L, 250_000_000L, 50_000_000L};
+
+    private final TicketRouter router;
+    private final TierQueue[] tiers;
+    private final long[] maxWaitNanos;
+    private final int[] workersPerTier;
+    private final List<Thread> workers = new ArrayList<>();
+    private final LatencyHistogram[] queueLatency = new LatencyHistogram[Priority.values().length];
+    private final LongAdder stolen = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final AtomicInteger submitsInFlight = new AtomicInteger();
+    // bumped whenever a ticket is queued or the dispatcher closes; idle workers wait on it
+    private final AtomicLong workSignals = new AtomicLong();
+    private final AtomicInteger idleWorkers = new AtomicInteger();
+    private final Object idle = new Object();
+    private volatile boolean closed;
+
+    public TicketDispatcher(CustomerHandler chain, TicketRouter router, int[] workersPerTier, int capacityPerTier) {
+        this(chain, router, workersPerTier, capacityPerTier, DEFAULT_MAX_WAIT_NANOS);
+    }
+
+    // maxWaitNanos[priority] is how long a ticket may wait before it jumps ahead of higher priorities.
+    public TicketDispatcher(CustomerHandler chain, TicketRouter router, int[] workersPerTier, int capacityPerTier, long[] maxWaitNanos) {
+        List<CustomerHandler> handlers = tiersOf(chain);
+        if(workersPerTier.length != handlers.size()) {
+            throw new IllegalArgumentException("Need a worker count for each of the " + handlers.size() + " tiers");
+        }
+        if(maxWaitNanos.length != Priority.values().length) {
+            throw new IllegalArgumentException("Need a maximum wait for each of the " + Priority.values().length + " priorities");
+        }
+        this.router = router;
+        this.workersPerTier = workersPerTier.clone();
+        this.maxWaitNanos = maxWaitNanos.clone();
+        this.tiers = new TierQueue[handlers.size()];
+        for(int tier = 0; tier < tiers.length; tier++) {
+            tiers[tier] = new TierQueue(handlers.get(tier), capacityPerTier);
+        }
+        for(int i = 0; i < queueLatency.length; i++) {
+            queueLatency[i] = new LatencyHistogram();
+        }
+        for(int tier = 0; tier < tiers.length; tier++) {
+            for(int i = 0; i < workersPerTier[tier]; i++) {
+                int home = tier;
+                Thread worker = new Thread(() -> work(home), "escalation-L" + (tier + 1) + "-" + i);
+                worker.setDaemon(true);
+                workers.add(worker);
+                worker.start();
+            }
+        }
+    }
+
+    static List<CustomerHandler> tiersOf(CustomerHandler chain) {
+        List<CustomerHandler> tiers = new ArrayList<>();
+        for(CustomerHandler handler = chain; handler != null; handler = handler.getNextHandler()) {
+            tiers.add(handler);
+        }
+        return tiers;
+    }
+
+    public boolean submit(Ticket ticket) {
+        submitsInFlight.incrementAndGet();
+        try {
+            // checked after counting in, so a worker that sees no submit in flight has seen every ticket
+            if(closed) {
+                rejected.increment();
+                return false;
+            }
+            int tier = router.route(ticket);
+            if(tier < 0 || tier >= tiers.length || !tiers[tier].offer(ticket, router.assigns())) {
+                rejected.increment();
+                return false;
+            }
+            return true;
+        } finally {
+            submitsInFlight.decrementAndGet();
+        }
+    }
+
+    // Queues ticket at the given handler's tier without asking the router, e.g. for an escalation;
+    // that tier works it even if its canHandle would pass it on.
+    // False when the tier is full, the handler is not part of the chain or the dispatcher is closed.
+    public boolean submit(Ticket ticket, CustomerHandler tier) {
+        submitsInFlight.incrementAndGet();
+        try {
+            for(TierQueue queue : tiers) {
+                if(queue.handler == tier && !closed && queue.offer(ticket, true)) {
+                    return true;
+                }
+            }
+            rejected.increment();
+            return false;
+        } finally {
+            submitsInFlight.decrementAndGet();
+        }
+    }
+
+    /*
+     * Submits a batch with one queue reservation and one wake-up per tier
+     * instead of one per ticket. Returns the tickets that were not accepted
+     * (unroutable, tier full or dispatcher closed), empty when all were.
+     */
+    public List<Ticket> submitAll(List<Ticket> batch) {
+        return submitAll(batch, true);
+    }
+
+    // submitAll for callers that wait and retry while tiers are full: refusals are not counted
+    // here, the caller reports the tickets it finally gives up on through reject().
+    List<Ticket> offerAll(List<Ticket> batch) {
+        return submitAll(batch, false);
+    }
+
+    void reject(int tickets) {
+        rejected.add(tickets);
+    }
+
+    private List<Ticket> submitAll(List<Ticket> batch, boolean countRefused) {
+        submitsInFlight.incrementAndGet();
+        try {
+            List<Ticket> refused = queueAll(batch);
+            if(countRefused) {
+                rejected.add(refused.size());
+            }
+            return refused;
+        } finally {
+            submitsInFlight.decrementAndGet();
+        }
+    }
+
+    private List<Ticket> queueAll(List<Ticket> batch) {
+        List<Ticket> refused = new ArrayList<>();
+        if(closed) {
+            refused.addAll(batch);
+            return refused;
+        }
+        List<List<Ticket>> byTier = new ArrayList<>(tiers.length);
+        for(int tier = 0; tier < tiers.length; tier++) {
+            byTier.add(new ArrayList<>());
+        }
+        for(Ticket ticket : batch) {
+            int tier = router.route(ticket);
+            if(tier < 0 || tier >= tiers.length) {
+                refused.add(ticket);
+            } else {
+                byTier.get(tier).add(ticket);
+            }
+        }
+        for(int tier = 0; tier < tiers.length; tier++) {
+            List<Ticket> tickets = byTier.get(tier);
+            int accepted = tickets.isEmpty() ? 0 : tiers[tier].offerAll(tickets, router.assigns());
+            refused.addAll(tickets.subList(accepted, tickets.size()));
+        }
+        return refused;
+    }
+
+    private void work(int home) {
+        TierQueue own = tiers[home];
+        while(true) {
+            // read before looking, so a ticket queued after the look ends the wait below
+            long signals = workSignals.get();
+            TierQueue from = null;
+            QueuedTicket next = null;
+            // the limiter a permit came from, kept so the same one gets it back
+            AdaptiveConcurrencyLimiter permit = null;
+            for(int tier = home; next == null && tier >= 0; tier--) {
+                AdaptiveConcurrencyLimiter limiter = tiers[tier].limiter;
+                if(limiter == null || limiter.tryAcquire()) {
+                    next = tiers[tier].tryTake();
+                    if(next == null) {
+                        cancel(limiter);
+                    } else {
+                        from = tiers[tier];
+                        permit = limiter;
+                        if(tier != home) {
+                            stolen.increment();
+                        }
+                    }
+                }
+            }
+            AdaptiveConcurrencyLimiter limiter = own.limiter;
+            if(next == null && limiter != null && own.size.get() > 0) {
+                // tickets wait for a permit; every release wakes one waiting worker, the timeout
+                // only bounds how late close() is noticed
+                if(limiter.tryAcquire(50)) {
+                    next = own.tryTake();
+                    if(next == null) {
+                        cancel(limiter);
+                    } else {
+                        from = own;
+                        permit = limiter;
+                    }
+                }
+            }
+            if(next == null) {
+                if(closed && submitsInFlight.get() == 0 && isDrained()) {
+                    return;
+                }
+                if(limiter == null || own.size.get() == 0) {
+                    awaitWork(signals);
+                }
+                continue;
+            }
+            if(next.ticket.isClosed()) {
+                cancel(permit);
+                continue;
+            }
+            long started = System.nanoTime();
+            Priority priority = next.ticket.getPriority();
+            queueLatency[priority == null ? 0 : priority.ordinal()].record(started - next.enqueuedAt);
+            try {
+                if(next.assigned) {
+                    from.handler.process(next.ticket);
+                } else {
+                    from.handler.handleRequest(next.ticket);
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Ticket " + next.ticket.getTicketId() + " failed: " + e);
+            } finally {
+                if(permit != null) {
+                    permit.release(System.nanoTime() - started);
+                }
+            }
+            from.completed.increment();
+        }
+    }
+
+    private void awaitWork(long seen) {
+        idleWorkers.incrementAndGet();
+        try {
+            synchronized (idle) {
+                while(workSignals.get() == seen) {
+                    if(closed) {
+                        // the last tickets are being worked elsewhere; look again shortly
+                        idle.wait(1);
+                        return;
+                    }
+                    idle.wait();
+                }
+            }
+        } catch (InterruptedException e) {
+            // workers are only stopped by close()
+        } finally {
+            idleWorkers.decrementAndGet();
+        }
+    }
+
+    // Called after a ticket is queued and on close. A worker counts itself idle before it checks
+    // the signal count, so either it sees this bump or this sees it and wakes it.
+    private void signalWork() {
+        workSignals.incrementAndGet();
+        if(idleWorkers.get() > 0) {
+            synchronized (idle) {
+                idle.notifyAll();
+            }
+        }
+    }
+
+    private static void cancel(AdaptiveConcurrencyLimiter limiter) {
+        if(limiter != null) {
+            limiter.cancel();
+        }
+    }
+
+    private boolean isDrained() {
+        for(TierQueue tier : tiers) {
+            if(tier.size.get() > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Set before tickets arrive; workers beyond the limiter's limit stay idle.
+    public void limitConcurrency(int tier, AdaptiveConcurrencyLimiter limiter) {
+        tiers[tier].limiter = limiter;
+    }
+
+    public AdaptiveConcurrencyLimiter getConcurrencyLimiter(int tier) {
+        return tiers[tier].limiter;
+    }
+
+    // Tier the router picks for ticket, or -1 when it cannot be routed.
+    public int tierOf(Ticket ticket) {
+        int tier = router.route(ticket);
+        return tier >= 0 && tier < tiers.length ? tier : -1;
+    }
+
+    public int getWorkers(int tier) {
+        return workersPerTier[tier];
+    }
+
+    public int getCapacity(int tier) {
+        return tiers[tier].capacity;
+    }
+
+    public LatencyHistogram getQueueLatency(Priority priority) {
+        return queueLatency[priority.ordinal()];
+    }
+
+    public long getCompleted(int tier) {
+        return tiers[tier].completed.sum();
+    }
+
+    public int getBacklog(int tier) {
+        return tiers[tier].size.get();
+    }
+
+    // Tickets queued at tier that are taken before a new ticket of the given priority.
+    public int getBacklog(int tier, Priority atLeast) {
+        int ahead = 0;
+        AtomicInteger[] sizes = tiers[tier].bucketSizes;
+        for(int p = atLeast.ordinal(); p < sizes.length; p++) {
+            ahead += sizes[p].get();
+        }
+        return ahead;
+    }
+
+    public long getStolen() {
+        return stolen.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public int getTierCount() {
+        return tiers.length;
+    }
+
+    // Stops intake and returns once every queued ticket has been worked, or early
+    // with the interrupt flag set when the caller is interrupted.
+    @Override
+    public void close() {
+        closed = true;
+        signalWork();
+        try {
+            for(Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class QueuedTicket {
+
+        final Ticket ticket;
+        final long enqueuedAt;
+        // worked by the tier's process() instead of walking the chain from it
+        final boolean assigned;
+
+        QueuedTicket(Ticket ticket, long enqueuedAt, boolean assigned) {
+            this.ticket = ticket;
+            this.enqueuedAt = enqueuedAt;
+            this.assigned = assigned;
+        }
+    }
+
+    // One lock-free FIFO per priority; the semaphore counts queued tickets, so
+    // every permit is backed by a ticket.
+    private class TierQueue {
+
+        final CustomerHandler handler;
+        final int capacity;
+        final ConcurrentLinkedQueue<QueuedTicket>[] buckets;
+        final AtomicInteger[] bucketSizes;
+        final AtomicInteger size = new AtomicInteger();
+        final Semaphore queued = new Semaphore(0);
+        final LongAdder completed = new LongAdder();
+        volatile AdaptiveConcurrencyLimiter limiter;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        TierQueue(CustomerHandler handler, int capacity) {
+            this.handler = handler;
+            this.capacity = capacity;
+            this.buckets = new ConcurrentLinkedQueue[Priority.values().length];
+            this.bucketSizes = new AtomicInteger[buckets.length];
+            for(int i = 0; i < buckets.length; i++) {
+                buckets[i] = new ConcurrentLinkedQueue<>();
+                bucketSizes[i] = new AtomicInteger();
+            }
+        }
+
+        boolean offer(Ticket ticket, boolean assigned) {
+            if(size.incrementAndGet() > capacity) {
+                size.decrementAndGet();
+                return false;
+            }
+            Priority priority = ticket.getPriority();
+            int bucket = priority == null ? 0 : priority.ordinal();
+            bucketSizes[bucket].incrementAndGet();
+            buckets[bucket].add(new QueuedTicket(ticket, System.nanoTime(), assigned));
+            queued.release();
+            signalWork();
+            return true;
+        }
+
+        // Enqueues as many of the tickets as fit, from the front; returns how many.
+        int offerAll(List<Ticket> tickets, boolean assigned) {
+            int reserved;
+            while(true) {
+                int current = size.get();
+                reserved = Math.min(tickets.size(), capacity - current);
+                if(reserved <= 0) {
+                    return 0;
+                }
+                if(size.compareAndSet(current, current + reserved)) {
+                    break;
+                }
+            }
+            long now = System.nanoTime();
+            for(int i = 0; i < reserved; i++) {
+                Ticket ticket = tickets.get(i);
+                Priority priority = ticket.getPriority();
+                int bucket = priority == null ? 0 : priority.ordinal();
+                bucketSizes[bucket].incrementAndGet();
+                buckets[bucket].add(new QueuedTicket(ticket, now, assigned));
+            }
+            queued.release(reserved);
+            signalWork();
+            return reserved;
+        }
+
+        QueuedTicket tryTake() {
+            return queued.tryAcquire() ? takeAcquired() : null;
+        }
+
+        // The permit guarantees a ticket; it may just be in another bucket by now.
+        private QueuedTicket takeAcquired() {
+            while(true) {
+                long now = System.nanoTime();
+                for(int p = buckets.length - 1; p >= 0; p--) {
+                    QueuedTicket head = buckets[p].peek();
+                    if(head != null && now - head.enqueuedAt > maxWaitNanos[p]) {
+                        QueuedTicket overdue = buckets[p].poll();
+                        if(overdue != null) {
+                            bucketSizes[p].decrementAndGet();
+                            size.decrementAndGet();
+                            return overdue;
+                        }
+                    }
+                }
+                for(int p = buckets.length - 1; p >= 0; p--) {
+                    QueuedTicket next = buckets[p].poll();
+                    if(next != null) {
+                        bucketSizes[p].decrementAndGet();
+                        size.decrementAndGet();
+                        return next;
+                    }
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,490 @@
+package DesignPattern.DesignPatternQuestions.customerEscalation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+/*
+ * Streams tickets out of large CSV or JSONL exports.
+ *
+ * One reader thread fills fixed-size chunks straight from the FileChannel
+ * and cuts each chunk after its last complete record (for CSV, the last
+ * line break outside quotes); the partial record is carried into the next
+ * chunk. Parser threads turn chunks into Tickets, classify the ones that
+ * come without a priority and hand each chunk's tickets to the sink as one
+ * batch. Chunks come from a fixed pool that is only refilled when a batch
+ * has been handed over, so memory stays at poolSize x chunkBytes whatever
+ * the file size, and a slow sink slows the reader down instead of
+ * letting chunks pile up.
+ *
+ * CSV needs a header row naming the id, issue, category and priority
+ * columns (any order; priority may be missing or empty). A JSONL line is a
+ * flat object with the same keys. Records that cannot be parsed are
+ * counted and skipped, and so are tickets the sink refuses. A parser or sink
+ * that throws stops the ingestion instead: no more chunks are read and
+ * ingest() rethrows the exception once the running chunks are done, so a
+ * chunk is never dropped uncounted.
+ */
+public class TicketIngestionPipeline {
+
+    public enum Format { CSV, JSONL }
+
+    private static final int ID = 0;
+    private static final int ISSUE = 1;
+    private static final int CATEGORY = 2;
+    private static final int PRIORITY = 3;
+    private static final String[] FIELD_NAMES = {"id", "issue", "category", "priority"};
+
+    private final int parserThreads;
+    private final int chunkBytes;
+    private final int poolSize;
+    private final PriorityClassifier classifier;
+
+    public TicketIngestionPipeline(int parserThreads, int chunkBytes, int poolSize, PriorityClassifier classifier) {
+        if(poolSize < 2) {
+            throw new IllegalArgumentException("Need at least two chunks to overlap reading and parsing");
+        }
+        this.parserThreads = parserThreads;
+        this.chunkBytes = chunkBytes;
+        this.poolSize = poolSize;
+        this.classifier = classifier;
+    }
+
+    /*
+     * Feeds every batch to the dispatcher, waiting and retrying while a tier
+     * is full; those waits are not rejections. Tickets the router cannot
+     * place, and tickets still waiting when the dispatcher closes, are given
+     * up at once, counted as refused and as rejected by the dispatcher.
+     */
+    public Result ingest(Path file, Format format, TicketDispatcher dispatcher) throws IOException, InterruptedException {
+        return run(file, format, batch -> {
+            List<Ticket> pending = batch;
+            int refused = 0;
+            while(!(pending = dispatcher.offerAll(pending)).isEmpty()) {
+                if(dispatcher.isClosed()) {
+                    refused += pending.size();
+                    break;
+                }
+                List<Ticket> waiting = new ArrayList<>(pending.size());
+                for(Ticket ticket : pending) {
+                    if(dispatcher.tierOf(ticket) < 0) {
+                        refused++;
+                    } else {
+                        waiting.add(ticket);
+                    }
+                }
+                if(waiting.isEmpty()) {
+                    break;
+                }
+                pending = waiting;
+                LockSupport.parkNanos(100_000);
+            }
+            dispatcher.reject(refused);
+            return refused;
+        });
+    }
+
+    public Result ingest(Path file, Format format, Consumer<List<Ticket>> sink) throws IOException, InterruptedException {
+        return run(file, format, batch -> {
+            sink.accept(batch);
+            return 0;
+        });
+    }
+
+    // sink takes a batch and returns how many of its tickets it refused.
+    private Result run(Path file, Format format, ToIntFunction<List<Ticket>> sink) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        ArrayBlockingQueue<byte[]> free = new ArrayBlockingQueue<>(poolSize);
+        for(int i = 0; i < poolSize; i++) {
+            free.add(new byte[chunkBytes]);
+        }
+        AtomicLong records = new AtomicLong();
+        AtomicLong malformed = new AtomicLong();
+        AtomicLong refused = new AtomicLong();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        ExecutorService parsers = Executors.newFixedThreadPool(parserThreads, runnable -> {
+            Thread thread = new Thread(runnable, "ticket-parser");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long bytes;
+        int[] columns = null;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            bytes = channel.size();
+            byte[] carry = new byte[0];
+            boolean eof = false;
+            while(!eof && failure.get() == null) {
+                byte[] chunk = free.take();
+                System.arraycopy(carry, 0, chunk, 0, carry.length);
+                ByteBuffer target = ByteBuffer.wrap(chunk, carry.length, chunk.length - carry.length);
+                while(target.hasRemaining()) {
+                    if(channel.read(target) < 0) {
+                        eof = true;
+                        break;
+                    }
+                }
+                int filled = target.position();
+                int end = eof ? filled : lastRecordEnd(chunk, filled, format);
+                if(end <= 0 && !eof) {
+                    throw new IOException("A record is longer than the chunk size of " + chunkBytes + " bytes");
+                }
+                carry = Arrays.copyOfRange(chunk, end, filled);
+                int from = 0;
+                if(format == Format.CSV && columns == null) {
+                    int headerEnd = nextLine(chunk, 0, end);
+                    columns = csvHeader(new String(chunk, 0, headerEnd, StandardCharsets.UTF_8));
+                    from = Math.min(end, headerEnd + 1);
+                }
+                int[] layout = columns;
+                int parseFrom = from;
+                int parseTo = end;
+                parsers.execute(() -> {
+                    try {
+                        List<Ticket> batch = format == Format.CSV
+                                ? parseCsv(chunk, parseFrom, parseTo, layout, malformed)
+                                : parseJsonLines(chunk, parseFrom, parseTo, malformed);
+                        // counted once the sink has taken the batch
+                        int refusedNow = batch.isEmpty() ? 0 : sink.applyAsInt(batch);
+                        records.addAndGet(batch.size() - refusedNow);
+                        refused.addAndGet(refusedNow);
+                    } catch (RuntimeException e) {
+                        if(!failure.compareAndSet(null, e) && failure.get() != e) {
+                            failure.get().addSuppressed(e);
+                        }
+                    } finally {
+                        free.add(chunk);
+                    }
+                });
+            }
+        } finally {
+            parsers.shutdown();
+            parsers.awaitTermination(1, TimeUnit.HOURS);
+        }
+        if(failure.get() != null) {
+            throw failure.get();
+        }
+        return new Result(records.get(), malformed.get(), refused.get(), bytes, System.nanoTime() - start);
+    }
+
+    // Index just past the last complete record in chunk[0, filled), or 0 if there is none.
+    private static int lastRecordEnd(byte[] chunk, int filled, Format format) {
+        if(format == Format.JSONL) {
+            for(int i = filled - 1; i >= 0; i--) {
+                if(chunk[i] == '\n') {
+                    return i + 1;
+                }
+            }
+            return 0;
+        }
+        // every chunk starts outside quotes, so the quote state can be tracked from its start
+        boolean quoted = false;
+        int end = 0;
+        for(int i = 0; i < filled; i++) {
+            byte b = chunk[i];
+            if(b == '"') {
+                quoted = !quoted;
+            } else if(b == '\n' && !quoted) {
+                end = i + 1;
+            }
+        }
+        return end;
+    }
+
+    private static int nextLine(byte[] chunk, int from, int to) {
+        for(int i = from; i < to; i++) {
+            if(chunk[i] == '\n') {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    // Column index of id, issue, category and priority; -1 for a missing column.
+    private static int[] csvHeader(String header) {
+        List<String> names = new ArrayList<>();
+        splitCsv(header.trim(), names);
+        int[] columns = new int[FIELD_NAMES.length];
+        for(int field = 0; field < FIELD_NAMES.length; field++) {
+            columns[field] = -1;
+            for(int i = 0; i < names.size(); i++) {
+                String name = names.get(i).trim().toLowerCase();
+                if(name.equals(FIELD_NAMES[field]) || (field == PRIORITY && name.equals("prioritylevel"))
+                        || (field == CATEGORY && name.equals("issuecategory"))) {
+                    columns[field] = i;
+                }
+            }
+        }
+        if(columns[ID] < 0 || columns[ISSUE] < 0) {
+            throw new IllegalArgumentException("CSV header needs at least id and issue columns: " + header);
+        }
+        return columns;
+    }
+
+    private List<Ticket> parseCsv(byte[] chunk, int from, int to, int[] columns, AtomicLong malformed) {
+        List<Ticket> batch = new ArrayList<>();
+        List<String> fields = new ArrayList<>();
+        int lineStart = from;
+        boolean quoted = false;
+        for(int i = from; i <= to; i++) {
+            if(i < to && chunk[i] == '"') {
+                quoted = !quoted;
+            }
+            if(i == to || (chunk[i] == '\n' && !quoted)) {
+                int lineEnd = i > lineStart && chunk[i - 1] == '\r' ? i - 1 : i;
+                if(lineEnd > lineStart) {
+                    fields.clear();
+                    splitCsv(new String(chunk, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8), fields);
+                    Ticket ticket = toTicket(field(fields, columns[ID]), field(fields, columns[ISSUE]),
+                            field(fields, columns[CATEGORY]), field(fields, columns[PRIORITY]));
+                    if(ticket == null) {
+                        malformed.incrementAndGet();
+                    } else {
+                        batch.add(ticket);
+                    }
+                }
+                lineStart = i + 1;
+            }
+        }
+        return batch;
+    }
+
+    private static String field(List<String> fields, int column) {
+        return column >= 0 && column < fields.size() ? fields.get(column) : null;
+    }
+
+    // RFC 4180 style: commas separate fields, quotes enclose them and "" is a quote.
+    private static void splitCsv(String line, List<String> fields) {
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for(int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if(quoted) {
+                if(c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if(c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if(c == '"') {
+                quoted = true;
+            } else if(c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+    }
+
+    private List<Ticket> parseJsonLines(byte[] chunk, int from, int to, AtomicLong malformed) {
+        List<Ticket> batch = new ArrayList<>();
+        String[] values = new String[FIELD_NAMES.length];
+        int lineStart = from;
+        for(int i = from; i <= to; i++) {
+            if(i == to || chunk[i] == '\n') {
+                String line = new String(chunk, lineStart, i - lineStart, StandardCharsets.UTF_8).trim();
+                if(!line.isEmpty()) {
+                    Arrays.fill(values, null);
+                    Ticket ticket = parseJsonObject(line, values)
+                            ? toTicket(values[ID], values[ISSUE], values[CATEGORY], values[PRIORITY]) : null;
+                    if(ticket == null) {
+                        malformed.incrementAndGet();
+                    } else {
+                        batch.add(ticket);
+                    }
+                }
+                lineStart = i + 1;
+            }
+        }
+        return batch;
+    }
+
+    // Reads a flat object of string, number, boolean and null values; false if it is not one.
+    private static boolean parseJsonObject(String line, String[] values) {
+        int[] position = {skipSpace(line, 0)};
+        if(position[0] >= line.length() || line.charAt(position[0]++) != '{') {
+            return false;
+        }
+        while(true) {
+            position[0] = skipSpace(line, position[0]);
+            if(position[0] < line.length() && line.charAt(position[0]) == '}') {
+                return true;
+            }
+            String key = jsonString(line, position);
+            position[0] = skipSpace(line, position[0]);
+            if(key == null || position[0] >= line.length() || line.charAt(position[0]++) != ':') {
+                return false;
+            }
+            position[0] = skipSpace(line, position[0]);
+            String value;
+            if(position[0] < line.length() && line.charAt(position[0]) == '"') {
+                value = jsonString(line, position);
+                if(value == null) {
+                    return false;
+                }
+            } else {
+                int start = position[0];
+                while(position[0] < line.length() && ",} \t".indexOf(line.charAt(position[0])) < 0) {
+                    position[0]++;
+                }
+                value = line.substring(start, position[0]);
+                if(value.isEmpty() || value.charAt(0) == '{' || value.charAt(0) == '[') {
+                    return false;
+                }
+                if(value.equals("null")) {
+                    value = null;
+                }
+            }
+            String name = key.toLowerCase();
+            for(int field = 0; field < FIELD_NAMES.length; field++) {
+                if(name.equals(FIELD_NAMES[field]) || (field == PRIORITY && name.equals("prioritylevel"))
+                        || (field == CATEGORY && name.equals("issuecategory"))) {
+                    values[field] = value;
+                }
+            }
+            position[0] = skipSpace(line, position[0]);
+            if(position[0] >= line.length()) {
+                return false;
+            }
+            char separator = line.charAt(position[0]++);
+            if(separator == '}') {
+                return true;
+            }
+            if(separator != ',') {
+                return false;
+            }
+        }
+    }
+
+    private static int skipSpace(String line, int from) {
+        while(from < line.length() && Character.isWhitespace(line.charAt(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    // Decodes the string starting at position[0] and moves past it; null if malformed.
+    private static String jsonString(String line, int[] position) {
+        int i = position[0];
+        if(i >= line.length() || line.charAt(i) != '"') {
+            return null;
+        }
+        StringBuilder value = new StringBuilder();
+        for(i++; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if(c == '"') {
+                position[0] = i + 1;
+                return value.toString();
+            }
+            if(c != '\\') {
+                value.append(c);
+                continue;
+            }
+            if(++i >= line.length()) {
+                return null;
+            }
+            char escaped = line.charAt(i);
+            switch(escaped) {
+                case 'n': value.append('\n'); break;
+                case 't': value.append('\t'); break;
+                case 'r': value.append('\r'); break;
+                case 'b': value.append('\b'); break;
+                case 'f': value.append('\f'); break;
+                case 'u':
+                    if(i + 4 >= line.length()) {
+                        return null;
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(line.substring(i + 1, i + 5), 16));
+                    } catch (NumberFormatException e) {
+                        return null;
+                    }
+                    i += 4;
+                    break;
+                default: value.append(escaped);
+            }
+        }
+        return null;
+    }
+
+    private Ticket toTicket(String id, String issue, String category, String priorityLevel) {
+        if(id == null || issue == null) {
+            return null;
+        }
+        int ticketId;
+        try {
+            ticketId = Integer.parseInt(id.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if(Priority.parse(priorityLevel == null ? null : priorityLevel.trim()) == null) {
+            priorityLevel = classifier.classify(issue).name();
+        }
+        return new Ticket(ticketId, issue, category, priorityLevel.trim());
+    }
+
+    public static class Result {
+
+        private final long records;
+        private final long malformed;
+        private final long refused;
+        private final long bytes;
+        private final long nanos;
+
+        Result(long records, long malformed, long refused, long bytes, long nanos) {
+            this.records = records;
+            this.malformed = malformed;
+            this.refused = refused;
+            this.bytes = bytes;
+            this.nanos = nanos;
+        }
+
+        // Tickets the sink accepted.
+        public long getRecords() {
+            return records;
+        }
+
+        public long getMalformed() {
+            return malformed;
+        }
+
+        // Parsed tickets the sink did not accept: unroutable, or the dispatcher closed.
+        public long getRefused() {
+            return refused;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        @Override
+        public String toString() {
+            double seconds = nanos / 1e9;
+            return String.format("%d tickets (%d malformed, %d refused) from %.1f MB in %.2f s: %.1f MB/s, %.2f GB/min",
+                    records, malformed, refused, bytes / 1e6, seconds, bytes / 1e6 / seconds, bytes / 1e9 / seconds * 60);
+        }
+    }
+
+}
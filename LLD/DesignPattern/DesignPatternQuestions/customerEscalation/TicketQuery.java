@@ -0,0 +1,76 @@
+package DesignPattern.DesignPatternQuestions.customerEscalation;
+
+/*
+ * What to look for in a TicketRepository: words in the issue text, matched
+ * all together (AND) or any of them (OR), narrowed by status, category and
+ * priority. Unset parts do not restrict the result.
+ */
+public final class TicketQuery {
+
+    private final String words;
+    private final boolean matchAll;
+    private final String status;
+    private final String category;
+    private final Priority priority;
+
+    private TicketQuery(String words, boolean matchAll, String status, String category, Priority priority) {
+        this.words = words;
+        this.matchAll = matchAll;
+        this.status = status;
+        this.category = category;
+        this.priority = priority;
+    }
+
+    public static TicketQuery allWords(String words) {
+        return new TicketQuery(words, true, null, null, null);
+    }
+
+    public static TicketQuery anyWords(String words) {
+        return new TicketQuery(words, false, null, null, null);
+    }
+
+    public static TicketQuery everything() {
+        return new TicketQuery(null, true, null, null, null);
+    }
+
+    public TicketQuery withStatus(String status) {
+        return new TicketQuery(words, matchAll, status, category, priority);
+    }
+
+    public TicketQuery inCategory(String category) {
+        return new TicketQuery(words, matchAll, status, category, priority);
+    }
+
+    public TicketQuery withPriority(Priority priority) {
+        return new TicketQuery(words, matchAll, status, category, priority);
+    }
+
+    String getWords() {
+        return words;
+    }
+
+    boolean isMatchAll() {
+        return matchAll;
+    }
+
+    String getStatus() {
+        return status;
+    }
+
+    String getCategory() {
+        return category;
+    }
+
+    Priority getPriority() {
+        return priority;
+    }
+
+    @Override
+    public String toString() {
+        return (words == null ? "all tickets" : (matchAll ? "all of" : "any of") + " [" + words + "]")
+                + (status == null ? "" : ", status " + status)
+                + (category == null ? "" : ", category " + category)
+                + (priority == null ? "" : ", priority " + priority);
+    }
+
+}
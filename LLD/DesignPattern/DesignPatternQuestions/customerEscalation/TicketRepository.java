@@ -0,0 +1,231 @@
+package DesignPattern.DesignPatternQuestions.customerEscalation;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ * Searchable store of tickets.
+ *
+ * Each ticket gets a dense document id in insertion order. The issue text
+ * is split into lower-case words and the id is appended to the PostingList
+ * of every word; since ids only grow, postings stay sorted and compress as
+ * varint gaps. Status, category and priority are kept as one BitSet per
+ * value, so filters and their combinations are word-wide bit operations.
+ *
+ * The repository listens to every stored ticket. A status change only
+ * queues the ticket's document id, without taking any lock, so workers
+ * changing statuses never wait on each other or on searches; the next query
+ * moves the queued tickets to the status set of their current status before
+ * it matches. Queries run under the read lock, adds and those moves under
+ * the write lock.
+ */
+public class TicketRepository {
+
+    private final List<Ticket> tickets = new ArrayList<>();
+    private final Map<Integer, Integer> docByTicketId = new HashMap<>();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final Map<String, BitSet> byStatus = new HashMap<>();
+    // the status set each document is in, by document id
+    private final List<String> statusOf = new ArrayList<>();
+    private final ConcurrentLinkedQueue<Integer> statusChanged = new ConcurrentLinkedQueue<>();
+    private final Map<String, BitSet> byCategory = new HashMap<>();
+    private final BitSet[] byPriority = new BitSet[Priority.values().length];
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public TicketRepository() {
+        for(int i = 0; i < byPriority.length; i++) {
+            byPriority[i] = new BitSet();
+        }
+    }
+
+    // Returns false, storing nothing, when a ticket with the same id is already stored.
+    public boolean add(Ticket ticket) {
+        Set<String> words = words(ticket.getIssue());
+        lock.writeLock().lock();
+        try {
+            if(docByTicketId.containsKey(ticket.getTicketId())) {
+                return false;
+            }
+            int doc = tickets.size();
+            tickets.add(ticket);
+            docByTicketId.put(ticket.getTicketId(), doc);
+            for(String word : words) {
+                postings.computeIfAbsent(word, key -> new PostingList()).add(doc);
+            }
+            // listen first, then read: a change after the read is queued, one before it is already read
+            ticket.addStatusListener((changed, oldStatus, newStatus) -> statusChanged.add(doc));
+            String status = key(ticket.getStatus());
+            statusOf.add(status);
+            bits(byStatus, status).set(doc);
+            bits(byCategory, ticket.getIssueCategory()).set(doc);
+            if(ticket.getPriority() != null) {
+                byPriority[ticket.getPriority().ordinal()].set(doc);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Moves every ticket whose status changed since the last query; the ticket's current
+    // status is read, so changes that were queued out of order still end up right.
+    private void applyStatusChanges() {
+        if(statusChanged.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Integer doc;
+            while((doc = statusChanged.poll()) != null) {
+                String status = key(tickets.get(doc).getStatus());
+                String old = statusOf.get(doc);
+                if(!status.equals(old)) {
+                    byStatus.get(old).clear(doc);
+                    bits(byStatus, status).set(doc);
+                    statusOf.set(doc, status);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Ticket get(int ticketId) {
+        lock.readLock().lock();
+        try {
+            Integer doc = docByTicketId.get(ticketId);
+            return doc == null ? null : tickets.get(doc);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Matching tickets, newest first, at most limit of them.
+    public List<Ticket> search(TicketQuery query, int limit) {
+        applyStatusChanges();
+        lock.readLock().lock();
+        try {
+            BitSet docs = match(query);
+            List<Ticket> found = new ArrayList<>(Math.min(limit, docs.cardinality()));
+            for(int doc = docs.previousSetBit(docs.length() - 1); doc >= 0 && found.size() < limit; doc = docs.previousSetBit(doc - 1)) {
+                found.add(tickets.get(doc));
+            }
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int count(TicketQuery query) {
+        applyStatusChanges();
+        lock.readLock().lock();
+        try {
+            return match(query).cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet match(TicketQuery query) {
+        BitSet docs = new BitSet(tickets.size());
+        if(query.getWords() == null) {
+            docs.set(0, tickets.size());
+        } else {
+            List<PostingList> lists = new ArrayList<>();
+            for(String word : words(query.getWords())) {
+                PostingList list = postings.get(word);
+                if(list != null) {
+                    lists.add(list);
+                } else if(query.isMatchAll()) {
+                    return docs;
+                }
+            }
+            if(lists.isEmpty()) {
+                return docs;
+            }
+            if(query.isMatchAll()) {
+                // start from the rarest word so every later step only checks a few candidates
+                lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+                lists.get(0).addTo(docs);
+                for(int i = 1; i < lists.size() && !docs.isEmpty(); i++) {
+                    lists.get(i).retainIn(docs);
+                }
+            } else {
+                for(PostingList list : lists) {
+                    list.addTo(docs);
+                }
+            }
+        }
+        if(query.getStatus() != null) {
+            docs.and(byStatus.getOrDefault(key(query.getStatus()), new BitSet()));
+        }
+        if(query.getCategory() != null) {
+            docs.and(byCategory.getOrDefault(key(query.getCategory()), new BitSet()));
+        }
+        if(query.getPriority() != null) {
+            docs.and(byPriority[query.getPriority().ordinal()]);
+        }
+        return docs;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return tickets.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Postings bytes against four bytes per posting for plain int arrays.
+    public String indexStats() {
+        lock.readLock().lock();
+        try {
+            long count = 0;
+            long bytes = 0;
+            for(PostingList list : postings.values()) {
+                count += list.size();
+                bytes += list.byteSize();
+            }
+            return String.format("%d words, %d postings in %.1f MB (%.2f bytes per posting, int[] would need %.1f MB)",
+                    postings.size(), count, bytes / 1e6, bytes / (double) Math.max(1, count), 4 * count / 1e6);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static BitSet bits(Map<String, BitSet> index, String value) {
+        return index.computeIfAbsent(key(value), key -> new BitSet());
+    }
+
+    private static String key(String value) {
+        return value == null ? "" : value.toUpperCase();
+    }
+
+    static Set<String> words(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        if(text == null) {
+            return words;
+        }
+        int start = -1;
+        for(int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if(wordChar && start < 0) {
+                start = i;
+            } else if(!wordChar && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+}
@@ -0,0 +1,14 @@
+package DesignPattern.DesignPatternQuestions.customerEscalation;
+
+// Picks the tier (position of the handler in the chain, from 0) that should work a ticket.
+public interface TicketRouter {
+
+    int route(Ticket ticket);
+
+    // True when the picked tier must work the ticket itself whatever its canHandle says;
+    // false lets the ticket walk the chain from that tier.
+    default boolean assigns() {
+        return false;
+    }
+
+}
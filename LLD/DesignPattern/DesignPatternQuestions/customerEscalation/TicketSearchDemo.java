@@ -0,0 +1,88 @@
+package DesignPattern.DesignPatternQuestions.customerEscalation;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class TicketSearchDemo {
+
+    private static final String[] COMMON_WORDS = {
+            "login", "failed", "payment", "refund", "password", "reset", "error", "timeout", "invoice",
+            "crash", "app", "slow", "page", "account", "locked", "card", "declined", "email", "not",
+            "received", "order", "missing", "update", "install", "sync", "export", "report", "chargeback",
+            "duplicate", "charge", "mobile", "browser", "network", "server", "database", "upload", "download"};
+    private static final String[] CATEGORIES = {"Technical", "Billing", "Account", "General"};
+    private static final String[] PRIORITIES = {"LOW", "MEDIUM", "HIGH", "CRITICAL"};
+
+    public static void main(String args[]) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        Random random = new Random(42);
+        TicketRepository repository = new TicketRepository();
+
+        long start = System.nanoTime();
+        Ticket[] tickets = new Ticket[count];
+        for(int i = 0; i < count; i++) {
+            tickets[i] = new Ticket(i, issue(random), CATEGORIES[random.nextInt(CATEGORIES.length)],
+                    PRIORITIES[Math.min(3, (int) (-Math.log(random.nextDouble()) * 1.2))]);
+            repository.add(tickets[i]);
+        }
+        System.out.printf("Indexed %d tickets in %d ms%n", count, (System.nanoTime() - start) / 1_000_000);
+        System.out.println(repository.indexStats());
+
+        TicketQuery[] queries = {
+                TicketQuery.allWords("payment failed"),
+                TicketQuery.allWords("login timeout").withStatus("OPEN").withPriority(Priority.HIGH),
+                TicketQuery.allWords("card declined duplicate charge"),
+                TicketQuery.allWords("account ref1234"),
+                TicketQuery.anyWords("refund chargeback"),
+                TicketQuery.everything().inCategory("Billing").withStatus("RESOLVED")};
+        run(repository, queries);
+
+        // agents resolve every third ticket; the status index follows through the listener
+        start = System.nanoTime();
+        for(int i = 0; i < count; i += 3) {
+            tickets[i].setStatus("RESOLVED");
+        }
+        System.out.printf("%nResolved %d tickets in %d ms%n", (count + 2) / 3, (System.nanoTime() - start) / 1_000_000);
+        run(repository, queries);
+
+        List<Ticket> similar = repository.search(TicketQuery.allWords("card declined").inCategory("Billing"), 3);
+        System.out.println();
+        for(Ticket ticket : similar) {
+            System.out.println("Ticket " + ticket.getTicketId() + " [" + ticket.getStatus() + "]: " + ticket.getIssue());
+        }
+    }
+
+    private static void run(TicketRepository repository, TicketQuery[] queries) {
+        for(TicketQuery query : queries) {
+            long[] times = new long[15];
+            int hits = 0;
+            for(int i = 0; i < times.length; i++) {
+                long start = System.nanoTime();
+                hits = repository.count(query);
+                times[i] = System.nanoTime() - start;
+            }
+            Arrays.sort(times);
+            System.out.printf("%-62s %8d hits, median %6.2f ms%n", query, hits, times[times.length / 2] / 1e6);
+        }
+    }
+
+    // Common support words follow a skewed distribution; one word in four is a rare reference code.
+    private static String issue(Random random) {
+        StringBuilder text = new StringBuilder();
+        int words = 5 + random.nextInt(6);
+        for(int w = 0; w < words; w++) {
+            if(w > 0) {
+                text.append(' ');
+            }
+            if(random.nextInt(4) == 0) {
+                text.append("ref").append(random.nextInt(50_000));
+            } else {
+                double skew = random.nextDouble();
+                text.append(COMMON_WORDS[(int) (skew * skew * COMMON_WORDS.length)]);
+            }
+        }
+        return text.toString();
+    }
+
+}
@@ -0,0 +1,8 @@
+package DesignPattern.DesignPatternQuestions.customerEscalation;
+
+// Observer of ticket status changes; called on the thread that changed the status.
+public interface TicketStatusListener {
+
+    void statusChanged(Ticket ticket, String oldStatus, String newStatus);
+
+}
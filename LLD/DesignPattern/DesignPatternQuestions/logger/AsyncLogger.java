@@ -0,0 +1,101 @@
+package DesignPattern.DesignPatternQuestions.logger;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Asynchronous front for a LogProcessor chain.
+ *
+ * log() only copies the level and message into a preallocated ring slot;
+ * one background thread takes the events in order and runs them through
+ * the chain, so console I/O never happens on the caller's thread. close()
+ * stops intake and drains every event already published before returning.
+ *
+ * A producer registers itself in the in-flight count before it looks at the
+ * closed flag, and the consumer only leaves once the flag is set, nobody is
+ * in flight and every claimed sequence has been read. So a log() racing
+ * with close() is either rejected or printed, never lost, and a producer
+ * waiting on a full ring is still served.
+ */
+public class AsyncLogger implements AutoCloseable {
+
+    private final LogProcessor chain;
+    private final LogRingBuffer ring;
+    private final Thread consumer;
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicInteger producersInFlight = new AtomicInteger();
+    private volatile boolean closed;
+
+    public AsyncLogger(LogProcessor chain, int capacity, WaitStrategy waitStrategy) {
+        this.chain = chain;
+        this.ring = new LogRingBuffer(capacity, waitStrategy);
+        this.consumer = new Thread(this::consume, "async-log-consumer");
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    public void log(int logLevel, String message) {
+        producersInFlight.incrementAndGet();
+        try {
+            if(closed) {
+                rejected.incrementAndGet();
+                return;
+            }
+            long sequence = ring.claim();
+            LogRingBuffer.LogEvent event = ring.slot(sequence);
+            event.level = logLevel;
+            event.message = message;
+            ring.publish(sequence);
+        } finally {
+            producersInFlight.decrementAndGet();
+        }
+    }
+
+    private void consume() {
+        WaitStrategy waitStrategy = ring.getWaitStrategy();
+        long next = 0;
+        int attempt = 0;
+        while(true) {
+            long available = ring.highestPublished(next);
+            if(available >= next) {
+                dispatch(next, available);
+                next = available + 1;
+                attempt = 0;
+            } else if(closed && producersInFlight.get() == 0 && next > ring.lastClaimed()) {
+                return;
+            } else {
+                waitStrategy.waitOnce(attempt++);
+            }
+        }
+    }
+
+    private void dispatch(long from, long to) {
+        for(long sequence = from; sequence <= to; sequence++) {
+            LogRingBuffer.LogEvent event = ring.slot(sequence);
+            try {
+                chain.log(event.level, event.message);
+            } catch (RuntimeException e) {
+                // a failing processor must not stop the consumer for everyone else
+            }
+            event.message = null;
+        }
+        ring.release(to);
+    }
+
+    // Messages logged after close() began; they are dropped, not printed.
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        ring.getWaitStrategy().signal();
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
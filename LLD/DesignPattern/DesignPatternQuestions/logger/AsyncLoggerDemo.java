@@ -0,0 +1,43 @@
+package DesignPattern.DesignPatternQuestions.logger;
+
+public class AsyncLoggerDemo {
+
+    public static void main(String args[]) throws InterruptedException {
+        LogProcessor chain = new InfoLogProcessor(new DebugLogProcessor(new ErrorLogProcessor(null)));
+        try (AsyncLogger logger = new AsyncLogger(chain, 1024, WaitStrategy.blocking())) {
+            logger.log(LogProcessor.DEBUG, " Need to Debug this");
+            logger.log(LogProcessor.ERROR, " Exception Occured");
+            logger.log(LogProcessor.INFO, " Just For Info");
+        }
+
+        int producers = 4;
+        int messagesPerProducer = 500_000;
+        String[] names = {"busySpin", "yielding", "sleeping", "blocking"};
+        WaitStrategy[] strategies = {WaitStrategy.busySpin(), WaitStrategy.yielding(), WaitStrategy.sleeping(50_000), WaitStrategy.blocking()};
+        for(int s = 0; s < strategies.length; s++) {
+            LogChainBenchmark.CountingLogProcessor sink = new LogChainBenchmark.CountingLogProcessor();
+            long start = System.nanoTime();
+            long callerNanos;
+            try (AsyncLogger logger = new AsyncLogger(sink, 16 * 1024, strategies[s])) {
+                Thread[] threads = new Thread[producers];
+                for(int p = 0; p < producers; p++) {
+                    threads[p] = new Thread(() -> {
+                        for(int i = 0; i < messagesPerProducer; i++) {
+                            logger.log(LogChainBenchmark.BENCHMARK_LEVEL, "message");
+                        }
+                    });
+                    threads[p].start();
+                }
+                for(Thread thread : threads) {
+                    thread.join();
+                }
+                callerNanos = System.nanoTime() - start;
+            }
+            long totalNanos = System.nanoTime() - start;
+            long total = (long) producers * messagesPerProducer;
+            System.out.printf("%-9s %d events, callers done in %d ms, drained in %d ms, delivered %d%n",
+                    names[s], total, callerNanos / 1_000_000, totalNanos / 1_000_000, sink.messages);
+        }
+    }
+
+}
@@ -0,0 +1,116 @@
+package DesignPattern.DesignPatternQuestions.logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.function.IntConsumer;
+import java.util.stream.Stream;
+
+/*
+ * Cost per event of formatting text (MessageTemplate and the garbage-free
+ * encoder) against recording the binary event, all into a counting sink.
+ * Then writes a binary log through MappedRollingFileSink and reads it back.
+ */
+public class BinaryLogBenchmark {
+
+    private static final int ROUNDS = 3;
+    private static final String SHIPPED = " order {} shipped";
+    private static final String FAILED = " order {} failed after {} ms";
+    private static final String CACHE = " cache state {}";
+
+    public static void main(String args[]) throws IOException {
+        LogProcessor chain = new InfoLogProcessor(new DebugLogProcessor(new ErrorLogProcessor(null)));
+        int events = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        GarbageFreeLoggerDemo.CountingSink textSink = new GarbageFreeLoggerDemo.CountingSink();
+        LogProcessor[] processors = LevelTableLogger.resolveLevels(chain);
+        GarbageFreeLoggerDemo.CountingSink encodedSink = new GarbageFreeLoggerDemo.CountingSink();
+        GarbageFreeLogger encoded = new GarbageFreeLogger(chain, encodedSink);
+        GarbageFreeLoggerDemo.CountingSink binarySink = new GarbageFreeLoggerDemo.CountingSink();
+        BinaryLogWriter binary = new BinaryLogWriter(chain, binarySink);
+        int[] ids = {binary.register(SHIPPED), binary.register(FAILED), binary.register(CACHE)};
+
+        double text = 0, garbageFree = 0, recorded = 0;
+        for(int round = 0; round < ROUNDS; round++) {
+            text = time(events, i -> formatted(processors, textSink, i));
+            garbageFree = time(events, i -> encoded(encoded, i));
+            recorded = time(events, i -> recorded(binary, ids, i));
+        }
+        long lines = 3L * events;
+        System.out.printf("text via MessageTemplate:  %6.1f ns/event, %5.1f bytes/event%n", text, textSink.bytes / (ROUNDS * (double) lines));
+        System.out.printf("text, garbage-free:        %6.1f ns/event, %5.1f bytes/event%n", garbageFree, encodedSink.bytes / (ROUNDS * (double) lines));
+        System.out.printf("binary events:             %6.1f ns/event, %5.1f bytes/event%n", recorded, binarySink.bytes / (ROUNDS * (double) lines));
+        System.out.printf("binary is %.1fx cheaper than MessageTemplate, %.1fx cheaper than garbage-free text%n",
+                text / recorded, garbageFree / recorded);
+
+        roundTrip(chain, events);
+    }
+
+    private static void formatted(LogProcessor[] processors, LogSink sink, int i) {
+        write(sink, processors[LogProcessor.INFO].prefix() + MessageTemplate.format(SHIPPED, i));
+        write(sink, processors[LogProcessor.ERROR].prefix() + MessageTemplate.format(FAILED, (long) i, i * 3L));
+        write(sink, processors[LogProcessor.DEBUG].prefix() + MessageTemplate.format(CACHE, "warm"));
+    }
+
+    private static void write(LogSink sink, String line) {
+        sink.write(ByteBuffer.wrap((line + '\n').getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static void encoded(GarbageFreeLogger logger, int i) {
+        logger.log(LogProcessor.INFO, SHIPPED, i);
+        logger.log(LogProcessor.ERROR, FAILED, (long) i, i * 3L);
+        logger.log(LogProcessor.DEBUG, CACHE, "warm");
+    }
+
+    private static void recorded(BinaryLogWriter writer, int[] ids, int i) {
+        writer.log(LogProcessor.INFO, ids[0], i);
+        writer.log(LogProcessor.ERROR, ids[1], (long) i, i * 3L);
+        writer.log(LogProcessor.DEBUG, ids[2], "warm");
+    }
+
+    private static double time(int events, IntConsumer body) {
+        long start = System.nanoTime();
+        for(int i = 0; i < events; i++) {
+            body.accept(i);
+        }
+        return (System.nanoTime() - start) / (3.0 * events);
+    }
+
+    private static void roundTrip(LogProcessor chain, int events) throws IOException {
+        Path directory = Files.createTempDirectory("binary-log");
+        try {
+            try (MappedRollingFileSink sink = new MappedRollingFileSink(directory, "app", 4 << 20, 60_000, true)) {
+                BinaryLogWriter writer = new BinaryLogWriter(chain, sink);
+                int[] ids = {writer.register(SHIPPED), writer.register(FAILED), writer.register(CACHE)};
+                for(int i = 0; i < events; i++) {
+                    recorded(writer, ids, i);
+                }
+            }
+
+            long read = 0;
+            BinaryLogEvent first = null, last = null;
+            try (BinaryLogReader reader = BinaryLogReader.open(BinaryLogDecoder.segmentsOf(directory))) {
+                BinaryLogEvent event;
+                while((event = reader.next()) != null) {
+                    if(first == null) {
+                        first = event;
+                    }
+                    last = event;
+                    read++;
+                }
+            }
+            System.out.println("Round trip through " + BinaryLogDecoder.segmentsOf(directory).size()
+                    + " compressed segments: wrote " + 3L * events + " events, read " + read);
+            System.out.println("  first: " + first);
+            System.out.println("  last:  " + last);
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+            }
+        }
+    }
+
+}
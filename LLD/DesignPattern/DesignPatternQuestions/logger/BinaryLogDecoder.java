@@ -0,0 +1,73 @@
+package DesignPattern.DesignPatternQuestions.logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/*
+ * Offline tool that turns binary logs back into text.
+ *
+ *   java DesignPattern.DesignPatternQuestions.logger.BinaryLogDecoder <file | directory>...
+ *
+ * A directory stands for all of its "-N.log" / "-N.log.gz" segments in
+ * segment order, as written by MappedRollingFileSink.
+ */
+public class BinaryLogDecoder {
+
+    public static void main(String args[]) throws IOException {
+        if(args.length == 0) {
+            System.err.println("Usage: BinaryLogDecoder <file | directory>...");
+            System.exit(1);
+        }
+        List<Path> segments = new ArrayList<>();
+        for(String arg : args) {
+            Path path = Paths.get(arg);
+            if(Files.isDirectory(path)) {
+                segments.addAll(segmentsOf(path));
+            } else {
+                segments.add(path);
+            }
+        }
+        StringBuilder out = new StringBuilder();
+        try (BinaryLogReader reader = BinaryLogReader.open(segments)) {
+            BinaryLogEvent event;
+            while((event = reader.next()) != null) {
+                out.append(event).append('\n');
+                if(out.length() > 64 * 1024) {
+                    System.out.print(out);
+                    out.setLength(0);
+                }
+            }
+        }
+        System.out.print(out);
+    }
+
+    static List<Path> segmentsOf(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segments = new ArrayList<>();
+            files.filter(file -> segmentIndex(file) >= 0).forEach(segments::add);
+            segments.sort(Comparator.comparingLong(BinaryLogDecoder::segmentIndex));
+            return segments;
+        }
+    }
+
+    private static long segmentIndex(Path file) {
+        String name = file.getFileName().toString();
+        int end = name.endsWith(".log.gz") ? name.length() - 7 : name.endsWith(".log") ? name.length() - 4 : -1;
+        int start = name.lastIndexOf('-', end) + 1;
+        if(end <= start) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(start, end));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+}
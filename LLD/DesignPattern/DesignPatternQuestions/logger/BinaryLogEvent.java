@@ -0,0 +1,52 @@
+package DesignPattern.DesignPatternQuestions.logger;
+
+import java.time.Instant;
+
+// One event read back from a binary log; text is only built by render().
+public class BinaryLogEvent {
+
+    private final long epochNanos;
+    private final int level;
+    private final String prefix;
+    private final String template;
+    private final Object[] args;
+
+    BinaryLogEvent(long epochNanos, int level, String prefix, String template, Object[] args) {
+        this.epochNanos = epochNanos;
+        this.level = level;
+        this.prefix = prefix;
+        this.template = template;
+        this.args = args;
+    }
+
+    public long getEpochNanos() {
+        return epochNanos;
+    }
+
+    public Instant getTimestamp() {
+        return Instant.ofEpochSecond(epochNanos / 1_000_000_000L, epochNanos % 1_000_000_000L);
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    public Object[] getArgs() {
+        return args.clone();
+    }
+
+    // The line the text logger would have printed for this event.
+    public String render() {
+        return prefix + MessageTemplate.format(template, args);
+    }
+
+    @Override
+    public String toString() {
+        return getTimestamp() + " " + render();
+    }
+
+}
@@ -0,0 +1,134 @@
+package DesignPattern.DesignPatternQuestions.logger;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/*
+ * Streams the events of a log written by BinaryLogWriter, one at a time.
+ * Level and template definitions are picked up as they appear; the writer
+ * repeats them at the start of every segment, so a rolled log can be read
+ * from any of its segments on. Records never span segments, so the
+ * segments are read back to back, and a zero-filled tail (a segment that
+ * was not trimmed) or a torn last record only ends its own segment.
+ */
+public class BinaryLogReader implements AutoCloseable {
+
+    private final Iterator<InputStream> segments;
+    private DataInputStream in;
+    private final Map<Integer, String> prefixes = new HashMap<>();
+    private final Map<Integer, String> templates = new HashMap<>();
+
+    public BinaryLogReader(InputStream in) {
+        this(Collections.singletonList(in));
+    }
+
+    private BinaryLogReader(List<InputStream> segments) {
+        this.segments = segments.iterator();
+        nextSegment();
+    }
+
+    // Reads the given segments in order; ".gz" segments are decompressed on the fly.
+    public static BinaryLogReader open(List<Path> segments) throws IOException {
+        List<InputStream> streams = new ArrayList<>();
+        for(Path segment : segments) {
+            InputStream stream = Files.newInputStream(segment);
+            streams.add(segment.toString().endsWith(".gz") ? new GZIPInputStream(stream, 64 * 1024) : stream);
+        }
+        return new BinaryLogReader(streams);
+    }
+
+    private void nextSegment() {
+        if(in != null) {
+            try {
+                in.close();
+            } catch (IOException e) {
+                // nothing more is read from it
+            }
+        }
+        in = segments.hasNext() ? new DataInputStream(new BufferedInputStream(segments.next(), 64 * 1024)) : null;
+    }
+
+    // Returns the next event, or null at the end of the last segment.
+    public BinaryLogEvent next() throws IOException {
+        while(in != null) {
+            int length;
+            byte[] record;
+            try {
+                length = in.readInt();
+                if(length <= 0) {
+                    nextSegment(); // zero-filled tail of a segment that was not trimmed
+                    continue;
+                }
+                record = new byte[length];
+                in.readFully(record);
+            } catch (EOFException e) {
+                nextSegment();
+                continue;
+            }
+            DataInputStream body = new DataInputStream(new ByteArrayInputStream(record));
+            byte type = body.readByte();
+            if(type == BinaryLogWriter.LEVEL) {
+                prefixes.put(body.readInt(), new String(record, 5, length - 5, StandardCharsets.UTF_8));
+            } else if(type == BinaryLogWriter.TEMPLATE) {
+                templates.put(body.readInt(), new String(record, 5, length - 5, StandardCharsets.UTF_8));
+            } else if(type == BinaryLogWriter.EVENT) {
+                return readEvent(body);
+            } else {
+                throw new IOException("Unknown record type " + type);
+            }
+        }
+        return null;
+    }
+
+    private BinaryLogEvent readEvent(DataInputStream body) throws IOException {
+        int templateId = body.readInt();
+        long epochNanos = body.readLong();
+        int level = body.readUnsignedByte();
+        Object[] args = new Object[body.readUnsignedByte()];
+        for(int i = 0; i < args.length; i++) {
+            byte tag = body.readByte();
+            if(tag == BinaryLogWriter.ARG_INT) {
+                args[i] = body.readInt();
+            } else if(tag == BinaryLogWriter.ARG_LONG) {
+                args[i] = body.readLong();
+            } else if(tag == BinaryLogWriter.ARG_DOUBLE) {
+                args[i] = body.readDouble();
+            } else if(tag == BinaryLogWriter.ARG_BOOLEAN) {
+                args[i] = body.readByte() != 0;
+            } else if(tag == BinaryLogWriter.ARG_STRING) {
+                byte[] utf8 = new byte[body.readUnsignedShort()];
+                body.readFully(utf8);
+                args[i] = new String(utf8, StandardCharsets.UTF_8);
+            } else {
+                throw new IOException("Unknown argument type " + tag);
+            }
+        }
+        String template = templates.get(templateId);
+        if(template == null) {
+            throw new IOException("Event refers to undefined template " + templateId);
+        }
+        return new BinaryLogEvent(epochNanos, level, prefixes.getOrDefault(level, ""), template, args);
+    }
+
+    @Override
+    public void close() throws IOException {
+        while(in != null) {
+            nextSegment();
+        }
+    }
+
+}
@@ -0,0 +1,222 @@
+package DesignPattern.DesignPatternQuestions.logger;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Binary event mode for the logger: instead of formatting text, each call
+ * writes the template id, a timestamp, the level and the raw argument values.
+ * Text is only produced when the log is read (BinaryLogReader).
+ *
+ * The stream is self-describing. Every record is
+ *     int length | byte type | body
+ * where the body of
+ *     LEVEL    is  int level | UTF-8 prefix of the processor for that level
+ *     TEMPLATE is  int id | UTF-8 template with {} placeholders
+ *     EVENT    is  int templateId | long epochNanos | byte level | byte argCount | args
+ * and each argument is a type tag followed by an int, long, double,
+ * boolean or a short-length-prefixed UTF-8 string. Level and template
+ * definitions are written before the first event that refers to them, and
+ * all of them again at the start of every file a rolling sink moves on to,
+ * so each segment can be decoded on its own. One writer per sink.
+ *
+ * An event is encoded in a per-thread buffer of MAX_EVENT_BYTES and takes
+ * at most MAX_ARGS arguments; more arguments are rejected, and strings are
+ * cut short so that the event fits.
+ *
+ * Timestamps come from the millisecond CoarseClock by default; pass
+ * preciseTimestamps to read System.nanoTime per event instead.
+ */
+public class BinaryLogWriter {
+
+    static final byte LEVEL = 1;
+    static final byte TEMPLATE = 2;
+    static final byte EVENT = 3;
+
+    static final byte ARG_INT = 1;
+    static final byte ARG_LONG = 2;
+    static final byte ARG_DOUBLE = 3;
+    static final byte ARG_BOOLEAN = 4;
+    static final byte ARG_STRING = 5;
+
+    static final int MAX_ARGS = 255;
+    static final int MAX_EVENT_BYTES = 4096;
+    // the largest encoding of a non-string argument; a string takes at least 3 bytes
+    private static final int MAX_ARG_BYTES = 9;
+
+    private static final ThreadLocal<ByteBuffer> BUFFERS = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(MAX_EVENT_BYTES));
+
+    private final boolean[] enabled;
+    private final LogSink sink;
+    private final Map<String, Integer> templateIds = new ConcurrentHashMap<>();
+    private final boolean preciseTimestamps;
+    private final long epochNanosAtStart = System.currentTimeMillis() * 1_000_000L;
+    private final long nanoTimeAtStart = System.nanoTime();
+    // every definition written so far, replaced as a whole when one is added
+    private volatile ByteBuffer definitions = ByteBuffer.allocate(0);
+
+    public BinaryLogWriter(LogProcessor chain, LogSink sink) {
+        this(chain, sink, false);
+    }
+
+    public BinaryLogWriter(LogProcessor chain, LogSink sink, boolean preciseTimestamps) {
+        this.sink = sink;
+        this.preciseTimestamps = preciseTimestamps;
+        sink.setRollHeader(() -> definitions.duplicate());
+        LogProcessor[] processors = LevelTableLogger.resolveLevels(chain);
+        this.enabled = new boolean[processors.length];
+        for(int level = 0; level < processors.length; level++) {
+            if(processors[level] != null) {
+                enabled[level] = true;
+                writeDefinition(LEVEL, level, processors[level].prefix());
+            }
+        }
+    }
+
+    // Register each template once (e.g. into a static final int) and log with its id.
+    public int register(String template) {
+        Integer id = templateIds.get(template);
+        if(id != null) {
+            return id;
+        }
+        synchronized (templateIds) {
+            id = templateIds.get(template);
+            if(id == null) {
+                id = templateIds.size();
+                writeDefinition(TEMPLATE, id, template);
+                templateIds.put(template, id);
+            }
+            return id;
+        }
+    }
+
+    // Callers hold the templateIds lock or are the constructor. The definition joins the roll
+    // header before it is written, so a roll can only repeat it, never leave it out.
+    private void writeDefinition(byte type, int key, String text) {
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(4 + 1 + 4 + utf8.length);
+        record.putInt(1 + 4 + utf8.length).put(type).putInt(key).put(utf8).flip();
+        ByteBuffer old = definitions;
+        definitions = ByteBuffer.allocate(old.capacity() + record.remaining()).put(old.duplicate()).put(record.duplicate()).flip();
+        sink.write(record);
+    }
+
+    public boolean isEnabled(int logLevel) {
+        return logLevel >= 0 && logLevel < enabled.length && enabled[logLevel];
+    }
+
+    public void log(int logLevel, int templateId) {
+        if(isEnabled(logLevel)) {
+            finish(begin(logLevel, templateId, 0));
+        }
+    }
+
+    public void log(int logLevel, int templateId, int arg) {
+        if(isEnabled(logLevel)) {
+            ByteBuffer buffer = begin(logLevel, templateId, 1);
+            buffer.put(ARG_INT).putInt(arg);
+            finish(buffer);
+        }
+    }
+
+    public void log(int logLevel, int templateId, long arg) {
+        if(isEnabled(logLevel)) {
+            ByteBuffer buffer = begin(logLevel, templateId, 1);
+            buffer.put(ARG_LONG).putLong(arg);
+            finish(buffer);
+        }
+    }
+
+    public void log(int logLevel, int templateId, long arg1, long arg2) {
+        if(isEnabled(logLevel)) {
+            ByteBuffer buffer = begin(logLevel, templateId, 2);
+            buffer.put(ARG_LONG).putLong(arg1);
+            buffer.put(ARG_LONG).putLong(arg2);
+            finish(buffer);
+        }
+    }
+
+    public void log(int logLevel, int templateId, double arg) {
+        if(isEnabled(logLevel)) {
+            ByteBuffer buffer = begin(logLevel, templateId, 1);
+            buffer.put(ARG_DOUBLE).putDouble(arg);
+            finish(buffer);
+        }
+    }
+
+    public void log(int logLevel, int templateId, CharSequence arg) {
+        if(isEnabled(logLevel)) {
+            ByteBuffer buffer = begin(logLevel, templateId, 1);
+            putString(buffer, arg, 0);
+            finish(buffer);
+        }
+    }
+
+    public void log(int logLevel, int templateId, Object... args) {
+        if(!isEnabled(logLevel)) {
+            return;
+        }
+        if(args.length > MAX_ARGS) {
+            throw new IllegalArgumentException("A binary log event takes at most " + MAX_ARGS + " arguments, got " + args.length);
+        }
+        ByteBuffer buffer = begin(logLevel, templateId, args.length);
+        for(int i = 0; i < args.length; i++) {
+            Object arg = args[i];
+            if(arg instanceof Integer || arg instanceof Short || arg instanceof Byte) {
+                buffer.put(ARG_INT).putInt(((Number) arg).intValue());
+            } else if(arg instanceof Long) {
+                buffer.put(ARG_LONG).putLong((Long) arg);
+            } else if(arg instanceof Double || arg instanceof Float) {
+                buffer.put(ARG_DOUBLE).putDouble(((Number) arg).doubleValue());
+            } else if(arg instanceof Boolean) {
+                buffer.put(ARG_BOOLEAN).put((byte) ((Boolean) arg ? 1 : 0));
+            } else {
+                // leave room for the arguments still to come
+                putString(buffer, arg instanceof CharSequence ? (CharSequence) arg : String.valueOf(arg), (args.length - 1 - i) * MAX_ARG_BYTES);
+            }
+        }
+        finish(buffer);
+    }
+
+    private ByteBuffer begin(int logLevel, int templateId, int argCount) {
+        ByteBuffer buffer = BUFFERS.get();
+        buffer.clear();
+        buffer.putInt(0).put(EVENT).putInt(templateId)
+                .putLong(preciseTimestamps ? epochNanosAtStart + (System.nanoTime() - nanoTimeAtStart) : CoarseClock.epochNanos())
+                .put((byte) logLevel).put((byte) argCount);
+        return buffer;
+    }
+
+    private void finish(ByteBuffer buffer) {
+        buffer.putInt(0, buffer.position() - 4);
+        buffer.flip();
+        sink.write(buffer);
+    }
+
+    // Cut off after as many chars as fit with reserve bytes to spare, at up to 3 bytes a char.
+    private static void putString(ByteBuffer buffer, CharSequence text, int reserve) {
+        buffer.put(ARG_STRING);
+        int lengthAt = buffer.position();
+        buffer.putShort((short) 0);
+        int limit = Math.max(0, Math.min(text.length(), (buffer.remaining() - reserve) / 3));
+        for(int i = 0; i < limit; i++) {
+            char c = text.charAt(i);
+            if(c < 0x80) {
+                buffer.put((byte) c);
+            } else if(c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if(Character.isSurrogate(c)) {
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+        buffer.putShort(lengthAt, (short) (buffer.position() - lengthAt - 2));
+    }
+
+}
@@ -0,0 +1,32 @@
+package DesignPattern.DesignPatternQuestions.logger;
+
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Millisecond wall clock refreshed by one daemon thread, so a log call pays a
+ * volatile read instead of a System.nanoTime or currentTimeMillis call, which
+ * can cost more than the rest of the call on virtualised hosts.
+ */
+final class CoarseClock {
+
+    private static volatile long epochNanos = System.currentTimeMillis() * 1_000_000L;
+
+    static {
+        Thread ticker = new Thread(() -> {
+            while(true) {
+                epochNanos = System.currentTimeMillis() * 1_000_000L;
+                LockSupport.parkNanos(1_000_000L);
+            }
+        }, "log-coarse-clock");
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+
+    private CoarseClock() {
+    }
+
+    static long epochNanos() {
+        return epochNanos;
+    }
+
+}
@@ -0,0 +1,54 @@
+package DesignPattern.DesignPatternQuestions.logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/*
+ * A configured LogProcessor chain flattened into arrays: the level of every
+ * link sits in an int[] and the search is a plain loop, so only the one
+ * processor that prints is called. The result is a snapshot of the chain;
+ * compile again if the chain is rebuilt.
+ */
+public final class CompiledLogChain {
+
+    private final int[] levels;
+    private final LogProcessor[] processors;
+
+    private CompiledLogChain(List<LogProcessor> chain) {
+        levels = new int[chain.size()];
+        processors = new LogProcessor[chain.size()];
+        for(int i = 0; i < levels.length; i++) {
+            processors[i] = chain.get(i);
+            levels[i] = processors[i].handledLevel();
+        }
+    }
+
+    public static CompiledLogChain compile(LogProcessor head) {
+        List<LogProcessor> chain = new ArrayList<>();
+        Set<LogProcessor> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for(LogProcessor processor = head; processor != null; processor = processor.getNextLogProcessor()) {
+            if(!seen.add(processor)) {
+                throw new IllegalArgumentException("Log processor chain contains a cycle");
+            }
+            chain.add(processor);
+        }
+        return new CompiledLogChain(chain);
+    }
+
+    public void log(int logLevel, String message) {
+        for(int i = 0; i < levels.length; i++) {
+            if(levels[i] == logLevel) {
+                processors[i].write(message);
+                return;
+            }
+        }
+    }
+
+    public int size() {
+        return levels.length;
+    }
+
+}
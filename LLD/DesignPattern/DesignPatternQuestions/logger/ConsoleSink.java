@@ -0,0 +1,26 @@
+package DesignPattern.DesignPatternQuestions.logger;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+// Writes encoded lines straight to the stdout file descriptor.
+public class ConsoleSink implements LogSink {
+
+    private final FileChannel out = new FileOutputStream(FileDescriptor.out).getChannel();
+
+    @Override
+    public synchronized void write(ByteBuffer lines) {
+        try {
+            while(lines.hasRemaining()) {
+                out.write(lines);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
@@ -1,19 +1,19 @@
 package DesignPattern.DesignPatternQuestions.logger;
 
 public class DebugLogProcessor extends LogProcessor{
-    
-    DebugLogProcessor(LogProcessor nexLogProcessor){
+
+    DebugLogProcessor(LogProcessor nexLogProcessor) {
         super(nexLogProcessor);
     }
 
-    public void log(int logLevel, String message){
-        if(logLevel == DEBUG){
-            System.out.println("INFO :" + message);
-        }
-        else {
-            super.log(logLevel, message);
-        }
+    @Override
+    int handledLevel() {
+        return DEBUG;
     }
 
+    @Override
+    String prefix() {
+        return "INFO :";
+    }
     
 }
@@ -2,17 +2,18 @@ package DesignPattern.DesignPatternQuestions.logger;
 
 public class ErrorLogProcessor extends LogProcessor{
 
-    ErrorLogProcessor(LogProcessor nexLogProcessor){
+    ErrorLogProcessor(LogProcessor nexLogProcessor) {
         super(nexLogProcessor);
     }
 
-    public void log(int logLevel, String message){
-        if(logLevel == ERROR){
-            System.out.println("INFO :" + message);
-        }
-        else {
-            super.log(logLevel, message);
-        }
+    @Override
+    int handledLevel() {
+        return ERROR;
+    }
+
+    @Override
+    String prefix() {
+        return "INFO :";
     }
     
 }
@@ -0,0 +1,92 @@
+package DesignPattern.DesignPatternQuestions.logger;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/*
+ * Four threads log a burst to console (errors only), a mapped file and a
+ * local collector that reads slowly. The collector falls behind and drops
+ * its oldest events; the file and the callers keep going at full speed.
+ */
+public class FanOutDemo {
+
+    public static void main(String args[]) throws Exception {
+        LogProcessor chain = new InfoLogProcessor(new DebugLogProcessor(new ErrorLogProcessor(null)));
+        Path directory = Files.createTempDirectory("fan-out-log");
+        AtomicLong collected = new AtomicLong();
+
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress("127.0.0.1", 0));
+            Thread collector = new Thread(() -> slowCollector(server, collected), "slow-collector");
+            collector.setDaemon(true);
+            collector.start();
+
+            FanOutLogDispatcher dispatcher = new FanOutLogDispatcher(chain);
+            dispatcher.addSink("console", new ConsoleSink(), 1024, OverflowPolicy.DROP_NEWEST, LogProcessor.ERROR);
+            dispatcher.addSink("file", new MappedRollingFileSink(directory, "app", 16 << 20, 60_000, false), 65_536, OverflowPolicy.BLOCK);
+            dispatcher.addSink("collector", new SocketSink((InetSocketAddress) server.getLocalAddress(), 1000), 10_000, OverflowPolicy.DROP_OLDEST);
+
+            int threads = 4;
+            int perThread = 250_000;
+            Thread[] producers = new Thread[threads];
+            long start = System.nanoTime();
+            for(int t = 0; t < threads; t++) {
+                int id = t;
+                producers[t] = new Thread(() -> {
+                    for(int i = 0; i < perThread; i++) {
+                        if(i % 100_000 == 0) {
+                            dispatcher.log(LogProcessor.ERROR, " producer " + id + " reached " + i);
+                        } else {
+                            dispatcher.log(LogProcessor.INFO, " producer " + id + " event " + i);
+                        }
+                    }
+                });
+                producers[t].start();
+            }
+            for(Thread producer : producers) {
+                producer.join();
+            }
+            long elapsed = System.nanoTime() - start;
+
+            System.out.printf("Callers logged %d events in %d ms (%.0f ns per event)%n",
+                    (long) threads * perThread, elapsed / 1_000_000, elapsed / (double) (threads * perThread));
+            System.out.println("Right after the burst:");
+            for(FanOutLogDispatcher.SinkChannel sink : dispatcher.getSinks()) {
+                System.out.printf("  %s, lag now %.1f ms%n", sink, sink.getLagNanos() / 1e6);
+            }
+            dispatcher.close();
+            System.out.println("After close:");
+            for(FanOutLogDispatcher.SinkChannel sink : dispatcher.getSinks()) {
+                System.out.println("  " + sink);
+            }
+            System.out.println("Collector has read " + collected.get() / 1024 + " KB so far");
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+            }
+        }
+    }
+
+    // Reads at most 64 KB every millisecond, far slower than the producers.
+    private static void slowCollector(ServerSocketChannel server, AtomicLong collected) {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        try (SocketChannel connection = server.accept()) {
+            while(connection.read(buffer) >= 0) {
+                collected.addAndGet(buffer.position());
+                buffer.clear();
+                Thread.sleep(1);
+            }
+        } catch (IOException | InterruptedException e) {
+            // the demo is over
+        }
+    }
+
+}
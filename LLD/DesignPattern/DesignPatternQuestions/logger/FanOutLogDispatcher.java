@@ -0,0 +1,276 @@
+package DesignPattern.DesignPatternQuestions.logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Sends every log event to several sinks (console, files, a collector socket)
+ * without letting one slow sink hold up the others.
+ *
+ * Each sink gets its own bounded queue and consumer thread. log() builds one
+ * immutable event and offers it to every queue; what happens when a queue is
+ * full is the sink's OverflowPolicy, so only a BLOCK sink can ever make the
+ * caller wait. A consumer drains whatever has queued up, encodes the batch
+ * into its own buffer and hands it to the sink in one write.
+ *
+ * Per sink the dispatcher counts enqueued, written and dropped events and
+ * how old the oldest waiting event is (lag).
+ *
+ * log() counts itself in flight while it offers an event, and a consumer
+ * only stops once the dispatcher is closed, no log() is in flight and its
+ * queue is empty, so an event accepted before close() is always written.
+ */
+public class FanOutLogDispatcher implements AutoCloseable {
+
+    private static final int MAX_BATCH = 256;
+
+    private final String[] prefixes;
+    private final List<SinkChannel> channels = new CopyOnWriteArrayList<>();
+    private final AtomicInteger producersInFlight = new AtomicInteger();
+    private volatile boolean closed;
+
+    public FanOutLogDispatcher(LogProcessor chain) {
+        LogProcessor[] processors = LevelTableLogger.resolveLevels(chain);
+        this.prefixes = new String[processors.length];
+        for(int level = 0; level < processors.length; level++) {
+            prefixes[level] = processors[level] == null ? null : processors[level].prefix();
+        }
+    }
+
+    // levels limits the sink to those levels; none means every level of the chain.
+    public synchronized SinkChannel addSink(String name, LogSink sink, int capacity, OverflowPolicy policy, int... levels) {
+        if(closed) {
+            throw new IllegalStateException("Dispatcher is closed");
+        }
+        SinkChannel channel = new SinkChannel(name, sink, capacity, policy, levels);
+        channels.add(channel);
+        channel.consumer.start();
+        return channel;
+    }
+
+    public void log(int logLevel, String message) {
+        if(logLevel < 0 || logLevel >= prefixes.length || prefixes[logLevel] == null) {
+            return;
+        }
+        producersInFlight.incrementAndGet();
+        try {
+            // checked after counting in, so a consumer that sees no one in flight has seen every event
+            if(closed) {
+                return;
+            }
+            Event event = new Event(logLevel, message, CoarseClock.epochNanos());
+            for(SinkChannel channel : channels) {
+                channel.offer(event);
+            }
+        } finally {
+            producersInFlight.decrementAndGet();
+        }
+    }
+
+    public List<SinkChannel> getSinks() {
+        return new ArrayList<>(channels);
+    }
+
+    // Stops intake, lets every consumer write out its queue and closes the sinks.
+    // Every sink is closed even if one fails; the first failure is thrown.
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            closed = true;
+        }
+        try {
+            for(SinkChannel channel : channels) {
+                channel.consumer.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        IOException failure = null;
+        for(SinkChannel channel : channels) {
+            if(channel.sink instanceof AutoCloseable) {
+                try {
+                    ((AutoCloseable) channel.sink).close();
+                } catch (Exception e) {
+                    IOException closeFailure = e instanceof IOException ? (IOException) e : new IOException("Log sink " + channel.name + " failed to close", e);
+                    if(failure == null) {
+                        failure = closeFailure;
+                    } else {
+                        failure.addSuppressed(closeFailure);
+                    }
+                }
+            }
+        }
+        if(failure != null) {
+            throw failure;
+        }
+    }
+
+    private static class Event {
+
+        final int level;
+        final String message;
+        final long enqueuedAt;
+
+        Event(int level, String message, long enqueuedAt) {
+            this.level = level;
+            this.message = message;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    public class SinkChannel {
+
+        private final String name;
+        private final LogSink sink;
+        private final OverflowPolicy policy;
+        private final boolean[] levels;
+        private final ArrayBlockingQueue<Event> queue;
+        private final Thread consumer;
+        private final AtomicLong enqueued = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private volatile long written;
+        private volatile long maxLagNanos;
+
+        SinkChannel(String name, LogSink sink, int capacity, OverflowPolicy policy, int[] levels) {
+            this.name = name;
+            this.sink = sink;
+            this.policy = policy;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.levels = new boolean[prefixes.length];
+            for(int level = 0; level < prefixes.length; level++) {
+                this.levels[level] = levels.length == 0;
+            }
+            for(int level : levels) {
+                if(level >= 0 && level < prefixes.length) {
+                    this.levels[level] = true;
+                }
+            }
+            this.consumer = new Thread(this::consume, "log-sink-" + name);
+            this.consumer.setDaemon(true);
+        }
+
+        private void offer(Event event) {
+            if(!levels[event.level]) {
+                return;
+            }
+            enqueued.incrementAndGet();
+            if(policy == OverflowPolicy.BLOCK) {
+                try {
+                    // a consumer that died would never make room
+                    while(!queue.offer(event, 50, TimeUnit.MILLISECONDS)) {
+                        if(!consumer.isAlive()) {
+                            dropped.incrementAndGet();
+                            return;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    dropped.incrementAndGet();
+                    Thread.currentThread().interrupt();
+                }
+            } else if(policy == OverflowPolicy.DROP_NEWEST) {
+                if(!queue.offer(event)) {
+                    dropped.incrementAndGet();
+                }
+            } else {
+                while(!queue.offer(event)) {
+                    if(queue.poll() != null) {
+                        dropped.incrementAndGet();
+                    }
+                }
+            }
+        }
+
+        private void consume() {
+            LogLineEncoder encoder = new LogLineEncoder();
+            List<Event> batch = new ArrayList<>(MAX_BATCH);
+            while(true) {
+                Event first;
+                try {
+                    first = queue.poll(50, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    continue;
+                }
+                if(first == null) {
+                    if(closed && producersInFlight.get() == 0 && queue.isEmpty()) {
+                        return;
+                    }
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                write(encoder, batch);
+                batch.clear();
+            }
+        }
+
+        private void write(LogLineEncoder encoder, List<Event> batch) {
+            long lag = CoarseClock.epochNanos() - batch.get(0).enqueuedAt;
+            if(lag > maxLagNanos) {
+                maxLagNanos = lag;
+            }
+            StringBuilder text = encoder.begin("");
+            for(int i = 0; i < batch.size(); i++) {
+                Event event = batch.get(i);
+                if(i > 0) {
+                    text.append('\n');
+                }
+                text.append(prefixes[event.level]).append(event.message);
+            }
+            ByteBuffer lines = encoder.encode();
+            try {
+                sink.write(lines);
+            } catch (RuntimeException e) {
+                System.err.println("Log sink " + name + " failed: " + e);
+            }
+            written += batch.size();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public OverflowPolicy getPolicy() {
+            return policy;
+        }
+
+        public long getEnqueued() {
+            return enqueued.get();
+        }
+
+        public long getWritten() {
+            return written;
+        }
+
+        public long getDropped() {
+            return dropped.get();
+        }
+
+        public int getBacklog() {
+            return queue.size();
+        }
+
+        // Age of the oldest event still waiting for this sink, 0 when it is caught up.
+        public long getLagNanos() {
+            Event oldest = queue.peek();
+            return oldest == null ? 0 : Math.max(0, CoarseClock.epochNanos() - oldest.enqueuedAt);
+        }
+
+        public long getMaxLagNanos() {
+            return maxLagNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-10s %-11s enqueued %9d, written %9d, dropped %9d, backlog %6d, max lag %6.1f ms",
+                    name, policy, getEnqueued(), getWritten(), getDropped(), getBacklog(), maxLagNanos / 1e6);
+        }
+    }
+
+}
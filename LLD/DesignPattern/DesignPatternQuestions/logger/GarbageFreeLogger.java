@@ -0,0 +1,105 @@
+package DesignPattern.DesignPatternQuestions.logger;
+
+/*
+ * Logging path that allocates nothing per event once warmed up.
+ *
+ * The prefix of each level comes from the chain the logger was built from.
+ * The line is assembled in a thread-local StringBuilder, primitive arguments
+ * are appended without boxing, and the text is encoded into a thread-local
+ * direct ByteBuffer that is handed to the sink. Arguments that are not
+ * CharSequences or primitives go through String.valueOf and may allocate.
+ */
+public class GarbageFreeLogger {
+
+    private static final ThreadLocal<LogLineEncoder> ENCODERS = ThreadLocal.withInitial(LogLineEncoder::new);
+
+    private final String[] prefixes;
+    private final LogSink sink;
+
+    public GarbageFreeLogger(LogProcessor chain, LogSink sink) {
+        LogProcessor[] processors = LevelTableLogger.resolveLevels(chain);
+        this.prefixes = new String[processors.length];
+        for(int level = 0; level < processors.length; level++) {
+            prefixes[level] = processors[level] == null ? null : processors[level].prefix();
+        }
+        this.sink = sink;
+    }
+
+    public boolean isEnabled(int logLevel) {
+        return logLevel >= 0 && logLevel < prefixes.length && prefixes[logLevel] != null;
+    }
+
+    public void log(int logLevel, CharSequence message) {
+        if(!isEnabled(logLevel)) {
+            return;
+        }
+        LogLineEncoder encoder = ENCODERS.get();
+        encoder.begin(prefixes[logLevel]).append(message);
+        sink.write(encoder.encode());
+    }
+
+    public void log(int logLevel, String template, int arg) {
+        if(!isEnabled(logLevel)) {
+            return;
+        }
+        LogLineEncoder encoder = ENCODERS.get();
+        StringBuilder line = encoder.begin(prefixes[logLevel]);
+        int next = LogLineEncoder.appendUntilPlaceholder(line, template, 0);
+        if(next >= 0) {
+            line.append(arg);
+        }
+        LogLineEncoder.appendRest(line, template, next);
+        sink.write(encoder.encode());
+    }
+
+    public void log(int logLevel, String template, long arg) {
+        if(!isEnabled(logLevel)) {
+            return;
+        }
+        LogLineEncoder encoder = ENCODERS.get();
+        StringBuilder line = encoder.begin(prefixes[logLevel]);
+        int next = LogLineEncoder.appendUntilPlaceholder(line, template, 0);
+        if(next >= 0) {
+            line.append(arg);
+        }
+        LogLineEncoder.appendRest(line, template, next);
+        sink.write(encoder.encode());
+    }
+
+    public void log(int logLevel, String template, long arg1, long arg2) {
+        if(!isEnabled(logLevel)) {
+            return;
+        }
+        LogLineEncoder encoder = ENCODERS.get();
+        StringBuilder line = encoder.begin(prefixes[logLevel]);
+        int next = LogLineEncoder.appendUntilPlaceholder(line, template, 0);
+        if(next >= 0) {
+            line.append(arg1);
+            next = LogLineEncoder.appendUntilPlaceholder(line, template, next);
+            if(next >= 0) {
+                line.append(arg2);
+            }
+        }
+        LogLineEncoder.appendRest(line, template, next);
+        sink.write(encoder.encode());
+    }
+
+    public void log(int logLevel, String template, CharSequence arg) {
+        if(!isEnabled(logLevel)) {
+            return;
+        }
+        LogLineEncoder encoder = ENCODERS.get();
+        StringBuilder line = encoder.begin(prefixes[logLevel]);
+        int next = LogLineEncoder.appendUntilPlaceholder(line, template, 0);
+        if(next >= 0) {
+            line.append(arg);
+        }
+        LogLineEncoder.appendRest(line, template, next);
+        sink.write(encoder.encode());
+    }
+
+    public void log(int logLevel, String template, Object arg) {
+        log(logLevel, template, arg instanceof CharSequence ? (CharSequence) arg : String.valueOf(arg));
+    }
+
+}
@@ -0,0 +1,54 @@
+package DesignPattern.DesignPatternQuestions.logger;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+
+public class GarbageFreeLoggerDemo {
+
+    public static void main(String args[]) {
+        LogProcessor chain = new InfoLogProcessor(new DebugLogProcessor(new ErrorLogProcessor(null)));
+
+        GarbageFreeLogger console = new GarbageFreeLogger(chain, new ConsoleSink());
+        console.log(LogProcessor.DEBUG, " Need to Debug this");
+        console.log(LogProcessor.ERROR, " Exception Occured in order {} after {} ms", 4711L, 35L);
+        console.log(LogProcessor.INFO, " Just For Info: {} orders", 12);
+
+        CountingSink counting = new CountingSink();
+        GarbageFreeLogger logger = new GarbageFreeLogger(chain, counting);
+        int events = 1_000_000;
+        for(int i = 0; i < events; i++) {
+            writeEvent(logger, i); // warm-up
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for(int i = 0; i < events; i++) {
+            writeEvent(logger, i);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        long lines = 3L * events;
+        System.out.printf("%d events, %.1f ns/event, %d bytes encoded, %.3f bytes allocated per event%n",
+                lines, elapsed / (double) lines, counting.bytes, allocated / (double) lines);
+    }
+
+    private static void writeEvent(GarbageFreeLogger logger, int i) {
+        logger.log(LogProcessor.INFO, " order {} shipped", i);
+        logger.log(LogProcessor.ERROR, " order {} failed after {} ms", (long) i, i * 3L);
+        logger.log(LogProcessor.DEBUG, " cache state {}", "warm");
+    }
+
+    static class CountingSink implements LogSink {
+
+        long bytes;
+
+        @Override
+        public void write(ByteBuffer lines) {
+            bytes += lines.remaining();
+            lines.position(lines.limit());
+        }
+    }
+
+}
@@ -7,13 +7,13 @@ public class InfoLogProcessor extends LogProcessor{
     }
 
     @Override
-    public void log(int logLevel, String message) {
-        if(logLevel == INFO) {
-            System.out.println("Info :" + message);
-        }
-        else {
-            super.log(logLevel, message);
-        }
+    int handledLevel() {
+        return INFO;
+    }
+
+    @Override
+    String prefix() {
+        return "Info :";
     }
     
 }
@@ -0,0 +1,48 @@
+package DesignPattern.DesignPatternQuestions.logger;
+
+public class LevelTableDemo {
+
+    private static final int CALLS = 20_000_000;
+
+    public static void main(String args[]) {
+        LogProcessor chain = new InfoLogProcessor(new DebugLogProcessor(new ErrorLogProcessor(null)));
+        LevelTableLogger logger = LevelTableLogger.from(chain);
+
+        logger.log(LogProcessor.DEBUG, " Need to Debug this");
+        logger.log(LogProcessor.ERROR, " Exception Occured in order {}", 42);
+        logger.log(LogProcessor.INFO, () -> " Just For Info");
+
+        logger.setLevelEnabled(LogProcessor.DEBUG, false);
+        logger.log(LogProcessor.DEBUG, " not printed");
+        System.out.println("DEBUG enabled: " + logger.isEnabled(LogProcessor.DEBUG));
+
+        // cost of a call at a disabled level
+        for(int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            for(int i = 0; i < CALLS; i++) {
+                chain.log(99, " order " + i + " state " + (i & 7));
+            }
+            long eager = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for(int i = 0; i < CALLS; i++) {
+                int order = i;
+                logger.log(LogProcessor.DEBUG, () -> " order " + order + " state " + (order & 7));
+            }
+            long lazy = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for(int i = 0; i < CALLS; i++) {
+                logger.log(LogProcessor.DEBUG, " order {} state {}", i, i & 7);
+            }
+            long template = System.nanoTime() - start;
+
+            System.out.printf("disabled call: chain with eager message %.2f ns, table with supplier %.2f ns, table with template %.2f ns%n",
+                    eager / (double) CALLS, lazy / (double) CALLS, template / (double) CALLS);
+        }
+
+        logger.setLevelEnabled(LogProcessor.DEBUG, true);
+        logger.log(LogProcessor.DEBUG, " Debug is back on");
+    }
+
+}
@@ -0,0 +1,125 @@
+package DesignPattern.DesignPatternQuestions.logger;
+
+import java.util.function.Supplier;
+
+/*
+ * Logger that resolves the processor for a level with one array lookup.
+ *
+ * The table is built once from a chain: entry [level] is the first processor
+ * in chain order that handles the level, so output is the same as walking
+ * the chain. A disabled level has a null entry. The table is immutable and
+ * swapped as a whole when a level is switched, so the hot path is one
+ * volatile read, one array load and one null check, and a level change
+ * reaches every thread on its next call without any lock on the hot path.
+ *
+ * Use the Supplier and template overloads so that a disabled level does not
+ * even build its message. Template arguments of type int, long and double
+ * have their own overloads, so a disabled call does not box them either.
+ */
+public class LevelTableLogger {
+
+    private final LogProcessor[] resolved;
+    private volatile LogProcessor[] table;
+
+    private LevelTableLogger(LogProcessor[] resolved) {
+        this.resolved = resolved;
+        this.table = resolved.clone();
+    }
+
+    public static LevelTableLogger from(LogProcessor chain) {
+        return new LevelTableLogger(resolveLevels(chain));
+    }
+
+    // Entry [level] is the first processor in the chain that handles level.
+    static LogProcessor[] resolveLevels(LogProcessor chain) {
+        int maxLevel = -1;
+        for(LogProcessor processor = chain; processor != null; processor = processor.getNextLogProcessor()) {
+            maxLevel = Math.max(maxLevel, processor.handledLevel());
+        }
+        LogProcessor[] resolved = new LogProcessor[maxLevel + 1];
+        for(LogProcessor processor = chain; processor != null; processor = processor.getNextLogProcessor()) {
+            int level = processor.handledLevel();
+            if(level >= 0 && resolved[level] == null) {
+                resolved[level] = processor;
+            }
+        }
+        return resolved;
+    }
+
+    public boolean isEnabled(int logLevel) {
+        LogProcessor[] current = table;
+        return logLevel >= 0 && logLevel < current.length && current[logLevel] != null;
+    }
+
+    public void log(int logLevel, String message) {
+        LogProcessor processor = target(logLevel);
+        if(processor != null) {
+            processor.write(message);
+        }
+    }
+
+    public void log(int logLevel, Supplier<String> message) {
+        LogProcessor processor = target(logLevel);
+        if(processor != null) {
+            processor.write(message.get());
+        }
+    }
+
+    public void log(int logLevel, String template, long arg) {
+        LogProcessor processor = target(logLevel);
+        if(processor != null) {
+            processor.write(MessageTemplate.format(template, arg));
+        }
+    }
+
+    public void log(int logLevel, String template, double arg) {
+        LogProcessor processor = target(logLevel);
+        if(processor != null) {
+            processor.write(MessageTemplate.format(template, arg));
+        }
+    }
+
+    public void log(int logLevel, String template, long arg1, long arg2) {
+        LogProcessor processor = target(logLevel);
+        if(processor != null) {
+            processor.write(MessageTemplate.format(template, arg1, arg2));
+        }
+    }
+
+    public void log(int logLevel, String template, Object arg) {
+        LogProcessor processor = target(logLevel);
+        if(processor != null) {
+            processor.write(MessageTemplate.format(template, arg));
+        }
+    }
+
+    public void log(int logLevel, String template, Object arg1, Object arg2) {
+        LogProcessor processor = target(logLevel);
+        if(processor != null) {
+            processor.write(MessageTemplate.format(template, arg1, arg2));
+        }
+    }
+
+    public void log(int logLevel, String template, Object... args) {
+        LogProcessor processor = target(logLevel);
+        if(processor != null) {
+            processor.write(MessageTemplate.format(template, args));
+        }
+    }
+
+    private LogProcessor target(int logLevel) {
+        LogProcessor[] current = table;
+        return logLevel >= 0 && logLevel < current.length ? current[logLevel] : null;
+    }
+
+    // Copy-on-write: builds the new table and publishes it with one volatile store.
+    public synchronized void setLevelEnabled(int logLevel, boolean enabled) {
+        if(logLevel < 0 || logLevel >= resolved.length || resolved[logLevel] == null) {
+            return;
+        }
+        LogProcessor[] updated = table.clone();
+        updated[logLevel] = enabled ? resolved[logLevel] : null;
+        table = updated;
+    }
+
+}
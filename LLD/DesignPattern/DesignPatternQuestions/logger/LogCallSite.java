@@ -0,0 +1,25 @@
+package DesignPattern.DesignPatternQuestions.logger;
+
+// One place in the code that logs, with its own limit; keep it in a static
+// final field. Created through RateLimitedLogger.callSite.
+public final class LogCallSite {
+
+    private final String name;
+    private final int level;
+    final LogThrottle throttle;
+
+    LogCallSite(String name, int level, LogRateLimit limit) {
+        this.name = name;
+        this.level = level;
+        this.throttle = limit.newThrottle();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+}
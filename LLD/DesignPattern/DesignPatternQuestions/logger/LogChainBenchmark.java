@@ -0,0 +1,78 @@
+package DesignPattern.DesignPatternQuestions.logger;
+
+// Per-call cost of the linked processor chain versus the compiled chain.
+// Only the last link handles the benchmark level, so each call walks the whole chain.
+public class LogChainBenchmark {
+
+    static final int BENCHMARK_LEVEL = 99;
+    private static final int CALLS = 2_000_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String args[]) {
+        System.out.println("processors   linked ns/op   compiled ns/op");
+        for(int length = 4; length <= 64; length *= 2) {
+            CountingLogProcessor tail = new CountingLogProcessor();
+            LogProcessor head = buildChain(length, tail);
+            CompiledLogChain compiled = CompiledLogChain.compile(head);
+
+            double linked = Double.MAX_VALUE;
+            double flat = Double.MAX_VALUE;
+            for(int round = 0; round < ROUNDS; round++) {
+                linked = Math.min(linked, measureLinked(head));
+                flat = Math.min(flat, measureCompiled(compiled));
+            }
+            if(tail.messages != (long) 2 * ROUNDS * CALLS) {
+                throw new IllegalStateException("Chains disagree: " + tail.messages);
+            }
+            System.out.printf("%10d   %12.1f   %14.1f%n", length, linked, flat);
+        }
+    }
+
+    private static LogProcessor buildChain(int length, LogProcessor tail) {
+        LogProcessor head = tail;
+        for(int i = 1; i < length; i++) {
+            switch (i % 3) {
+                case 0: head = new InfoLogProcessor(head); break;
+                case 1: head = new DebugLogProcessor(head); break;
+                default: head = new ErrorLogProcessor(head); break;
+            }
+        }
+        return head;
+    }
+
+    private static double measureLinked(LogProcessor head) {
+        long start = System.nanoTime();
+        for(int i = 0; i < CALLS; i++) {
+            head.log(BENCHMARK_LEVEL, "benchmark");
+        }
+        return (System.nanoTime() - start) / (double) CALLS;
+    }
+
+    private static double measureCompiled(CompiledLogChain chain) {
+        long start = System.nanoTime();
+        for(int i = 0; i < CALLS; i++) {
+            chain.log(BENCHMARK_LEVEL, "benchmark");
+        }
+        return (System.nanoTime() - start) / (double) CALLS;
+    }
+
+    static class CountingLogProcessor extends LogProcessor {
+
+        long messages;
+
+        CountingLogProcessor() {
+            super(null);
+        }
+
+        @Override
+        int handledLevel() {
+            return BENCHMARK_LEVEL;
+        }
+
+        @Override
+        void write(String message) {
+            messages++;
+        }
+    }
+    
+}
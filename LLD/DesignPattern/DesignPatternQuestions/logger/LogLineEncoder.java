@@ -0,0 +1,75 @@
+package DesignPattern.DesignPatternQuestions.logger;
+
+import java.nio.ByteBuffer;
+
+/*
+ * Reusable text and byte buffers for building one log line at a time.
+ * Each thread keeps its own instance; after warm-up neither buffer grows,
+ * so building and encoding a line allocates nothing.
+ */
+final class LogLineEncoder {
+
+    private final StringBuilder text = new StringBuilder(256);
+    private ByteBuffer bytes = ByteBuffer.allocateDirect(1024);
+
+    StringBuilder begin(String prefix) {
+        text.setLength(0);
+        return text.append(prefix);
+    }
+
+    // Appends template text up to the next "{}" and returns the index after it,
+    // or appends the rest of the template and returns -1 when there is none.
+    static int appendUntilPlaceholder(StringBuilder builder, String template, int from) {
+        if(from < 0) {
+            return -1;
+        }
+        int placeholder = template.indexOf("{}", from);
+        if(placeholder < 0) {
+            builder.append(template, from, template.length());
+            return -1;
+        }
+        builder.append(template, from, placeholder);
+        return placeholder + 2;
+    }
+
+    static void appendRest(StringBuilder builder, String template, int from) {
+        if(from >= 0) {
+            builder.append(template, from, template.length());
+        }
+    }
+
+    // UTF-8 encodes the current text plus a newline; the result is ready to read.
+    ByteBuffer encode() {
+        int length = text.length();
+        if(bytes.capacity() < length * 3 + 1) {
+            bytes = ByteBuffer.allocateDirect(Math.max(length * 3 + 1, bytes.capacity() * 2));
+        }
+        ByteBuffer out = bytes;
+        out.clear();
+        for(int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if(c < 0x80) {
+                out.put((byte) c);
+            } else if(c < 0x800) {
+                out.put((byte) (0xC0 | (c >> 6)));
+                out.put((byte) (0x80 | (c & 0x3F)));
+            } else if(Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                out.put((byte) (0xF0 | (codePoint >> 18)));
+                out.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                out.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                out.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if(Character.isSurrogate(c)) {
+                out.put((byte) '?');
+            } else {
+                out.put((byte) (0xE0 | (c >> 12)));
+                out.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                out.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+        out.put((byte) '\n');
+        out.flip();
+        return out;
+    }
+
+}
@@ -14,9 +14,28 @@ public abstract class LogProcessor {
     }
 
     public void log(int logLevel, String message) {
-        if(nextLogProcessor != null){
+        if(logLevel == handledLevel()) {
+            write(message);
+        }
+        else if(nextLogProcessor != null){
             nextLogProcessor.log(logLevel, message);
         }
     }
+
+    // The single level this processor prints; everything else is passed on.
+    abstract int handledLevel();
+
+    void write(String message) {
+        System.out.println(prefix() + message);
+    }
+
+    // Text printed in front of every message of this processor.
+    String prefix() {
+        return "";
+    }
+
+    LogProcessor getNextLogProcessor() {
+        return nextLogProcessor;
+    }
     
 }
@@ -0,0 +1,49 @@
+package DesignPattern.DesignPatternQuestions.logger;
+
+/*
+ * How much of a level or call site gets through: a token bucket of burst
+ * events refilled at eventsPerSecond, applied after a random sample that
+ * keeps sampleRate (0..1] of the events.
+ */
+public final class LogRateLimit {
+
+    public static final LogRateLimit UNLIMITED = new LogRateLimit(0, 0, 1.0);
+
+    private final double eventsPerSecond;
+    private final int burst;
+    private final double sampleRate;
+
+    private LogRateLimit(double eventsPerSecond, int burst, double sampleRate) {
+        this.eventsPerSecond = eventsPerSecond;
+        this.burst = burst;
+        this.sampleRate = sampleRate;
+    }
+
+    public static LogRateLimit perSecond(double eventsPerSecond, int burst) {
+        if(eventsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate must be positive and burst at least 1");
+        }
+        return new LogRateLimit(eventsPerSecond, burst, 1.0);
+    }
+
+    public static LogRateLimit sampling(double sampleRate) {
+        return UNLIMITED.sampled(sampleRate);
+    }
+
+    public LogRateLimit sampled(double sampleRate) {
+        if(sampleRate <= 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("Sample rate must be in (0, 1]");
+        }
+        return new LogRateLimit(eventsPerSecond, burst, sampleRate);
+    }
+
+    LogThrottle newThrottle() {
+        return new LogThrottle(eventsPerSecond, burst, sampleRate);
+    }
+
+    @Override
+    public String toString() {
+        return "LogRateLimit [eventsPerSecond=" + eventsPerSecond + ", burst=" + burst + ", sampleRate=" + sampleRate + "]";
+    }
+
+}
@@ -0,0 +1,94 @@
+package DesignPattern.DesignPatternQuestions.logger;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * Preallocated multi-producer, single-consumer ring of log events.
+ *
+ * A producer claims the next sequence with a CAS, fills the slot for that
+ * sequence and then publishes it by storing the sequence in the slot's
+ * published marker. The consumer reads slots in sequence order as long as
+ * their marker matches, then frees them. Slots are reused, so logging does
+ * not allocate an event per call.
+ */
+final class LogRingBuffer {
+
+    static final class LogEvent {
+        int level;
+        String message;
+    }
+
+    private final LogEvent[] slots;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final WaitStrategy waitStrategy;
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private volatile long consumed = -1;
+
+    LogRingBuffer(int capacity, WaitStrategy waitStrategy) {
+        if(capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.slots = new LogEvent[capacity];
+        this.published = new AtomicLongArray(capacity);
+        for(int i = 0; i < capacity; i++) {
+            slots[i] = new LogEvent();
+            published.set(i, -1);
+        }
+        this.mask = capacity - 1;
+        this.waitStrategy = waitStrategy;
+    }
+
+    // Producer side: waits while the ring is full.
+    long claim() {
+        int attempt = 0;
+        while(true) {
+            long current = claimed.get();
+            long next = current + 1;
+            if(next - slots.length > consumed) {
+                waitStrategy.waitOnce(attempt++);
+            } else if(claimed.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    LogEvent slot(long sequence) {
+        return slots[(int) sequence & mask];
+    }
+
+    void publish(long sequence) {
+        published.setRelease((int) sequence & mask, sequence);
+        waitStrategy.signal();
+    }
+
+    // Consumer side: the highest sequence from next on that is published
+    // without gaps, or next - 1 when next itself is not published yet.
+    long highestPublished(long next) {
+        long sequence = next;
+        long limit = claimed.get();
+        while(sequence <= limit && published.getAcquire((int) sequence & mask) == sequence) {
+            sequence++;
+        }
+        return sequence - 1;
+    }
+
+    void release(long upTo) {
+        consumed = upTo;
+        waitStrategy.signal();
+    }
+
+    long lastClaimed() {
+        return claimed.get();
+    }
+
+    WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+}
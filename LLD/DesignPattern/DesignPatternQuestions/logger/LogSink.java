@@ -0,0 +1,18 @@
+package DesignPattern.DesignPatternQuestions.logger;
+
+import java.nio.ByteBuffer;
+import java.util.function.Supplier;
+
+// Destination for encoded log lines or binary log records. The buffer holds one
+// or more complete lines or records between position and limit and is only
+// valid during the call.
+public interface LogSink {
+
+    void write(ByteBuffer lines);
+
+    // Records a sink that rolls to new files writes at the start of each new file,
+    // ahead of any other write to it. Sinks that never roll ignore it.
+    default void setRollHeader(Supplier<ByteBuffer> header) {
+    }
+
+}
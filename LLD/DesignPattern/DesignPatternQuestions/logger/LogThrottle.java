@@ -0,0 +1,64 @@
+package DesignPattern.DesignPatternQuestions.logger;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Lock-free token bucket in its GCRA form: instead of a token count it keeps
+ * the theoretical arrival time of the next conforming event, so taking a
+ * token is a single compareAndSet and a rejection is only a read. Time comes
+ * from CoarseClock, which makes the bucket millisecond-accurate.
+ */
+final class LogThrottle {
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final double sampleRate;
+    private final AtomicLong theoreticalArrival = new AtomicLong();
+    private final LongAdder suppressed = new LongAdder();
+
+    LogThrottle(double eventsPerSecond, int burst, double sampleRate) {
+        this.intervalNanos = eventsPerSecond > 0 ? Math.max(1, (long) (1e9 / eventsPerSecond)) : 0;
+        this.toleranceNanos = intervalNanos * (burst - 1L);
+        this.sampleRate = sampleRate;
+    }
+
+    boolean tryAcquire() {
+        if(sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            suppressed.increment();
+            return false;
+        }
+        if(intervalNanos == 0) {
+            return true;
+        }
+        long now = CoarseClock.epochNanos();
+        while(true) {
+            long arrival = theoreticalArrival.get();
+            long start = Math.max(arrival, now);
+            if(start - now > toleranceNanos) {
+                suppressed.increment();
+                return false;
+            }
+            if(theoreticalArrival.compareAndSet(arrival, start + intervalNanos)) {
+                return true;
+            }
+        }
+    }
+
+    // Undoes a successful tryAcquire whose event was not logged after all.
+    void giveBack() {
+        if(intervalNanos != 0) {
+            theoreticalArrival.addAndGet(-intervalNanos);
+        }
+    }
+
+    long takeSuppressed() {
+        return suppressed.sumThenReset();
+    }
+
+    void addSuppressed(long count) {
+        suppressed.add(count);
+    }
+
+}
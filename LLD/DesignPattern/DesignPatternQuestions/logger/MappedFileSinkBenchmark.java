@@ -0,0 +1,150 @@
+package DesignPattern.DesignPatternQuestions.logger;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+import java.util.stream.Stream;
+
+// Sustained write throughput of the mapped rolling sink against a buffered FileOutputStream.
+// The sink runs measure the sinks alone with a pre-encoded line; the logger run adds formatting.
+// Each sink run is repeated and the median round reported: wall-clock throughput, and the CPU
+// time the producing threads spent per line, which is what logging costs the caller.
+public class MappedFileSinkBenchmark {
+
+    private static final int LINES = 5_000_000;
+    private static final int ROUNDS = 5;
+    private static final byte[] LINE = "Info : order 1234567 was shipped to the customer warehouse\n".getBytes();
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    public static void main(String args[]) throws Exception {
+        LogProcessor chain = new InfoLogProcessor(new DebugLogProcessor(new ErrorLogProcessor(null)));
+        Path directory = Files.createTempDirectory("mapped-log");
+        try {
+            List<long[]> stream = new ArrayList<>();
+            List<long[]> streamThreads = new ArrayList<>();
+            List<long[]> mapped = new ArrayList<>();
+            List<long[]> mappedThreads = new ArrayList<>();
+            long spills = 0;
+            for(int round = 0; round < ROUNDS; round++) {
+                for(int threads : new int[] {1, 4}) {
+                    Path streamFile = directory.resolve("stream-" + round + ".log");
+                    try (StreamSink sink = new StreamSink(Files.newOutputStream(streamFile))) {
+                        (threads == 1 ? stream : streamThreads).add(runSink(sink, threads));
+                    }
+                    Files.delete(streamFile);
+                    try (MappedRollingFileSink sink = new MappedRollingFileSink(directory.resolve("mapped-" + threads + "-" + round), "app", 64 << 20, 60_000, false)) {
+                        (threads == 1 ? mapped : mappedThreads).add(runSink(sink, threads));
+                        spills += sink.getSpillCount();
+                    }
+                }
+            }
+            report("sink: buffered FileOutputStream", median(stream));
+            report("sink: mapped rolling", median(mapped));
+            report("sink: buffered stream, 4 threads", median(streamThreads));
+            report("sink: mapped rolling, 4 threads", median(mappedThreads));
+            System.out.println("Rolls that found no mapped segment ready: " + spills + " in " + 2 * ROUNDS + " mapped runs");
+            try (MappedRollingFileSink sink = new MappedRollingFileSink(directory.resolve("logger"), "app", 64 << 20, 60_000, false)) {
+                report("logger + mapped rolling sink", run(new GarbageFreeLogger(chain, sink), 1));
+            }
+
+            try (MappedRollingFileSink sink = new MappedRollingFileSink(directory.resolve("compressed"), "app", 8 << 20, 60_000, true)) {
+                run(new GarbageFreeLogger(chain, sink), 1);
+            }
+            try (Stream<Path> files = Files.list(directory.resolve("compressed"))) {
+                System.out.println("Rolled and compressed segments: " + files.map(Path::getFileName).sorted().toList());
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    private static long[] run(GarbageFreeLogger logger, int threads) throws InterruptedException {
+        return runWorkers(threads, count -> {
+            for(int i = 0; i < count; i++) {
+                logger.log(LogProcessor.INFO, " order {} was shipped to the customer warehouse", i);
+            }
+        });
+    }
+
+    private static long[] runSink(LogSink sink, int threads) throws InterruptedException {
+        return runWorkers(threads, count -> {
+            ByteBuffer line = ByteBuffer.allocateDirect(LINE.length).put(LINE);
+            for(int i = 0; i < count; i++) {
+                line.clear();
+                sink.write(line);
+            }
+        });
+    }
+
+    // Returns wall nanos, lines and the CPU nanos the workers used.
+    private static long[] runWorkers(int threads, IntConsumer work) throws InterruptedException {
+        Thread[] workers = new Thread[threads];
+        AtomicLong cpuNanos = new AtomicLong();
+        long start = System.nanoTime();
+        for(int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                long cpuStart = MappedFileSinkBenchmark.threads.getCurrentThreadCpuTime();
+                work.accept(LINES / threads);
+                cpuNanos.addAndGet(MappedFileSinkBenchmark.threads.getCurrentThreadCpuTime() - cpuStart);
+            });
+            workers[t].start();
+        }
+        for(Thread worker : workers) {
+            worker.join();
+        }
+        return new long[] {System.nanoTime() - start, LINES, cpuNanos.get()};
+    }
+
+    private static long[] median(List<long[]> rounds) {
+        rounds.sort(Comparator.comparingLong(result -> result[0]));
+        return rounds.get(rounds.size() / 2);
+    }
+
+    private static void report(String label, long[] result) {
+        double seconds = result[0] / 1e9;
+        System.out.printf("%-34s %6.0f ms, %5.2f M lines/s, %5.1f ns producer CPU per line%n", label, seconds * 1000,
+                result[1] / seconds / 1e6, (double) result[2] / result[1]);
+    }
+
+    static class StreamSink implements LogSink, AutoCloseable {
+
+        private final OutputStream out;
+        private final byte[] chunk = new byte[8192];
+
+        StreamSink(OutputStream out) {
+            this.out = new BufferedOutputStream(out, 64 * 1024);
+        }
+
+        @Override
+        public synchronized void write(ByteBuffer lines) {
+            try {
+                while(lines.hasRemaining()) {
+                    int length = Math.min(chunk.length, lines.remaining());
+                    lines.get(chunk, 0, length);
+                    out.write(chunk, 0, length);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+}
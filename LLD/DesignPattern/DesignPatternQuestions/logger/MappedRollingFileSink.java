@@ -0,0 +1,491 @@
+package DesignPattern.DesignPatternQuestions.logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/*
+ * Log sink that appends into memory-mapped file segments.
+ *
+ * A producer notes the segment it is writing in a slot of its own, reserves
+ * its byte range with one getAndAdd, copies the line into the mapping and
+ * clears the slot again; the getAndAdd is the only atomic instruction, no
+ * lock is taken and no system call is made per line. The
+ * one reservation that crosses the end of a segment marks where its data
+ * stops, and that producer rolls the segment: it takes the next one from a
+ * small pool that a background thread keeps created, mapped and
+ * pre-faulted, so rolling is a reference swap. If the mapper has fallen
+ * behind and the pool is empty, the producer installs a spill instead and
+ * goes on: lines are queued on the heap until the mapper delivers the next
+ * segment and copies them into it, in order, before any producer can write
+ * there. Only during that copy do producers wait; none ever maps a file
+ * itself. A timer rolls a segment whose time slot is over by
+ * reserving the rest of it the same way. A roll header, when set, is
+ * copied to the start of each new segment before producers can reach it.
+ *
+ * A second background thread waits until no producer's slot names a rolled
+ * segment any more, trims it to the end of its data and gzips it when
+ * compression is on; it is separate so a slow compression never delays the
+ * next mapping.
+ */
+public class MappedRollingFileSink implements LogSink, AutoCloseable {
+
+    // segments kept mapped ahead of the producers
+    private static final int READY_SEGMENTS = 2;
+    // how long close() waits for the mapper to take over spilled lines
+    private static final long CLOSE_WAIT_MILLIS = 10_000;
+
+    private final Path directory;
+    private final String baseName;
+    private final int segmentBytes;
+    private final long rollIntervalMillis;
+    private final boolean compress;
+    private final ScheduledThreadPoolExecutor mapper = new ScheduledThreadPoolExecutor(1, runnable -> daemon(runnable, "log-segment-mapper"));
+    private final ExecutorService finisher = Executors.newSingleThreadExecutor(runnable -> daemon(runnable, "log-segment-compressor"));
+    private final AtomicInteger nextIndex = new AtomicInteger();
+    private final AtomicReference<Segment> current = new AtomicReference<>();
+    private final ConcurrentLinkedQueue<Segment> ready = new ConcurrentLinkedQueue<>();
+    // taken to install a segment and to close, never on the write path
+    private final Object rollLock = new Object();
+    private final AtomicLong spills = new AtomicLong();
+    private final ConcurrentLinkedQueue<WriterSlot> slots = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<WriterSlot> slot = ThreadLocal.withInitial(this::newSlot);
+    private volatile boolean closed;
+    // set by close() once no spill is pending; from then on a full segment is not replaced
+    private boolean ending;
+    private volatile Supplier<ByteBuffer> rollHeader;
+
+    public MappedRollingFileSink(Path directory, String baseName, int segmentBytes, long rollIntervalMillis, boolean compress) throws IOException {
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.baseName = baseName;
+        this.segmentBytes = segmentBytes;
+        this.rollIntervalMillis = rollIntervalMillis;
+        this.compress = compress;
+        // pending time rolls are dropped on close instead of holding it up
+        mapper.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        Segment first = openSegment();
+        scheduleTimeRoll(first);
+        current.set(first);
+        for(int i = 0; i < READY_SEGMENTS; i++) {
+            mapper.execute(this::mapAhead);
+        }
+    }
+
+    private void scheduleTimeRoll(Segment segment) {
+        segment.timer = mapper.schedule(() -> seal(segment), rollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    @Override
+    public void write(ByteBuffer lines) {
+        if(lines.remaining() > maxWriteBytes()) {
+            throw new IllegalArgumentException("Log write of " + lines.remaining() + " bytes does not fit a segment of "
+                    + segmentBytes + " bytes" + (rollHeader == null ? "" : " after its roll header"));
+        }
+        if(closed) {
+            throw new IllegalStateException("Sink is closed");
+        }
+        append(lines);
+    }
+
+    // A roll header may take up to half of each segment, so with one set a write may only fill
+    // the other half; otherwise a line could never fit and every roll would open a new file.
+    // Set it before the first write.
+    @Override
+    public void setRollHeader(Supplier<ByteBuffer> header) {
+        this.rollHeader = header;
+    }
+
+    private int maxWriteBytes() {
+        return rollHeader == null ? segmentBytes : segmentBytes - segmentBytes / 2;
+    }
+
+    // Under rollLock, before the segment is installed. The old segment is closed to writes by
+    // then, so anything missing from the header is written after it, into this segment or later.
+    private void putRollHeader(Segment next) {
+        Supplier<ByteBuffer> header = rollHeader;
+        if(header == null) {
+            return;
+        }
+        ByteBuffer records = header.get();
+        int length = records.remaining();
+        if(length > segmentBytes / 2) {
+            System.err.println("Roll header of " + length + " bytes does not fit a segment, left out");
+            return;
+        }
+        next.map.put((int) next.reserved.getAndAdd(length), records, records.position(), length);
+    }
+
+    private WriterSlot newSlot() {
+        WriterSlot created = new WriterSlot(Thread.currentThread());
+        slots.add(created);
+        removeDeadSlots();
+        return created;
+    }
+
+    // A thread that has ended cannot be writing, and would otherwise keep its slot for good.
+    private void removeDeadSlots() {
+        slots.removeIf(writer -> !writer.owner.isAlive());
+    }
+
+    private void append(ByteBuffer lines) {
+        int length = lines.remaining();
+        WriterSlot writer = slot.get();
+        while(true) {
+            Segment segment = current.get();
+            if(segment.map == null) {
+                if(spill(segment, lines)) {
+                    return;
+                }
+                // the mapper is copying the spill into a segment
+                awaitRoll(segment);
+                continue;
+            }
+            // a plain store: the getAndAdd right after it publishes it to whoever ends the segment
+            writer.active = segment;
+            long position = segment.reserved.getAndAdd(length);
+            if(position + length <= segmentBytes) {
+                segment.map.put((int) position, lines, lines.position(), length);
+                lines.position(lines.limit());
+                WriterSlot.ACTIVE.setRelease(writer, null);
+                return;
+            }
+            WriterSlot.ACTIVE.setRelease(writer, null);
+            if(position <= segmentBytes) {
+                // the one reservation that crosses the end marks where the data stops
+                segment.end = position;
+                roll(segment);
+            } else {
+                awaitRoll(segment);
+            }
+        }
+    }
+
+    // The segment is full and another producer is swapping in the next one, a few instructions
+    // away, or the mapper is copying spilled lines over before it installs the next one.
+    private void awaitRoll(Segment full) {
+        for(int spins = 0; current.get() == full && (full.map != null || full.sealed); spins++) {
+            if(closed) {
+                throw new IllegalStateException("Sink is closed");
+            }
+            if(spins < 100) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+
+    private boolean spill(Segment spill, ByteBuffer lines) {
+        spill.spillWriters.incrementAndGet();
+        try {
+            // checked after counting in, so the mapper that sealed the spill waits for this copy
+            if(current.get() != spill || spill.sealed) {
+                return false;
+            }
+            byte[] copy = new byte[lines.remaining()];
+            lines.get(copy);
+            spill.spilled.add(copy);
+            return true;
+        } finally {
+            spill.spillWriters.decrementAndGet();
+        }
+    }
+
+    // Runs on the mapper thread when the segment's time slot is over.
+    private void seal(Segment segment) {
+        long position = segment.reserved.getAndAdd(segmentBytes + 1L);
+        if(position <= segmentBytes) {
+            segment.end = position;
+            roll(segment);
+        }
+    }
+
+    // Called exactly once per segment, by whoever made the reservation that ended it.
+    private void roll(Segment full) {
+        if(full.timer != null) {
+            full.timer.cancel(false);
+        }
+        finisher.execute(() -> finish(full));
+        synchronized (rollLock) {
+            if(ending) {
+                // close() owns the end; producers waiting on the full segment see closed and give up
+                return;
+            }
+            Segment next = ready.poll();
+            if(next == null) {
+                next = Segment.spill();
+                spills.incrementAndGet();
+            } else {
+                putRollHeader(next);
+                scheduleTimeRoll(next);
+            }
+            current.set(next);
+            mapper.execute(this::mapAhead);
+        }
+    }
+
+    // Mapper thread: maps one segment and either keeps it ready or replaces the spill with it.
+    private void mapAhead() {
+        Segment next = openSegmentOrRetry();
+        if(next == null) {
+            return;
+        }
+        synchronized (rollLock) {
+            Segment spill = current.get();
+            if(spill.map != null || ending) {
+                ready.add(next);
+                return;
+            }
+            // no more spilling; producers wait for the swap while every spilled line is copied over,
+            // so nothing written later can land before them
+            spill.sealed = true;
+            while(spill.spillWriters.get() > 0) {
+                Thread.yield();
+            }
+            putRollHeader(next);
+            long afterHeader = next.reserved.get();
+            byte[] line;
+            while((line = spill.spilled.peek()) != null) {
+                if(next.reserved.get() + line.length <= segmentBytes) {
+                    spill.spilled.poll();
+                    next.map.put((int) next.reserved.getAndAdd(line.length), line);
+                    continue;
+                }
+                if(next.reserved.get() == afterHeader) {
+                    // only possible when the roll header was set after this line was accepted
+                    spill.spilled.poll();
+                    System.err.println("Spilled log write of " + line.length + " bytes does not fit after the roll header, left out");
+                    continue;
+                }
+                Segment following = openSegmentOrRetry();
+                Segment full = next;
+                full.end = full.reserved.get();
+                finisher.execute(() -> finish(full));
+                if(following == null) {
+                    // the rest stays spilled, in order, until the retry maps a segment
+                    spill.sealed = false;
+                    return;
+                }
+                next = following;
+                putRollHeader(next);
+                afterHeader = next.reserved.get();
+            }
+            scheduleTimeRoll(next);
+            current.set(next);
+        }
+    }
+
+    // Returns null and schedules another mapAhead when the segment cannot be mapped.
+    private Segment openSegmentOrRetry() {
+        try {
+            return openSegment();
+        } catch (IOException e) {
+            System.err.println("Could not map the next log segment, retrying: " + e);
+            try {
+                mapper.schedule(this::mapAhead, 1, TimeUnit.SECONDS);
+            } catch (RejectedExecutionException closing) {
+                // closed while retrying
+            }
+            return null;
+        }
+    }
+
+    private Segment openSegment() throws IOException {
+        Path file = directory.resolve(baseName + "-" + nextIndex.getAndIncrement() + ".log");
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        // touch every page now so producers never take the page faults
+        for(int page = 0; page < segmentBytes; page += 4096) {
+            map.put(page, (byte) 0);
+        }
+        return new Segment(file, channel, map);
+    }
+
+    private void finish(Segment segment) {
+        removeDeadSlots();
+        // every reservation before the end was made by a producer whose slot named the segment
+        for(WriterSlot writer : slots) {
+            while(WriterSlot.ACTIVE.getAcquire(writer) == segment) {
+                Thread.yield();
+            }
+        }
+        try {
+            segment.channel.truncate(segment.end);
+            segment.channel.close();
+            if(compress) {
+                Path gzip = segment.file.resolveSibling(segment.file.getFileName() + ".gz");
+                try (InputStream in = Files.newInputStream(segment.file);
+                     OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzip), 64 * 1024)) {
+                    in.transferTo(out);
+                }
+                Files.delete(segment.file);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not finish log segment " + segment.file + ": " + e);
+        }
+    }
+
+    // A ready segment that was never written to.
+    private void discard(Segment unused) {
+        try {
+            unused.channel.close();
+            Files.deleteIfExists(unused.file);
+        } catch (IOException e) {
+            System.err.println("Could not remove unused log segment " + unused.file + ": " + e);
+        }
+    }
+
+    // How often a roll found no segment mapped ahead and producers spilled to the heap.
+    public long getSpillCount() {
+        return spills.get();
+    }
+
+    // Refuses new writes, gives the mapper up to CLOSE_WAIT_MILLIS to deliver any spilled
+    // lines, ends the active segment, removes the unused ready segments and waits for every
+    // rolled segment to be finished.
+    @Override
+    public void close() throws IOException {
+        synchronized (rollLock) {
+            if(closed) {
+                return;
+            }
+            closed = true;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CLOSE_WAIT_MILLIS);
+        while(true) {
+            synchronized (rollLock) {
+                if(current.get().map != null || System.nanoTime() - deadline > 0) {
+                    // past the deadline the spilled lines are reported lost below
+                    ending = true;
+                    break;
+                }
+            }
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                synchronized (rollLock) {
+                    ending = true;
+                }
+                break;
+            }
+        }
+        mapper.shutdown();
+        try {
+            mapper.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (rollLock) {
+            Segment last = current.get();
+            if(last.map == null) {
+                System.err.println("Log sink closed with " + last.spilled.size() + " spilled writes that had no segment");
+            } else {
+                if(last.timer != null) {
+                    last.timer.cancel(false);
+                }
+                long position = last.reserved.getAndAdd(segmentBytes + 1L);
+                if(position <= segmentBytes) {
+                    last.end = position;
+                    finisher.execute(() -> finish(last));
+                }
+            }
+            Segment unused;
+            while((unused = ready.poll()) != null) {
+                Segment discarded = unused;
+                finisher.execute(() -> discard(discarded));
+            }
+        }
+        finisher.shutdown();
+        try {
+            finisher.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // What one producer thread is writing; null between writes.
+    private static class WriterSlot {
+
+        final Thread owner;
+
+        static final VarHandle ACTIVE;
+
+        static {
+            try {
+                ACTIVE = MethodHandles.lookup().findVarHandle(WriterSlot.class, "active", Segment.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        Segment active;
+
+        WriterSlot(Thread owner) {
+            this.owner = owner;
+        }
+    }
+
+    private static class Segment {
+
+        final Path file;
+        final FileChannel channel;
+        // null for a spill, which holds lines on the heap until a segment is mapped
+        final MappedByteBuffer map;
+        final AtomicLong reserved = new AtomicLong();
+        volatile long end = -1;
+        volatile ScheduledFuture<?> timer;
+        final ConcurrentLinkedQueue<byte[]> spilled;
+        final AtomicInteger spillWriters;
+        // set by the mapper while it copies the spilled lines into a segment
+        volatile boolean sealed;
+
+        Segment(Path file, FileChannel channel, MappedByteBuffer map) {
+            this.file = file;
+            this.channel = channel;
+            this.map = map;
+            this.spilled = null;
+            this.spillWriters = null;
+        }
+
+        private Segment() {
+            this.file = null;
+            this.channel = null;
+            this.map = null;
+            this.spilled = new ConcurrentLinkedQueue<>();
+            this.spillWriters = new AtomicInteger();
+        }
+
+        static Segment spill() {
+            return new Segment();
+        }
+    }
+
+}
@@ -0,0 +1,58 @@
+package DesignPattern.DesignPatternQuestions.logger;
+
+// Fills "{}" placeholders from left to right; extra placeholders stay as they are.
+public final class MessageTemplate {
+
+    private MessageTemplate() {
+    }
+
+    public static String format(String template, Object... args) {
+        StringBuilder builder = new StringBuilder(template.length() + 16 * args.length);
+        appendTo(builder, template, args);
+        return builder.toString();
+    }
+
+    // Primitive arguments are appended as they are, so nothing is boxed.
+    public static String format(String template, long arg) {
+        StringBuilder builder = new StringBuilder(template.length() + 20);
+        LogLineEncoder.appendRest(builder, template, append(builder, template, 0, arg));
+        return builder.toString();
+    }
+
+    public static String format(String template, double arg) {
+        StringBuilder builder = new StringBuilder(template.length() + 24);
+        int next = LogLineEncoder.appendUntilPlaceholder(builder, template, 0);
+        if(next >= 0) {
+            builder.append(arg);
+        }
+        LogLineEncoder.appendRest(builder, template, next);
+        return builder.toString();
+    }
+
+    public static String format(String template, long arg1, long arg2) {
+        StringBuilder builder = new StringBuilder(template.length() + 40);
+        LogLineEncoder.appendRest(builder, template, append(builder, template, append(builder, template, 0, arg1), arg2));
+        return builder.toString();
+    }
+
+    // Appends the text up to the next placeholder and arg in its place; -1 once there is none.
+    private static int append(StringBuilder builder, String template, int from, long arg) {
+        int next = LogLineEncoder.appendUntilPlaceholder(builder, template, from);
+        if(next >= 0) {
+            builder.append(arg);
+        }
+        return next;
+    }
+
+    public static void appendTo(StringBuilder builder, String template, Object... args) {
+        int argIndex = 0;
+        int from = 0;
+        int placeholder;
+        while(argIndex < args.length && (placeholder = template.indexOf("{}", from)) >= 0) {
+            builder.append(template, from, placeholder).append(args[argIndex++]);
+            from = placeholder + 2;
+        }
+        builder.append(template, from, template.length());
+    }
+
+}
@@ -0,0 +1,13 @@
+package DesignPattern.DesignPatternQuestions.logger;
+
+// What a sink queue does with a new event when it is full.
+public enum OverflowPolicy {
+
+    // the caller waits for room; nothing is lost, but a stuck sink stalls logging
+    BLOCK,
+    // the oldest queued event is dropped to make room, keeping the newest data
+    DROP_OLDEST,
+    // the new event is dropped, keeping what is already queued
+    DROP_NEWEST
+
+}
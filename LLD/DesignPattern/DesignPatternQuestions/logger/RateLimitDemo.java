@@ -0,0 +1,34 @@
+package DesignPattern.DesignPatternQuestions.logger;
+
+public class RateLimitDemo {
+
+    public static void main(String args[]) throws InterruptedException {
+        LogProcessor chain = new InfoLogProcessor(new DebugLogProcessor(new ErrorLogProcessor(null)));
+
+        try (RateLimitedLogger logger = new RateLimitedLogger(chain, 500)) {
+            logger.setLevelLimit(LogProcessor.ERROR, LogRateLimit.perSecond(10, 5));
+            logger.setLevelLimit(LogProcessor.DEBUG, LogRateLimit.perSecond(5, 5).sampled(0.001));
+            LogCallSite retry = logger.callSite("payment-retry", LogProcessor.ERROR, LogRateLimit.perSecond(2, 3));
+
+            logger.log(LogProcessor.INFO, " Just For Info");
+
+            // a retry loop that fails as fast as it can for one second
+            long end = System.nanoTime() + 1_000_000_000L;
+            long attempts = 0;
+            while(System.nanoTime() < end) {
+                logger.log(retry, " payment {} retry failed", attempts++);
+                logger.log(LogProcessor.DEBUG, () -> " cache miss");
+            }
+            System.out.println("Retry loop made " + attempts + " attempts");
+
+            // cost of the check when the call site is saturated
+            int calls = 10_000_000;
+            long start = System.nanoTime();
+            for(int i = 0; i < calls; i++) {
+                logger.log(retry, " payment {} retry failed", i);
+            }
+            System.out.printf("Suppressed call: %.1f ns%n", (System.nanoTime() - start) / (double) calls);
+        }
+    }
+
+}
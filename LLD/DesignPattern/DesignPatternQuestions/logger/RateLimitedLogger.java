@@ -0,0 +1,181 @@
+package DesignPattern.DesignPatternQuestions.logger;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/*
+ * Logger that keeps a flooding call site or level from swamping the chain.
+ *
+ * Every level and every LogCallSite can have a LogRateLimit. A call must pass
+ * its call site's limit and then its level's limit, and gives the call
+ * site's token back when the level refuses it; the check is a random draw
+ * when sampling, a read of the coarse clock and one CAS, and a rejected
+ * call only bumps a LongAdder. int, long and double template arguments have
+ * their own overloads, so a rejected call does not box them either. Every
+ * summary period the suppressed counts are collected and reported once
+ * through the processor of the level, e.g.
+ * "Info : suppressed 1200 messages from cache-refresh in the last 10 s".
+ */
+public class RateLimitedLogger implements AutoCloseable {
+
+    private final LogProcessor[] processors;
+    private volatile LogThrottle[] levelThrottles;
+    private final List<LogCallSite> callSites = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService reporter;
+
+    public RateLimitedLogger(LogProcessor chain, long summaryPeriodMillis) {
+        this.processors = LevelTableLogger.resolveLevels(chain);
+        this.levelThrottles = new LogThrottle[processors.length];
+        for(int level = 0; level < processors.length; level++) {
+            levelThrottles[level] = LogRateLimit.UNLIMITED.newThrottle();
+        }
+        this.reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "log-suppression-summary");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> {
+            // an exception would cancel every later summary
+            try {
+                reportSuppressed(" in the last " + summaryPeriodMillis / 1000.0 + " s");
+            } catch (RuntimeException e) {
+                System.err.println("Log suppression summary failed: " + e);
+            }
+        }, summaryPeriodMillis, summaryPeriodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Events already suppressed under the old limit are still reported.
+    public synchronized void setLevelLimit(int logLevel, LogRateLimit limit) {
+        if(logLevel < 0 || logLevel >= processors.length) {
+            return;
+        }
+        LogThrottle[] updated = levelThrottles.clone();
+        LogThrottle old = updated[logLevel];
+        updated[logLevel] = limit.newThrottle();
+        levelThrottles = updated;
+        // taken after the swap, so what the old throttle suppressed until then is carried over
+        updated[logLevel].addSuppressed(old.takeSuppressed());
+    }
+
+    public LogCallSite callSite(String name, int logLevel, LogRateLimit limit) {
+        if(logLevel < 0 || logLevel >= processors.length || processors[logLevel] == null) {
+            throw new IllegalArgumentException("No processor in the chain handles level " + logLevel);
+        }
+        LogCallSite site = new LogCallSite(name, logLevel, limit);
+        callSites.add(site);
+        return site;
+    }
+
+    public void log(int logLevel, String message) {
+        LogProcessor processor = admit(null, logLevel);
+        if(processor != null) {
+            processor.write(message);
+        }
+    }
+
+    public void log(int logLevel, Supplier<String> message) {
+        LogProcessor processor = admit(null, logLevel);
+        if(processor != null) {
+            processor.write(message.get());
+        }
+    }
+
+    public void log(LogCallSite site, String message) {
+        LogProcessor processor = admit(site, site.getLevel());
+        if(processor != null) {
+            processor.write(message);
+        }
+    }
+
+    public void log(LogCallSite site, Supplier<String> message) {
+        LogProcessor processor = admit(site, site.getLevel());
+        if(processor != null) {
+            processor.write(message.get());
+        }
+    }
+
+    public void log(LogCallSite site, String template, long arg) {
+        LogProcessor processor = admit(site, site.getLevel());
+        if(processor != null) {
+            processor.write(MessageTemplate.format(template, arg));
+        }
+    }
+
+    public void log(LogCallSite site, String template, double arg) {
+        LogProcessor processor = admit(site, site.getLevel());
+        if(processor != null) {
+            processor.write(MessageTemplate.format(template, arg));
+        }
+    }
+
+    public void log(LogCallSite site, String template, long arg1, long arg2) {
+        LogProcessor processor = admit(site, site.getLevel());
+        if(processor != null) {
+            processor.write(MessageTemplate.format(template, arg1, arg2));
+        }
+    }
+
+    public void log(LogCallSite site, String template, Object arg) {
+        LogProcessor processor = admit(site, site.getLevel());
+        if(processor != null) {
+            processor.write(MessageTemplate.format(template, arg));
+        }
+    }
+
+    public void log(LogCallSite site, String template, Object... args) {
+        LogProcessor processor = admit(site, site.getLevel());
+        if(processor != null) {
+            processor.write(MessageTemplate.format(template, args));
+        }
+    }
+
+    private LogProcessor admit(LogCallSite site, int logLevel) {
+        if(logLevel < 0 || logLevel >= processors.length || processors[logLevel] == null) {
+            return null;
+        }
+        if(site != null && !site.throttle.tryAcquire()) {
+            return null;
+        }
+        if(!levelThrottles[logLevel].tryAcquire()) {
+            if(site != null) {
+                site.throttle.giveBack();
+            }
+            return null;
+        }
+        return processors[logLevel];
+    }
+
+    // Summaries bypass the limits so they cannot be suppressed themselves.
+    private void reportSuppressed(String window) {
+        for(LogCallSite site : callSites) {
+            long count = site.throttle.takeSuppressed();
+            if(count > 0) {
+                processors[site.getLevel()].write(" suppressed " + count + " messages from " + site.getName() + window);
+            }
+        }
+        LogThrottle[] current = levelThrottles;
+        for(int level = 0; level < current.length; level++) {
+            long count = current[level].takeSuppressed();
+            if(count > 0 && processors[level] != null) {
+                processors[level].write(" suppressed " + count + " messages" + window);
+            }
+        }
+    }
+
+    // Stops the timer and reports what was suppressed since the last summary.
+    @Override
+    public void close() {
+        reporter.shutdown();
+        try {
+            reporter.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        reportSuppressed(" since the last summary");
+    }
+
+}
@@ -0,0 +1,70 @@
+package DesignPattern.DesignPatternQuestions.logger;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/*
+ * Sends encoded lines to a log collector over TCP. When the connection fails
+ * the lines in hand are lost and the sink reconnects on a later write, at
+ * most once per retry interval, so a dead collector costs one failed connect
+ * attempt per interval instead of one per line.
+ */
+public class SocketSink implements LogSink, AutoCloseable {
+
+    private final InetSocketAddress collector;
+    private final long retryIntervalNanos;
+    private SocketChannel channel;
+    private long nextAttempt;
+    private long lostBytes;
+
+    public SocketSink(InetSocketAddress collector, long retryIntervalMillis) {
+        this.collector = collector;
+        this.retryIntervalNanos = retryIntervalMillis * 1_000_000L;
+    }
+
+    @Override
+    public synchronized void write(ByteBuffer lines) {
+        int length = lines.remaining();
+        try {
+            if(channel == null) {
+                if(System.nanoTime() - nextAttempt < 0) {
+                    lostBytes += length;
+                    lines.position(lines.limit());
+                    return;
+                }
+                channel = SocketChannel.open(collector);
+            }
+            while(lines.hasRemaining()) {
+                channel.write(lines);
+            }
+        } catch (IOException e) {
+            lostBytes += lines.remaining();
+            lines.position(lines.limit());
+            disconnect();
+            nextAttempt = System.nanoTime() + retryIntervalNanos;
+        }
+    }
+
+    public synchronized long getLostBytes() {
+        return lostBytes;
+    }
+
+    private void disconnect() {
+        if(channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // nothing left to do with a broken connection
+            }
+            channel = null;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        disconnect();
+    }
+
+}
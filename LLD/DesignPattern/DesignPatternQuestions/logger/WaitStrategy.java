@@ -0,0 +1,88 @@
+package DesignPattern.DesignPatternQuestions.logger;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * How a thread waits on the ring buffer: the consumer when there is nothing
+ * to read, a producer when the ring is full. waitOnce is called in a loop
+ * with the number of failed attempts so far; signal is called after every
+ * publish and after the consumer frees slots.
+ */
+public interface WaitStrategy {
+
+    void waitOnce(int attempt);
+
+    default void signal() {
+    }
+
+    // Lowest latency, burns a core per waiting thread.
+    static WaitStrategy busySpin() {
+        return attempt -> Thread.onSpinWait();
+    }
+
+    // Spins briefly, then yields the CPU to other runnable threads.
+    static WaitStrategy yielding() {
+        return attempt -> {
+            if(attempt < 100) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        };
+    }
+
+    // Spins, yields, then parks for sleepNanos; cheap on CPU, slower to wake.
+    static WaitStrategy sleeping(long sleepNanos) {
+        return attempt -> {
+            if(attempt < 100) {
+                Thread.onSpinWait();
+            } else if(attempt < 200) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(sleepNanos);
+            }
+        };
+    }
+
+    // Parks on a condition until signalled; producers only take the lock when someone waits.
+    static WaitStrategy blocking() {
+        return new WaitStrategy() {
+            private final ReentrantLock lock = new ReentrantLock();
+            private final Condition progress = lock.newCondition();
+            private final AtomicInteger waiters = new AtomicInteger();
+
+            @Override
+            public void waitOnce(int attempt) {
+                waiters.incrementAndGet();
+                lock.lock();
+                try {
+                    // bounded wait: a signal racing ahead of the await is only late, never lost
+                    progress.await(1, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    // not re-asserted: a set flag would make every later await return
+                    // at once and turn the caller's retry loop into a busy spin
+                } finally {
+                    lock.unlock();
+                    waiters.decrementAndGet();
+                }
+            }
+
+            @Override
+            public void signal() {
+                if(waiters.get() > 0) {
+                    lock.lock();
+                    try {
+                        progress.signalAll();
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            }
+        };
+    }
+
+}
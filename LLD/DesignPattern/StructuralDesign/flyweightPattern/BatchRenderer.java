@@ -0,0 +1,297 @@
+package DesignPattern.StructuralDesign.flyweightPattern;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/*
+ * Draws a RobotScene into a Framebuffer in batches.
+ *
+ * The screen is cut into horizontal bands, and each band is an independent
+ * job. A counting sort over the instances, run in chunks on all workers,
+ * first copies every visible robot into the bin of its band and type,
+ * packed into one int (x, y), so that a band's robots of one type lie next
+ * to each other in memory; a robot overlapping two bands goes into both,
+ * so sprites may be at most a band high. The worker that draws a band
+ * clears a tile on the heap - plain array writes are far cheaper than
+ * writes through a direct buffer - and, type by type, looks up the
+ * flyweight's sprite once and stamps every robot of that type clipped to
+ * the band - a solid block of its colour, or the image a SpriteStore
+ * mapped for it. Last the tile is copied into the framebuffer with one
+ * bulk put. Bands never share a pixel, so the workers need no locking, and
+ * the scratch arrays are reused from frame to frame, so a steady scene
+ * renders without allocating.
+ *
+ * Frames may be at most 32767 pixels wide and high. A renderer draws one
+ * frame at a time.
+ */
+public class BatchRenderer implements AutoCloseable {
+
+    // added to coordinates so a robot partly off the left or top edge still packs into 16 bits
+    private static final int OFFSET = 1 << 15;
+
+    // fewer instances than this per binning job are not worth a task
+    private static final int MIN_CHUNK = 16_384;
+
+    private final int bandShift;
+    private final int threads;
+    private final ExecutorService workers;
+    private int[] keys = new int[0];
+    private int[] cursors = new int[0];
+    private int[] binStarts = new int[0];
+    private int[] binned = new int[0];
+    private final ThreadLocal<BandScratch> scratch = ThreadLocal.withInitial(BandScratch::new);
+    private int[] argbs = new int[0];
+    private SpritePixels[] textures = new SpritePixels[0];
+    private int[] widths = new int[0];
+    private int[] heights = new int[0];
+
+    // bandHeight is rounded down to a power of two so a row's band is a shift away.
+    public BatchRenderer(int threads, int bandHeight) {
+        this.bandShift = 31 - Integer.numberOfLeadingZeros(Math.max(1, bandHeight));
+        this.threads = threads;
+        this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "scene-band-renderer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void render(RobotScene scene, Framebuffer frame, int background) throws InterruptedException {
+        if(frame.getWidth() >= OFFSET || frame.getHeight() >= OFFSET) {
+            throw new IllegalArgumentException("Frames are limited to " + (OFFSET - 1) + " pixels a side");
+        }
+        int typeCount = scene.getTypeCount();
+        int bands = ((frame.getHeight() - 1) >> bandShift) + 1;
+        loadSprites(scene, typeCount);
+        bin(scene, frame, bands, typeCount);
+
+        List<Callable<Void>> jobs = new ArrayList<>(bands);
+        for(int band = 0; band < bands; band++) {
+            int current = band;
+            jobs.add(() -> {
+                drawBand(frame, current, typeCount, background);
+                return null;
+            });
+        }
+        runAll(jobs);
+    }
+
+    private void loadSprites(RobotScene scene, int typeCount) {
+        if(argbs.length < typeCount) {
+            argbs = new int[typeCount];
+            textures = new SpritePixels[typeCount];
+            widths = new int[typeCount];
+            heights = new int[typeCount];
+        }
+        for(int type = 0; type < typeCount; type++) {
+            Sprite body = scene.getType(type).getBody();
+            SpritePixels pixels = body == null ? null : body.getPixels();
+            textures[type] = pixels;
+            argbs[type] = body == null ? Sprite.MISSING_ARGB : body.getArgb();
+            widths[type] = Math.min(pixels != null ? pixels.getWidth() : body == null ? 1 : body.getWidth(), 1 << bandShift);
+            heights[type] = Math.min(pixels != null ? pixels.getHeight() : body == null ? 1 : body.getHeight(), 1 << bandShift);
+        }
+    }
+
+    /*
+     * Counting sort of the visible instances by (band, type) into binned[],
+     * itself split across the workers: each chunk of instances counts its
+     * robots per bin, the counts are turned into a write position per
+     * (chunk, bin), and each chunk then scatters its robots into those
+     * positions. Bin band * typeCount + type holds the band's robots of that
+     * type, so a band's bins are contiguous and already grouped by type.
+     */
+    private void bin(RobotScene scene, Framebuffer frame, int bands, int typeCount) throws InterruptedException {
+        int size = scene.size();
+        int bins = bands * typeCount;
+        int chunks = Math.max(1, Math.min(threads * 4, size / MIN_CHUNK));
+        int chunkSize = (size + chunks - 1) / chunks;
+        if(keys.length < size) {
+            keys = new int[scene.xs().length];
+        }
+        if(cursors.length < chunks * bins) {
+            cursors = new int[chunks * bins];
+        } else {
+            Arrays.fill(cursors, 0, chunks * bins, 0);
+        }
+        List<Callable<Void>> counting = new ArrayList<>(chunks);
+        for(int chunk = 0; chunk < chunks; chunk++) {
+            int from = chunk * chunkSize;
+            int to = Math.min(size, from + chunkSize);
+            int counts = chunk * bins;
+            counting.add(() -> {
+                countBins(scene, frame, from, to, counts, typeCount);
+                return null;
+            });
+        }
+        runAll(counting);
+
+        if(binStarts.length < bins + 1) {
+            binStarts = new int[bins + 1];
+        }
+        int position = 0;
+        for(int bin = 0; bin < bins; bin++) {
+            binStarts[bin] = position;
+            for(int chunk = 0; chunk < chunks; chunk++) {
+                int count = cursors[chunk * bins + bin];
+                cursors[chunk * bins + bin] = position;
+                position += count;
+            }
+        }
+        binStarts[bins] = position;
+        if(binned.length < position) {
+            binned = new int[position + (position >> 3)];
+        }
+
+        List<Callable<Void>> scattering = new ArrayList<>(chunks);
+        for(int chunk = 0; chunk < chunks; chunk++) {
+            int from = chunk * chunkSize;
+            int to = Math.min(size, from + chunkSize);
+            int chunkCursors = chunk * bins;
+            scattering.add(() -> {
+                scatter(scene, from, to, chunkCursors, typeCount);
+                return null;
+            });
+        }
+        runAll(scattering);
+    }
+
+    // keys[i] is twice the instance's bin in its first band, plus one when it reaches into the next; -1 when off screen.
+    private void countBins(RobotScene scene, Framebuffer frame, int from, int to, int counts, int typeCount) {
+        int[] xs = scene.xs();
+        int[] ys = scene.ys();
+        short[] types = scene.types();
+        int width = frame.getWidth();
+        int height = frame.getHeight();
+        for(int i = from; i < to; i++) {
+            int type = types[i];
+            int x = xs[i];
+            int y = ys[i];
+            int bottom = y + heights[type] - 1;
+            if(x >= width || y >= height || x + widths[type] <= 0 || bottom < 0) {
+                keys[i] = -1;
+                continue;
+            }
+            int band = Math.max(0, y) >> bandShift;
+            int bin = band * typeCount + type;
+            cursors[counts + bin]++;
+            if(bottom < height && (bottom >> bandShift) != band) {
+                cursors[counts + bin + typeCount]++;
+                keys[i] = bin * 2 + 1;
+            } else {
+                keys[i] = bin * 2;
+            }
+        }
+    }
+
+    private void scatter(RobotScene scene, int from, int to, int chunkCursors, int typeCount) {
+        int[] xs = scene.xs();
+        int[] ys = scene.ys();
+        for(int i = from; i < to; i++) {
+            int key = keys[i];
+            if(key < 0) {
+                continue;
+            }
+            int cursor = chunkCursors + (key >> 1);
+            int entry = (ys[i] + OFFSET) << 16 | (xs[i] + OFFSET);
+            binned[cursors[cursor]++] = entry;
+            if((key & 1) != 0) {
+                binned[cursors[cursor + typeCount]++] = entry;
+            }
+        }
+    }
+
+    private void runAll(List<Callable<Void>> jobs) throws InterruptedException {
+        for(Future<Void> done : workers.invokeAll(jobs)) {
+            try {
+                done.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Rendering failed", e.getCause());
+            }
+        }
+    }
+
+    // Stamps the band's robots, type by type, into this worker's heap tile and copies it out.
+    private void drawBand(Framebuffer frame, int band, int typeCount, int background) {
+        int width = frame.getWidth();
+        int top = band << bandShift;
+        int rows = Math.min(frame.getHeight(), top + (1 << bandShift)) - top;
+        int firstBin = band * typeCount;
+        int[] tile = scratch.get().tile(width << bandShift);
+
+        Arrays.fill(tile, 0, rows * width, background);
+        for(int type = 0; type < typeCount; type++) {
+            int argb = argbs[type];
+            int spriteWidth = widths[type];
+            int spriteHeight = heights[type];
+            int from = binStarts[firstBin + type];
+            int to = binStarts[firstBin + type + 1];
+            if(textures[type] != null) {
+                stampTexture(tile, width, rows, top, textures[type], spriteWidth, spriteHeight, from, to, binned);
+                continue;
+            }
+            for(int k = from; k < to; k++) {
+                int x = (binned[k] & 0xFFFF) - OFFSET;
+                int y = (binned[k] >>> 16) - OFFSET - top;
+                int x0 = Math.max(0, x);
+                int x1 = Math.min(width, x + spriteWidth);
+                int y1 = Math.min(rows, y + spriteHeight);
+                for(int row = Math.max(0, y); row < y1; row++) {
+                    for(int p = row * width + x0, rowEnd = row * width + x1; p < rowEnd; p++) {
+                        tile[p] = argb;
+                    }
+                }
+            }
+        }
+        frame.pixels().put(top * width, tile, 0, rows * width);
+    }
+
+    // Copies the mapped image under each robot; fully transparent pixels leave the tile alone.
+    private static void stampTexture(int[] tile, int width, int rows, int top, SpritePixels texture,
+                                     int spriteWidth, int spriteHeight, int from, int to, int[] positions) {
+        IntBuffer argb = texture.argb();
+        int stride = texture.getWidth();
+        for(int k = from; k < to; k++) {
+            int x = (positions[k] & 0xFFFF) - OFFSET;
+            int y = (positions[k] >>> 16) - OFFSET - top;
+            int x0 = Math.max(0, x);
+            int x1 = Math.min(width, x + spriteWidth);
+            int y1 = Math.min(rows, y + spriteHeight);
+            for(int row = Math.max(0, y); row < y1; row++) {
+                int source = (row - y) * stride - x;
+                for(int col = x0; col < x1; col++) {
+                    int pixel = argb.get(source + col);
+                    if((pixel >>> 24) != 0) {
+                        tile[row * width + col] = pixel;
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        workers.shutdown();
+    }
+
+    // Per-worker tile, grown on demand and kept between frames.
+    private static class BandScratch {
+
+        private int[] tile = new int[0];
+
+        int[] tile(int length) {
+            if(tile.length < length) {
+                tile = new int[length];
+            }
+            return tile;
+        }
+    }
+
+}
@@ -0,0 +1,72 @@
+package DesignPattern.StructuralDesign.flyweightPattern;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Eight scene loaders ask the factory for the same robot types at the same
+ * moment. Every type must be built exactly once and every loader must get
+ * the same flyweight; afterwards the warm lookup speed is measured.
+ */
+public class FactoryConcurrencyDemo {
+
+    public static void main(String args[]) throws InterruptedException {
+        int types = 100;
+        AtomicInteger built = new AtomicInteger();
+        for(int i = 0; i < types; i++) {
+            String type = "Drone" + i;
+            RoboticFactory.registerType(type, () -> {
+                built.incrementAndGet();
+                return new HumanoidRobotImpl(type, new Sprite());
+            });
+        }
+
+        int loaders = 8;
+        IRobot[][] seen = new IRobot[loaders][types];
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[loaders];
+        for(int t = 0; t < loaders; t++) {
+            int loader = t;
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for(int i = 0; i < types; i++) {
+                    seen[loader][i] = RoboticFactory.createRobot("Drone" + i);
+                }
+            });
+            threads[t].start();
+        }
+        start.countDown();
+        for(Thread thread : threads) {
+            thread.join();
+        }
+        boolean shared = true;
+        for(int t = 1; t < loaders; t++) {
+            for(int i = 0; i < types; i++) {
+                shared &= seen[t][i] == seen[0][i];
+            }
+        }
+        System.out.println(types + " types requested by " + loaders + " loaders at once: "
+                + built.get() + " flyweights built, all loaders share them: " + shared);
+
+        String[] keys = {"Humanoid", "RoboticDog", "Drone7", "Drone42"};
+        int lookups = 20_000_000;
+        for(int round = 0; round < 2; round++) {
+            long hits = 0;
+            long begin = System.nanoTime();
+            for(int i = 0; i < lookups; i++) {
+                if(RoboticFactory.createRobot(keys[i & 3]) == seen[0][7]) {
+                    hits++;
+                }
+            }
+            long elapsed = System.nanoTime() - begin;
+            if(round == 1) {
+                System.out.printf("warm createRobot: %.1f ns per call (%d Drone7 hits)%n", (double) elapsed / lookups, hits);
+            }
+        }
+    }
+
+}
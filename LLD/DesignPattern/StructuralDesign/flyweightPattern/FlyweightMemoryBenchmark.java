@@ -0,0 +1,71 @@
+package DesignPattern.StructuralDesign.flyweightPattern;
+
+/*
+ * A million robots built two ways: every robot an object with its own
+ * flyweight and Sprite, as without the pattern, and a RobotScene whose
+ * instances share the factory's flyweights. Prints the estimated retained
+ * size of each, the heap growth measured after a full GC, the allocation
+ * time, and the FlyweightMemoryReport of the shared scene.
+ */
+public class FlyweightMemoryBenchmark {
+
+    private static final int ROBOTS = 1_000_000;
+
+    public static void main(String args[]) throws InterruptedException {
+        long before = usedHeap();
+        long start = System.nanoTime();
+        PlacedRobot[] unshared = new PlacedRobot[ROBOTS];
+        for(int i = 0; i < ROBOTS; i++) {
+            IRobot robot = (i & 1) == 0 ? new HumanoidRobotImpl("Humanoid", new Sprite()) : new RoboticDogImpl("RoboticDog", new Sprite());
+            unshared[i] = new PlacedRobot(robot, i % 1920, i % 1080);
+        }
+        long unsharedNanos = System.nanoTime() - start;
+        long unsharedHeap = usedHeap() - before;
+        long unsharedEstimate = FlyweightMemoryReport.retainedSize(unshared);
+        print("Per-instance robots and Sprites", unsharedNanos, unsharedEstimate, unsharedHeap);
+        unshared = null;
+
+        before = usedHeap();
+        start = System.nanoTime();
+        RobotScene scene = new RobotScene(ROBOTS);
+        for(int i = 0; i < ROBOTS; i++) {
+            scene.add((i & 1) == 0 ? "Humanoid" : "RoboticDog", i % 1920, i % 1080);
+        }
+        long sharedNanos = System.nanoTime() - start;
+        long sharedHeap = usedHeap() - before;
+        FlyweightMemoryReport report = FlyweightMemoryReport.of(scene);
+        print("Shared flyweights in a RobotScene", sharedNanos, report.getIntrinsicRetainedBytes() + report.getExtrinsicRetainedBytes(), sharedHeap);
+        System.out.print(report);
+        System.out.printf("Sharing saves %.1fx the memory%n", (double) unsharedEstimate
+                / (report.getIntrinsicRetainedBytes() + report.getExtrinsicRetainedBytes()));
+    }
+
+    private static void print(String label, long nanos, long estimate, long measured) {
+        System.out.printf("%s: built in %.0f ms, %,d bytes estimated, %,d bytes measured (%.1f bytes per robot)%n",
+                label, nanos / 1e6, estimate, measured, (double) measured / ROBOTS);
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for(int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // A robot without the pattern: its own state and where it stands, in one object.
+    private static class PlacedRobot {
+
+        final IRobot robot;
+        final int x;
+        final int y;
+
+        PlacedRobot(IRobot robot, int x, int y) {
+            this.robot = robot;
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+}
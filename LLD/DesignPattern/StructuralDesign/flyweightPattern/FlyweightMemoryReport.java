@@ -0,0 +1,322 @@
+package DesignPattern.StructuralDesign.flyweightPattern;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Measures what the flyweight pattern saves in a RobotScene: the bytes in
+ * the shared, intrinsic state (the IRobot flyweights and everything they
+ * reference, such as their Sprites) against the bytes in the per-instance,
+ * extrinsic state (the scene's position and type arrays), how many
+ * instances share each flyweight, and what the intrinsic state would cost
+ * if every instance had its own copy. A copy only duplicates what is its
+ * flyweight's alone: objects reachable from several flyweights, and
+ * immutable values such as Strings, enum constants and boxed primitives,
+ * would still be shared, so they are left out of that estimate.
+ *
+ * Sizes are estimates of the HotSpot 64-bit layout with compressed
+ * references: a 12-byte object header, 16 bytes for an array header,
+ * 4-byte references, everything rounded up to 8 bytes. The shallow size
+ * of an object is its own fields; its retained size is every object
+ * reachable from it, each counted once. Reflection cannot look inside JDK
+ * classes that are not opened to this code, so for those only the shallow
+ * size is counted (Strings excepted); off-heap memory such as mapped
+ * sprite pixels is not counted at all.
+ */
+public class FlyweightMemoryReport {
+
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final Map<Class<?>, ClassLayout> layouts = Collections.synchronizedMap(new HashMap<>());
+
+    private final int instances;
+    private final int flyweightCount;
+    private final Map<String, Integer> instancesPerType;
+    private final long intrinsicShallowBytes;
+    private final long intrinsicRetainedBytes;
+    private final long extrinsicShallowBytes;
+    private final long extrinsicRetainedBytes;
+    private final long unsharedIntrinsicBytes;
+
+    private FlyweightMemoryReport(int instances, int flyweightCount, Map<String, Integer> instancesPerType,
+                                  long intrinsicShallowBytes, long intrinsicRetainedBytes, long extrinsicShallowBytes,
+                                  long extrinsicRetainedBytes, long unsharedIntrinsicBytes) {
+        this.instances = instances;
+        this.flyweightCount = flyweightCount;
+        this.instancesPerType = instancesPerType;
+        this.intrinsicShallowBytes = intrinsicShallowBytes;
+        this.intrinsicRetainedBytes = intrinsicRetainedBytes;
+        this.extrinsicShallowBytes = extrinsicShallowBytes;
+        this.extrinsicRetainedBytes = extrinsicRetainedBytes;
+        this.unsharedIntrinsicBytes = unsharedIntrinsicBytes;
+    }
+
+    public static FlyweightMemoryReport of(RobotScene scene) {
+        int typeCount = scene.getTypeCount();
+        List<IRobot> flyweights = new ArrayList<>(typeCount);
+        int[] counts = new int[typeCount];
+        for(int type = 0; type < typeCount; type++) {
+            flyweights.add(scene.getType(type));
+        }
+        short[] types = scene.types();
+        for(int id = 0; id < scene.size(); id++) {
+            counts[types[id]]++;
+        }
+        Map<String, Integer> perType = new LinkedHashMap<>();
+        for(int type = 0; type < typeCount; type++) {
+            perType.merge(typeName(flyweights.get(type)), counts[type], Integer::sum);
+        }
+
+        // two scene types may name the same flyweight object
+        Map<IRobot, Set<Object>> copies = new IdentityHashMap<>();
+        Map<Object, Integer> reachedFrom = new IdentityHashMap<>();
+        long intrinsicShallow = 0;
+        for(IRobot flyweight : flyweights) {
+            if(!copies.containsKey(flyweight)) {
+                intrinsicShallow += shallowSize(flyweight);
+                Set<Object> copied = copiedWith(flyweight);
+                copies.put(flyweight, copied);
+                for(Object object : copied) {
+                    reachedFrom.merge(object, 1, Integer::sum);
+                }
+            }
+        }
+        long unshared = 0;
+        for(int type = 0; type < typeCount; type++) {
+            long ownBytes = 0;
+            for(Object object : copies.get(flyweights.get(type))) {
+                if(reachedFrom.get(object) == 1) {
+                    ownBytes += shallowSize(object);
+                }
+            }
+            unshared += ownBytes * counts[type];
+        }
+
+        Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        long intrinsicRetained = retainedSize(flyweights, visited);
+        // what the scene holds beyond the flyweights it points at
+        long extrinsicRetained = retainedSize(Collections.singletonList(scene), visited);
+        return new FlyweightMemoryReport(scene.size(), copies.size(), perType, intrinsicShallow, intrinsicRetained,
+                shallowSize(scene), extrinsicRetained, unshared);
+    }
+
+    // The name the flyweight is registered under in RoboticFactory, or its class name.
+    private static String typeName(IRobot flyweight) {
+        for(Map.Entry<String, IRobot> entry : RoboticFactory.roboticMap.entrySet()) {
+            if(entry.getValue() == flyweight) {
+                return entry.getKey();
+            }
+        }
+        return flyweight.getClass().getSimpleName();
+    }
+
+    public static long shallowSize(Object object) {
+        if(object == null) {
+            return 0;
+        }
+        Class<?> type = object.getClass();
+        if(type.isArray()) {
+            long element = type.getComponentType().isPrimitive() ? primitiveSize(type.getComponentType()) : REFERENCE;
+            return align(ARRAY_HEADER + element * Array.getLength(object));
+        }
+        return layout(type).shallowSize;
+    }
+
+    public static long retainedSize(Object root) {
+        return retainedSize(Collections.singletonList(root), Collections.newSetFromMap(new IdentityHashMap<>()));
+    }
+
+    // Objects already in visited are not counted again; the walk adds every object it counts.
+    static long retainedSize(Collection<?> roots, Set<Object> visited) {
+        ArrayDeque<Object> pending = new ArrayDeque<>();
+        for(Object root : roots) {
+            if(root != null && visited.add(root)) {
+                pending.push(root);
+            }
+        }
+        long total = 0;
+        while(!pending.isEmpty()) {
+            Object object = pending.pop();
+            total += shallowSize(object);
+            if(object instanceof String) {
+                // the value array of a String is not reflectively accessible; Latin-1 strings take a byte a char
+                String string = (String) object;
+                boolean latin1 = string.chars().allMatch(c -> c < 256);
+                total += align(ARRAY_HEADER + (long) string.length() * (latin1 ? 1 : 2));
+                continue;
+            }
+            visitReferences(object, visited, pending, false);
+        }
+        return total;
+    }
+
+    // The objects a copy of root would duplicate: root and what it reaches, not going through immutable values.
+    private static Set<Object> copiedWith(Object root) {
+        Set<Object> copied = Collections.newSetFromMap(new IdentityHashMap<>());
+        ArrayDeque<Object> pending = new ArrayDeque<>();
+        visit(root, copied, pending);
+        while(!pending.isEmpty()) {
+            visitReferences(pending.pop(), copied, pending, true);
+        }
+        return copied;
+    }
+
+    private static void visitReferences(Object object, Set<Object> visited, ArrayDeque<Object> pending, boolean skipImmutable) {
+        Class<?> type = object.getClass();
+        if(type.isArray()) {
+            if(!type.getComponentType().isPrimitive()) {
+                for(int i = 0, length = Array.getLength(object); i < length; i++) {
+                    Object element = Array.get(object, i);
+                    if(!skipImmutable || !isImmutableValue(element)) {
+                        visit(element, visited, pending);
+                    }
+                }
+            }
+            return;
+        }
+        for(Field field : layout(type).references) {
+            try {
+                Object value = field.get(object);
+                if(!skipImmutable || !isImmutableValue(value)) {
+                    visit(value, visited, pending);
+                }
+            } catch (IllegalAccessException e) {
+                // layout() only keeps fields it could open
+            }
+        }
+    }
+
+    private static void visit(Object object, Set<Object> visited, ArrayDeque<Object> pending) {
+        // classes are shared by the whole JVM, not owned by anyone's state
+        if(object != null && !(object instanceof Class) && visited.add(object)) {
+            pending.push(object);
+        }
+    }
+
+    // A copy of a flyweight would point at the same instance of these rather than duplicate it.
+    private static boolean isImmutableValue(Object object) {
+        return object instanceof String || object instanceof Enum || object instanceof Boolean
+                || object instanceof Character || (object instanceof Number && object.getClass().getName().startsWith("java.lang."));
+    }
+
+    private static ClassLayout layout(Class<?> type) {
+        ClassLayout layout = layouts.get(type);
+        if(layout == null) {
+            layout = new ClassLayout(type);
+            layouts.put(type, layout);
+        }
+        return layout;
+    }
+
+    private static int primitiveSize(Class<?> type) {
+        if(type == long.class || type == double.class) {
+            return 8;
+        }
+        if(type == int.class || type == float.class) {
+            return 4;
+        }
+        if(type == short.class || type == char.class) {
+            return 2;
+        }
+        return 1;
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    public int getInstances() {
+        return instances;
+    }
+
+    // Distinct flyweight objects the instances share.
+    public int getFlyweightCount() {
+        return flyweightCount;
+    }
+
+    // Scene instances per flyweight type, by registered name.
+    public Map<String, Integer> getInstancesPerType() {
+        return Collections.unmodifiableMap(instancesPerType);
+    }
+
+    // Instances per flyweight object; 1 would mean nothing is shared.
+    public double getSharingRatio() {
+        return flyweightCount == 0 ? 0 : (double) instances / flyweightCount;
+    }
+
+    public long getIntrinsicShallowBytes() {
+        return intrinsicShallowBytes;
+    }
+
+    public long getIntrinsicRetainedBytes() {
+        return intrinsicRetainedBytes;
+    }
+
+    public long getExtrinsicShallowBytes() {
+        return extrinsicShallowBytes;
+    }
+
+    public long getExtrinsicRetainedBytes() {
+        return extrinsicRetainedBytes;
+    }
+
+    // Bytes the instances would hold if each one carried its own copy of its flyweight's state.
+    public long getUnsharedIntrinsicBytes() {
+        return unsharedIntrinsicBytes;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%d instances of %d flyweights, sharing ratio %.1f%n", instances,
+                getFlyweightCount(), getSharingRatio()));
+        report.append(String.format("  intrinsic: %,d bytes shallow, %,d bytes retained (%,d bytes if unshared)%n",
+                intrinsicShallowBytes, intrinsicRetainedBytes, getUnsharedIntrinsicBytes()));
+        report.append(String.format("  extrinsic: %,d bytes shallow, %,d bytes retained, %.1f bytes per instance%n",
+                extrinsicShallowBytes, extrinsicRetainedBytes, instances == 0 ? 0.0 : (double) extrinsicRetainedBytes / instances));
+        for(Map.Entry<String, Integer> type : instancesPerType.entrySet()) {
+            report.append(String.format("  %-12s %,d instances%n", type.getKey(), type.getValue()));
+        }
+        return report.toString();
+    }
+
+    // Shallow size and the reference fields the retained walk can follow, per class.
+    private static class ClassLayout {
+
+        final long shallowSize;
+        final List<Field> references = new ArrayList<>();
+
+        ClassLayout(Class<?> type) {
+            long fields = 0;
+            for(Class<?> current = type; current != null; current = current.getSuperclass()) {
+                for(Field field : current.getDeclaredFields()) {
+                    if(Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    if(field.getType().isPrimitive()) {
+                        fields += primitiveSize(field.getType());
+                    } else {
+                        fields += REFERENCE;
+                        if(field.trySetAccessible()) {
+                            references.add(field);
+                        }
+                    }
+                }
+            }
+            this.shallowSize = align(OBJECT_HEADER + fields);
+        }
+    }
+
+}
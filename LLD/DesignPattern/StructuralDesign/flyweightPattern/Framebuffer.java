@@ -0,0 +1,61 @@
+package DesignPattern.StructuralDesign.flyweightPattern;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/*
+ * ARGB pixels kept off the Java heap in a direct buffer, one int per pixel,
+ * row after row. A million-robot scene redraws it every frame, so keeping it
+ * out of the heap spares the garbage collector from scanning or copying it,
+ * and it can be handed to native code as is.
+ */
+public class Framebuffer {
+
+    private final int width;
+    private final int height;
+    private final IntBuffer pixels;
+
+    // A direct buffer holds at most Integer.MAX_VALUE bytes, so about 536 million pixels.
+    public Framebuffer(int width, int height) {
+        long bytes = (long) width * height * 4;
+        if(width <= 0 || height <= 0 || bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Cannot hold a " + width + "x" + height + " frame in one direct buffer");
+        }
+        this.width = width;
+        this.height = height;
+        this.pixels = ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+
+    public void clear(int argb) {
+        for(int i = 0, end = width * height; i < end; i++) {
+            pixels.put(i, argb);
+        }
+    }
+
+    public int getPixel(int x, int y) {
+        return pixels.get(y * width + x);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    IntBuffer pixels() {
+        return pixels;
+    }
+
+    // Cheap content hash, to check that two renderings produced the same frame.
+    public long checksum() {
+        long hash = 0;
+        for(int i = 0, end = width * height; i < end; i++) {
+            hash = hash * 31 + pixels.get(i);
+        }
+        return hash;
+    }
+
+}
@@ -11,6 +11,11 @@ public class HumanoidRobotImpl implements IRobot{
         System.out.println("Displaying Humanoid Robot at coordinates: " + x + ", " + y);
     }
 
+    @Override
+    public Sprite getBody() {
+        return body;
+    }
+
     HumanoidRobotImpl(String type, Sprite body){
      this.type = type;
      this.body = body;   
@@ -3,5 +3,8 @@ package DesignPattern.StructuralDesign.flyweightPattern;
 public interface IRobot {
 
     void display(int x, int y);
+
+    // The shared intrinsic state: what every instance of this robot type looks like.
+    Sprite getBody();
     
 }
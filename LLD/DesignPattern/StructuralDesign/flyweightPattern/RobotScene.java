@@ -0,0 +1,118 @@
+package DesignPattern.StructuralDesign.flyweightPattern;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * The extrinsic state of the flyweight pattern for a whole scene: where
+ * each robot instance stands and which flyweight it uses. Instances are not
+ * objects but indexes into primitive arrays (x, y and a type index into a
+ * small table of flyweights), so a million robots cost 10 bytes each and
+ * a renderer can stream through them without chasing pointers.
+ *
+ * Not thread-safe: one thread edits the scene, and it must not be edited
+ * while a frame is rendered from it.
+ */
+public class RobotScene {
+
+    private int[] xs;
+    private int[] ys;
+    private short[] types;
+    private int size;
+    private final List<IRobot> typeTable = new ArrayList<>();
+    private final Map<IRobot, Integer> typeIndexes = new IdentityHashMap<>();
+
+    public RobotScene(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        this.xs = new int[capacity];
+        this.ys = new int[capacity];
+        this.types = new short[capacity];
+    }
+
+    // Places a robot of a registered type; returns its instance id, or -1 for an unknown type.
+    public int add(String type, int x, int y) {
+        IRobot robot = RoboticFactory.createRobot(type);
+        return robot == null ? -1 : add(robot, x, y);
+    }
+
+    public int add(IRobot robot, int x, int y) {
+        if(size == xs.length) {
+            int capacity = size + (size >> 1);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+            types = Arrays.copyOf(types, capacity);
+        }
+        xs[size] = x;
+        ys[size] = y;
+        types[size] = (short) typeIndexOf(robot);
+        return size++;
+    }
+
+    private int typeIndexOf(IRobot robot) {
+        Integer index = typeIndexes.get(robot);
+        if(index == null) {
+            if(typeTable.size() > Short.MAX_VALUE) {
+                throw new IllegalStateException("A scene holds at most " + (Short.MAX_VALUE + 1) + " robot types");
+            }
+            index = typeTable.size();
+            typeTable.add(robot);
+            typeIndexes.put(robot, index);
+        }
+        return index;
+    }
+
+    public void move(int id, int x, int y) {
+        xs[id] = x;
+        ys[id] = y;
+    }
+
+    // Hands the instance's extrinsic state to its flyweight.
+    public void display(int id) {
+        typeTable.get(types[id]).display(xs[id], ys[id]);
+    }
+
+    public int getX(int id) {
+        return xs[id];
+    }
+
+    public int getY(int id) {
+        return ys[id];
+    }
+
+    public IRobot getRobot(int id) {
+        return typeTable.get(types[id]);
+    }
+
+    public int getTypeIndex(int id) {
+        return types[id];
+    }
+
+    public IRobot getType(int typeIndex) {
+        return typeTable.get(typeIndex);
+    }
+
+    public int getTypeCount() {
+        return typeTable.size();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Raw arrays for renderers and indexes in this package; only the first size() entries are valid.
+    int[] xs() {
+        return xs;
+    }
+
+    int[] ys() {
+        return ys;
+    }
+
+    short[] types() {
+        return types;
+    }
+
+}
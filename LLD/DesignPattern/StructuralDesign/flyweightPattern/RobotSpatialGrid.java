@@ -0,0 +1,323 @@
+package DesignPattern.StructuralDesign.flyweightPattern;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/*
+ * Uniform grid over the positions of a RobotScene's instances, so viewport
+ * and proximity queries look at the few cells they overlap instead of
+ * every robot.
+ *
+ * Like the scene itself the index is made of int arrays, not objects: each
+ * cell holds the head of a doubly linked list of instance ids, threaded
+ * through next[] and prev[], and cellOf[] remembers the cell an instance is
+ * filed under. Moving a robot within its cell touches nothing but the
+ * scene; moving it to another cell unlinks and relinks it, both O(1). A
+ * rectangle query visits the cells it overlaps and checks the exact
+ * positions there, so it costs the number of those cells plus the robots
+ * in them. Positions outside the world are filed in the nearest border
+ * cell and are still found by exact-position queries.
+ *
+ * Pick the cell size near the typical query size; a viewport should cover
+ * a handful to a few hundred cells. Robots must be moved through the grid
+ * (not through RobotScene.move) for the index to stay right, and robots
+ * added to the scene must be added here too. Not thread-safe, like the scene.
+ */
+public class RobotSpatialGrid {
+
+    private static final int NONE = -1;
+
+    private final RobotScene scene;
+    private final int cellSize;
+    private final int columns;
+    private final int rows;
+    private final int[] heads;
+    private int[] next;
+    private int[] prev;
+    private int[] cellOf;
+    private int indexed;
+
+    // Covers [0, worldWidth) x [0, worldHeight) and indexes every robot already in the scene.
+    public RobotSpatialGrid(RobotScene scene, int worldWidth, int worldHeight, int cellSize) {
+        if(worldWidth <= 0 || worldHeight <= 0 || cellSize <= 0) {
+            throw new IllegalArgumentException("World and cell sizes must be positive");
+        }
+        this.scene = scene;
+        this.cellSize = cellSize;
+        this.columns = (worldWidth + cellSize - 1) / cellSize;
+        this.rows = (worldHeight + cellSize - 1) / cellSize;
+        this.heads = new int[columns * rows];
+        Arrays.fill(heads, NONE);
+        int capacity = Math.max(16, scene.size());
+        this.next = new int[capacity];
+        this.prev = new int[capacity];
+        this.cellOf = new int[capacity];
+        addNew();
+    }
+
+    // Indexes the robots added to the scene since the last call.
+    public void addNew() {
+        int size = scene.size();
+        if(size > next.length) {
+            int capacity = Math.max(size, next.length + (next.length >> 1));
+            next = Arrays.copyOf(next, capacity);
+            prev = Arrays.copyOf(prev, capacity);
+            cellOf = Arrays.copyOf(cellOf, capacity);
+        }
+        for(int id = indexed; id < size; id++) {
+            link(id, cellAt(scene.getX(id), scene.getY(id)));
+        }
+        indexed = size;
+    }
+
+    public void move(int id, int x, int y) {
+        scene.move(id, x, y);
+        int cell = cellAt(x, y);
+        if(cell != cellOf[id]) {
+            unlink(id);
+            link(id, cell);
+        }
+    }
+
+    private void link(int id, int cell) {
+        int head = heads[cell];
+        next[id] = head;
+        prev[id] = NONE;
+        if(head != NONE) {
+            prev[head] = id;
+        }
+        heads[cell] = id;
+        cellOf[id] = cell;
+    }
+
+    private void unlink(int id) {
+        int before = prev[id];
+        int after = next[id];
+        if(before == NONE) {
+            heads[cellOf[id]] = after;
+        } else {
+            next[before] = after;
+        }
+        if(after != NONE) {
+            prev[after] = before;
+        }
+    }
+
+    private int cellAt(int x, int y) {
+        return row(y) * columns + column(x);
+    }
+
+    private int column(int x) {
+        return Math.min(columns - 1, Math.max(0, x / cellSize));
+    }
+
+    private int row(int y) {
+        return Math.min(rows - 1, Math.max(0, y / cellSize));
+    }
+
+    // Calls action with every robot standing in [left, right] x [top, bottom]; returns how many.
+    public int forEachIn(int left, int top, int right, int bottom, IntConsumer action) {
+        if(left > right || top > bottom) {
+            return 0;
+        }
+        int[] xs = scene.xs();
+        int[] ys = scene.ys();
+        int found = 0;
+        for(int row = row(top), lastRow = row(bottom); row <= lastRow; row++) {
+            for(int cell = row * columns + column(left), lastCell = row * columns + column(right); cell <= lastCell; cell++) {
+                for(int id = heads[cell]; id != NONE; id = next[id]) {
+                    int x = xs[id];
+                    int y = ys[id];
+                    if(x >= left && x <= right && y >= top && y <= bottom) {
+                        action.accept(id);
+                        found++;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    public int[] queryRange(int left, int top, int right, int bottom) {
+        IdList ids = new IdList();
+        forEachIn(left, top, right, bottom, ids);
+        return ids.toArray();
+    }
+
+    // Hands only the robots in the viewport to their flyweights; returns how many were displayed.
+    public int displayViewport(int left, int top, int width, int height) {
+        return forEachIn(left, top, left + width - 1, top + height - 1, scene::display);
+    }
+
+    public int[] withinRadius(int x, int y, int radius) {
+        long limit = (long) radius * radius;
+        int[] xs = scene.xs();
+        int[] ys = scene.ys();
+        IdList ids = new IdList();
+        forEachIn(x - radius, y - radius, x + radius, y + radius, id -> {
+            long dx = xs[id] - x;
+            long dy = ys[id] - y;
+            if(dx * dx + dy * dy <= limit) {
+                ids.accept(id);
+            }
+        });
+        return ids.toArray();
+    }
+
+    /*
+     * The k robots closest to (x, y), nearest first. Searches square rings of
+     * cells outwards from the query's cell, keeping the best k in a max-heap
+     * on distance, and stops once the ring is farther away than the k-th
+     * best distance found.
+     */
+    public int[] nearest(int x, int y, int k) {
+        int wanted = Math.min(k, indexed);
+        if(wanted <= 0) {
+            return new int[0];
+        }
+        int[] xs = scene.xs();
+        int[] ys = scene.ys();
+        int[] heapIds = new int[wanted];
+        long[] heapDistances = new long[wanted];
+        int heapSize = 0;
+        int centreColumn = column(x);
+        int centreRow = row(y);
+        int maxRing = Math.max(Math.max(centreColumn, columns - 1 - centreColumn), Math.max(centreRow, rows - 1 - centreRow));
+        for(int ring = 0; ring <= maxRing; ring++) {
+            if(heapSize == wanted && ring > 0) {
+                // anything in this ring is at least this far away along one axis
+                long gap = ringGap(x, y, centreColumn, centreRow, ring);
+                if(gap * gap > heapDistances[0]) {
+                    break;
+                }
+            }
+            for(int row = centreRow - ring; row <= centreRow + ring; row++) {
+                if(row < 0 || row >= rows) {
+                    continue;
+                }
+                boolean edgeRow = row == centreRow - ring || row == centreRow + ring;
+                int step = edgeRow ? 1 : Math.max(1, 2 * ring);
+                for(int column = centreColumn - ring; column <= centreColumn + ring; column += step) {
+                    if(column < 0 || column >= columns) {
+                        continue;
+                    }
+                    for(int id = heads[row * columns + column]; id != NONE; id = next[id]) {
+                        long dx = xs[id] - x;
+                        long dy = ys[id] - y;
+                        long distance = dx * dx + dy * dy;
+                        if(heapSize < wanted) {
+                            heapIds[heapSize] = id;
+                            heapDistances[heapSize] = distance;
+                            siftUp(heapIds, heapDistances, heapSize++);
+                        } else if(distance < heapDistances[0]) {
+                            heapIds[0] = id;
+                            heapDistances[0] = distance;
+                            siftDown(heapIds, heapDistances, heapSize);
+                        }
+                    }
+                }
+            }
+        }
+        // popping the max-heap yields the farthest first
+        int[] result = new int[heapSize];
+        for(int i = heapSize - 1; i >= 0; i--) {
+            result[i] = heapIds[0];
+            heapIds[0] = heapIds[i];
+            heapDistances[0] = heapDistances[i];
+            siftDown(heapIds, heapDistances, i);
+        }
+        return result;
+    }
+
+    // Smallest distance along one axis from (x, y) to the cells outside rings 0..ring-1, counting
+    // only the sides where such cells exist. Robots outside the world sit in border cells, which
+    // end up inside the searched rings, so the world's edge needs no special case.
+    private long ringGap(int x, int y, int centreColumn, int centreRow, int ring) {
+        long gap = Long.MAX_VALUE;
+        if(centreColumn - ring >= 0) {
+            gap = Math.min(gap, x - (long) (centreColumn - ring + 1) * cellSize + 1);
+        }
+        if(centreColumn + ring < columns) {
+            gap = Math.min(gap, (long) (centreColumn + ring) * cellSize - x);
+        }
+        if(centreRow - ring >= 0) {
+            gap = Math.min(gap, y - (long) (centreRow - ring + 1) * cellSize + 1);
+        }
+        if(centreRow + ring < rows) {
+            gap = Math.min(gap, (long) (centreRow + ring) * cellSize - y);
+        }
+        return Math.max(0, gap);
+    }
+
+    private static void siftUp(int[] ids, long[] distances, int i) {
+        while(i > 0) {
+            int parent = (i - 1) >> 1;
+            if(distances[parent] >= distances[i]) {
+                return;
+            }
+            swap(ids, distances, i, parent);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(int[] ids, long[] distances, int size) {
+        int i = 0;
+        while(true) {
+            int largest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if(left < size && distances[left] > distances[largest]) {
+                largest = left;
+            }
+            if(right < size && distances[right] > distances[largest]) {
+                largest = right;
+            }
+            if(largest == i) {
+                return;
+            }
+            swap(ids, distances, i, largest);
+            i = largest;
+        }
+    }
+
+    private static void swap(int[] ids, long[] distances, int a, int b) {
+        int id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+        long distance = distances[a];
+        distances[a] = distances[b];
+        distances[b] = distance;
+    }
+
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    // Growable list of ids for the array-returning queries.
+    private static class IdList implements IntConsumer {
+
+        private int[] ids = new int[16];
+        private int size;
+
+        @Override
+        public void accept(int id) {
+            if(size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+
+}
@@ -13,6 +13,11 @@ public class RoboticDogImpl implements IRobot{
      this.body = body;   
     }
 
+    @Override
+    public Sprite getBody() {
+        return body;
+    }
+
     @Override
     public void display(int x, int y) { 
         System.out.println("Displaying Robotic Dog at coordinates: " + x + ", " + y);
@@ -1,30 +1,41 @@
 package DesignPattern.StructuralDesign.flyweightPattern;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
+/*
+ * Flyweight registry. Robot types are registered in a table of builders
+ * instead of an if-else on the type string; createRobot builds each type's
+ * flyweight at most once, even when many scene loaders ask for it at the same
+ * time (computeIfAbsent), and once it exists a lookup is a plain lock-free
+ * ConcurrentHashMap read.
+ */
 public class RoboticFactory {
 
-    static Map<String, IRobot> roboticMap = new HashMap<>();
+    static final Map<String, IRobot> roboticMap = new ConcurrentHashMap<>();
+    private static final Map<String, Supplier<IRobot>> builders = new ConcurrentHashMap<>();
+
+    static {
+        registerType("Humanoid", () -> new HumanoidRobotImpl("Humanoid", new Sprite()));
+        registerType("RoboticDog", () -> new RoboticDogImpl("RoboticDog", new Sprite()));
+    }
+
+    // Returns false when the type is already registered; the first builder stays.
+    public static boolean registerType(String type, Supplier<IRobot> builder) {
+        return builders.putIfAbsent(type, builder) == null;
+    }
 
     public static IRobot createRobot(String type){
-        if(roboticMap.containsKey(type)){
-            return roboticMap.get(type);
+        IRobot robot = roboticMap.get(type);
+        if(robot != null) {
+            return robot;
         }
-        if(type.equals("Humanoid")) {
-            Sprite HumanoidSprite = new Sprite();
-            IRobot humanoidRobot = new HumanoidRobotImpl("Humanoid", HumanoidSprite);
-            roboticMap.put("Humanoid", humanoidRobot);
-            return humanoidRobot;
+        Supplier<IRobot> builder = builders.get(type);
+        if(builder == null) {
+            return null;
         }
-        else if(type.equals("RoboticDog")){
-            Sprite RoboticDogSprite = new Sprite();
-            IRobot roboticDog = new RoboticDogImpl("RoboticDog", RoboticDogSprite);
-            roboticMap.put("RoboticDog", roboticDog);
-            return roboticDog;
-        }
-
-        return null;
+        return roboticMap.computeIfAbsent(type, key -> builder.get());
     }
-    
+
 }
@@ -0,0 +1,126 @@
+package DesignPattern.StructuralDesign.flyweightPattern;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/*
+ * A million robots of 64 flyweight types wander over a 1920x1080 frame.
+ * Each frame moves every robot a little (not timed) and renders the scene
+ * with the BatchRenderer; prints the mean and worst frame time against the
+ * 16 ms budget of a 60 fps frame. With more than one core it also renders
+ * on a single thread, so the speed-up from the extra cores is measured
+ * rather than assumed. Last the final frame is checked against the scene
+ * wherever the draw order cannot matter: pixels exactly one robot covers,
+ * and pixels no robot covers.
+ */
+public class SceneBenchmark {
+
+    private static final int FRAME_BUDGET_MILLIS = 16;
+    private static final int BACKGROUND = 0xFF101010;
+    private static final int NONE = -1;
+    private static final int SEVERAL = -2;
+
+    public static void main(String args[]) throws InterruptedException {
+        int robots = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int frames = 60;
+        int width = 1920;
+        int height = 1080;
+        Random random = new Random(1);
+
+        String[] typeNames = new String[64];
+        for(int t = 0; t < typeNames.length; t++) {
+            String name = "SceneBot" + t;
+            String color = String.format("#%06X", random.nextInt(1 << 24));
+            RoboticFactory.registerType(name, () -> new HumanoidRobotImpl(name, new Sprite(name + ".png", color, 3, 3)));
+            typeNames[t] = name;
+        }
+        RobotScene scene = new RobotScene(robots);
+        for(int i = 0; i < robots; i++) {
+            scene.add(typeNames[random.nextInt(typeNames.length)], random.nextInt(width), random.nextInt(height));
+        }
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        Framebuffer frame = new Framebuffer(width, height);
+        double meanOnAll = run(scene, frame, cores, frames, random);
+        if(cores > 1) {
+            double meanOnOne = run(scene, frame, 1, frames, random);
+            System.out.printf("speed-up on %d threads: %.2fx%n", cores, meanOnOne / meanOnAll);
+        }
+        verify(scene, frame);
+    }
+
+    // Robots overlap, so most pixels could show either of several colours; only the others are compared.
+    private static void verify(RobotScene scene, Framebuffer frame) {
+        int width = frame.getWidth();
+        int height = frame.getHeight();
+        // the one robot covering each pixel, NONE or SEVERAL
+        int[] coveredBy = new int[width * height];
+        Arrays.fill(coveredBy, NONE);
+        for(int i = 0; i < scene.size(); i++) {
+            Sprite body = scene.getRobot(i).getBody();
+            int x = scene.getX(i);
+            int y = scene.getY(i);
+            for(int row = Math.max(0, y); row < Math.min(height, y + body.getHeight()); row++) {
+                for(int col = Math.max(0, x); col < Math.min(width, x + body.getWidth()); col++) {
+                    int p = row * width + col;
+                    coveredBy[p] = coveredBy[p] == NONE ? i : SEVERAL;
+                }
+            }
+        }
+        long single = 0;
+        long empty = 0;
+        long wrong = 0;
+        for(int p = 0; p < coveredBy.length; p++) {
+            int expected;
+            if(coveredBy[p] == NONE) {
+                expected = BACKGROUND;
+                empty++;
+            } else if(coveredBy[p] >= 0) {
+                expected = scene.getRobot(coveredBy[p]).getBody().getArgb();
+                single++;
+            } else {
+                continue;
+            }
+            if(frame.getPixel(p % width, p / width) != expected) {
+                wrong++;
+            }
+        }
+        System.out.printf("checked %d pixels under exactly one robot and %d under none: %d wrong%n", single, empty, wrong);
+    }
+
+    // Returns the mean frame time in milliseconds.
+    private static double run(RobotScene scene, Framebuffer frame, int threads, int frames, Random random) throws InterruptedException {
+        int robots = scene.size();
+        int width = frame.getWidth();
+        int height = frame.getHeight();
+        long[] frameNanos = new long[frames];
+        try (BatchRenderer renderer = new BatchRenderer(threads, 32)) {
+            for(int warmup = 0; warmup < 20; warmup++) {
+                renderer.render(scene, frame, BACKGROUND);
+            }
+            for(int f = 0; f < frames; f++) {
+                for(int i = 0; i < robots; i++) {
+                    scene.move(i, Math.floorMod(scene.getX(i) + random.nextInt(3) - 1, width),
+                            Math.floorMod(scene.getY(i) + random.nextInt(3) - 1, height));
+                }
+                long start = System.nanoTime();
+                renderer.render(scene, frame, BACKGROUND);
+                frameNanos[f] = System.nanoTime() - start;
+            }
+        }
+        Arrays.sort(frameNanos);
+        long total = 0;
+        for(long nanos : frameNanos) {
+            total += nanos;
+        }
+        double mean = total / 1e6 / frames;
+        double worst = frameNanos[frames - 1] / 1e6;
+        System.out.printf("%d robots, %d types, %dx%d on %d thread(s): mean %.2f ms, median %.2f ms, worst %.2f ms per frame (%s)%n",
+                robots, scene.getTypeCount(), width, height, threads, mean, frameNanos[frames / 2] / 1e6, worst,
+                worst <= FRAME_BUDGET_MILLIS ? "within the " + FRAME_BUDGET_MILLIS + " ms budget"
+                        : mean <= FRAME_BUDGET_MILLIS ? "mean within the " + FRAME_BUDGET_MILLIS + " ms budget, worst over"
+                        : "over the " + FRAME_BUDGET_MILLIS + " ms budget");
+        return mean;
+    }
+
+}
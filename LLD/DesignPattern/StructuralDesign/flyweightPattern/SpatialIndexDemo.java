@@ -0,0 +1,115 @@
+package DesignPattern.StructuralDesign.flyweightPattern;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/*
+ * A million robots on a 20000x20000 world, indexed by a RobotSpatialGrid.
+ * Times incremental moves, viewport queries and nearest-neighbour lookups
+ * against scanning every robot, checks that both give the same answers, and
+ * finally displays only the robots in a small viewport.
+ */
+public class SpatialIndexDemo {
+
+    public static void main(String args[]) {
+        int robots = 1_000_000;
+        int world = 20_000;
+        Random random = new Random(3);
+        RobotScene scene = new RobotScene(robots);
+        String[] types = {"Humanoid", "RoboticDog"};
+        for(int i = 0; i < robots; i++) {
+            scene.add(types[i & 1], random.nextInt(world), random.nextInt(world));
+        }
+        long start = System.nanoTime();
+        RobotSpatialGrid grid = new RobotSpatialGrid(scene, world, world, 128);
+        System.out.printf("indexed %d robots in %dx%d cells of %d px in %.1f ms%n", robots, grid.getColumns(),
+                grid.getRows(), grid.getCellSize(), (System.nanoTime() - start) / 1e6);
+
+        start = System.nanoTime();
+        for(int i = 0; i < robots; i++) {
+            grid.move(i, Math.floorMod(scene.getX(i) + random.nextInt(21) - 10, world),
+                    Math.floorMod(scene.getY(i) + random.nextInt(21) - 10, world));
+        }
+        System.out.printf("moved every robot: %.1f ns per move%n", (double) (System.nanoTime() - start) / robots);
+
+        int queries = 200;
+        long gridNanos = 0;
+        long scanNanos = 0;
+        int visible = 0;
+        boolean same = true;
+        for(int q = 0; q < queries; q++) {
+            int left = random.nextInt(world - 1920);
+            int top = random.nextInt(world - 1080);
+            start = System.nanoTime();
+            int[] found = grid.queryRange(left, top, left + 1919, top + 1079);
+            gridNanos += System.nanoTime() - start;
+            start = System.nanoTime();
+            int[] scanned = scan(scene, left, top, left + 1919, top + 1079);
+            scanNanos += System.nanoTime() - start;
+            Arrays.sort(found);
+            same &= Arrays.equals(found, scanned);
+            visible += found.length;
+        }
+        System.out.printf("1920x1080 viewport, %d robots on average: grid %.3f ms, full scan %.3f ms, same results: %b%n",
+                visible / queries, gridNanos / 1e6 / queries, scanNanos / 1e6 / queries, same);
+
+        for(int warmup = 0; warmup < 5_000; warmup++) {
+            grid.nearest(random.nextInt(world), random.nextInt(world), 10);
+        }
+        gridNanos = 0;
+        scanNanos = 0;
+        same = true;
+        for(int q = 0; q < queries; q++) {
+            int x = random.nextInt(world);
+            int y = random.nextInt(world);
+            start = System.nanoTime();
+            int[] nearest = grid.nearest(x, y, 10);
+            gridNanos += System.nanoTime() - start;
+            start = System.nanoTime();
+            long[] expected = nearestByScan(scene, x, y, 10);
+            scanNanos += System.nanoTime() - start;
+            for(int i = 0; i < nearest.length; i++) {
+                same &= distance(scene, nearest[i], x, y) == expected[i];
+            }
+            same &= nearest.length == expected.length;
+        }
+        System.out.printf("10 nearest robots: grid %.1f us, full scan %.3f ms, same distances: %b%n",
+                gridNanos / 1e3 / queries, scanNanos / 1e6 / queries, same);
+
+        System.out.println("robots in the 80x80 viewport at (5000, 5000):");
+        int displayed = grid.displayViewport(5_000, 5_000, 80, 80);
+        System.out.println(displayed + " of " + robots + " robots displayed");
+    }
+
+    private static int[] scan(RobotScene scene, int left, int top, int right, int bottom) {
+        int[] ids = new int[64];
+        int count = 0;
+        for(int id = 0; id < scene.size(); id++) {
+            int x = scene.getX(id);
+            int y = scene.getY(id);
+            if(x >= left && x <= right && y >= top && y <= bottom) {
+                if(count == ids.length) {
+                    ids = Arrays.copyOf(ids, count * 2);
+                }
+                ids[count++] = id;
+            }
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    private static long[] nearestByScan(RobotScene scene, int x, int y, int k) {
+        long[] distances = new long[scene.size()];
+        for(int id = 0; id < scene.size(); id++) {
+            distances[id] = distance(scene, id, x, y);
+        }
+        Arrays.sort(distances);
+        return Arrays.copyOf(distances, Math.min(k, distances.length));
+    }
+
+    private static long distance(RobotScene scene, int id, int x, int y) {
+        long dx = scene.getX(id) - x;
+        long dy = scene.getY(id) - y;
+        return dx * dx + dy * dy;
+    }
+
+}
@@ -1,14 +1,74 @@
 package DesignPattern.StructuralDesign.flyweightPattern;
 
+import java.util.HashMap;
+import java.util.Map;
+
 public class Sprite {
-    
+
+    // Colour of a sprite whose colour name is unknown, the usual "missing texture" magenta.
+    public static final int MISSING_ARGB = 0xFFFF00FF;
+
+    private static final long UNKNOWN_SIZE = -1;
+
+    private static final Map<String, Integer> NAMED_COLORS = new HashMap<>();
+
+    static {
+        NAMED_COLORS.put("black", 0xFF000000);
+        NAMED_COLORS.put("white", 0xFFFFFFFF);
+        NAMED_COLORS.put("silver", 0xFFC0C0C0);
+        NAMED_COLORS.put("gray", 0xFF808080);
+        NAMED_COLORS.put("red", 0xFFFF0000);
+        NAMED_COLORS.put("green", 0xFF008000);
+        NAMED_COLORS.put("blue", 0xFF0000FF);
+        NAMED_COLORS.put("yellow", 0xFFFFFF00);
+        NAMED_COLORS.put("orange", 0xFFFFA500);
+        NAMED_COLORS.put("gold", 0xFFFFD700);
+    }
+
     private String image;
     private String color;
+    private int argb;
+    private int width;
+    private int height;
+    private SpriteStore store;
+    // width << 32 | height once known; an image-backed sprite learns it on first use
+    private volatile long size;
     
     public Sprite() {
         // Sprite initialization
-        this.image = "humanoid_sprite.png";
-        this.color = "silver";
+        this("humanoid_sprite.png", "silver", 4, 4);
+    }
+
+    // color is a name from the table above or #RRGGBB / #AARRGGBB; width and height are in pixels.
+    public Sprite(String image, String color, int width, int height) {
+        this.image = image;
+        this.width = width;
+        this.height = height;
+        this.size = pack(width, height);
+        setColor(color);
+    }
+
+    // Image-backed sprite: its pixels and size come from the store when first drawn.
+    // color and a 1x1 size are the fallback when the image cannot be loaded.
+    public Sprite(String image, String color, SpriteStore store) {
+        this(image, color, 1, 1);
+        this.store = store;
+        this.size = UNKNOWN_SIZE;
+    }
+
+    static int parseColor(String color) {
+        if(color == null) {
+            return MISSING_ARGB;
+        }
+        if(color.startsWith("#") && (color.length() == 7 || color.length() == 9)) {
+            try {
+                long value = Long.parseLong(color.substring(1), 16);
+                return (int) (color.length() == 7 ? 0xFF000000L | value : value);
+            } catch (NumberFormatException e) {
+                return MISSING_ARGB;
+            }
+        }
+        return NAMED_COLORS.getOrDefault(color.toLowerCase(), MISSING_ARGB);
     }
     
     public String getImage() {
@@ -17,6 +77,9 @@ public class Sprite {
     
     public void setImage(String image) {
         this.image = image;
+        if(store != null) {
+            size = UNKNOWN_SIZE;
+        }
     }
     
     public String getColor() {
@@ -25,6 +88,40 @@ public class Sprite {
     
     public void setColor(String color) {
         this.color = color;
+        this.argb = parseColor(color);
+    }
+
+    public int getArgb() {
+        return argb;
+    }
+
+    public int getWidth() {
+        return (int) (size() >>> 32);
+    }
+
+    public int getHeight() {
+        return (int) size();
+    }
+
+    // The image's size does not change when it is evicted and mapped again, so only the
+    // first call asks the store; later calls are one volatile read.
+    private long size() {
+        long known = size;
+        if(known == UNKNOWN_SIZE) {
+            SpritePixels pixels = getPixels();
+            known = pixels == null ? pack(width, height) : pack(pixels.getWidth(), pixels.getHeight());
+            size = known;
+        }
+        return known;
+    }
+
+    private static long pack(int width, int height) {
+        return (long) width << 32 | (height & 0xFFFFFFFFL);
+    }
+
+    // Not kept by the sprite, so an evicted image is released; null for plain colour sprites.
+    public SpritePixels getPixels() {
+        return store == null ? null : store.get(image);
     }
     
     @Override
@@ -0,0 +1,57 @@
+package DesignPattern.StructuralDesign.flyweightPattern;
+
+import java.nio.IntBuffer;
+
+/*
+ * The pixels of one sprite image, mapped read-only from its file by a
+ * SpriteStore. The file is a big-endian int width and height followed by
+ * width * height ARGB pixels, row after row, so the mapping is the image
+ * itself: nothing is decoded or copied onto the heap, and the operating
+ * system only reads the pages that are actually drawn.
+ */
+public class SpritePixels {
+
+    static final int HEADER_BYTES = 8;
+
+    private final String image;
+    private final int width;
+    private final int height;
+    private final IntBuffer argb;
+
+    SpritePixels(String image, int width, int height, IntBuffer argb) {
+        this.image = image;
+        this.width = width;
+        this.height = height;
+        this.argb = argb;
+    }
+
+    public int getArgb(int x, int y) {
+        return argb.get(y * width + x);
+    }
+
+    public String getImage() {
+        return image;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    // Size of the mapping, what the store charges against its budget.
+    public long getBytes() {
+        return HEADER_BYTES + 4L * width * height;
+    }
+
+    IntBuffer argb() {
+        return argb;
+    }
+
+    @Override
+    public String toString() {
+        return "SpritePixels [image=" + image + ", " + width + "x" + height + "]";
+    }
+}
@@ -0,0 +1,156 @@
+package DesignPattern.StructuralDesign.flyweightPattern;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Lazily loaded sprite images, shared by every flyweight that names them.
+ *
+ * An image is mapped from its file in the store's directory the first time
+ * a sprite asks for it, and the mapping is kept in an LRU cache with a
+ * budget on the total mapped bytes: when a new image pushes the total over
+ * the budget, the least recently drawn images are dropped until it fits.
+ * Sprites keep only the image name and ask the store on every use, so all
+ * robot flyweights of a type - and every type using the same image - draw
+ * from one mapping, and an evicted mapping is really unreferenced and
+ * unmapped by the garbage collector. Mapping a file only sets up the
+ * mapping; its pages are read from disk when they are first touched. An
+ * image that has no valid file is remembered as missing, so asking for it
+ * again does not touch the file system; a file added later is only seen
+ * after forgetMissing().
+ *
+ * Thread-safe; lookups take one lock, so callers that draw many robots
+ * look an image up once per batch, not once per robot.
+ */
+public class SpriteStore {
+
+    private final Path directory;
+    private final long byteBudget;
+    private final LinkedHashMap<String, SpritePixels> cache = new LinkedHashMap<>(64, 0.75f, true);
+    private final Set<String> missing = new HashSet<>();
+    private long cachedBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public SpriteStore(Path directory, long byteBudget) {
+        this.directory = directory.toAbsolutePath().normalize();
+        this.byteBudget = byteBudget;
+    }
+
+    // Returns null when the image has no file or the file is not a valid sprite.
+    public synchronized SpritePixels get(String image) {
+        SpritePixels pixels = cache.get(image);
+        if(pixels != null) {
+            hits++;
+            return pixels;
+        }
+        if(missing.contains(image)) {
+            hits++;
+            return null;
+        }
+        misses++;
+        pixels = map(image);
+        if(pixels == null) {
+            missing.add(image);
+            return null;
+        }
+        if(pixels.getBytes() > byteBudget) {
+            // an image larger than the whole budget is handed out but not kept
+            return pixels;
+        }
+        cache.put(image, pixels);
+        cachedBytes += pixels.getBytes();
+        Iterator<Map.Entry<String, SpritePixels>> eldest = cache.entrySet().iterator();
+        while(cachedBytes > byteBudget) {
+            cachedBytes -= eldest.next().getValue().getBytes();
+            eldest.remove();
+            evictions++;
+        }
+        return pixels;
+    }
+
+    private SpritePixels map(String image) {
+        if(image == null) {
+            return null;
+        }
+        Path file = directory.resolve(image).normalize();
+        if(!file.startsWith(directory) || !Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if(size < SpritePixels.HEADER_BYTES) {
+                return null;
+            }
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int width = map.getInt(0);
+            int height = map.getInt(4);
+            if(width <= 0 || height <= 0 || SpritePixels.HEADER_BYTES + 4L * width * height != size) {
+                return null;
+            }
+            // the mapping stays valid after the channel is closed
+            return new SpritePixels(image, width, height, map.position(SpritePixels.HEADER_BYTES).slice().asIntBuffer());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // Writes argb (width * height pixels, row after row) as a sprite file the store can map.
+    public static void write(Path file, int width, int height, int[] argb) throws IOException {
+        if(argb.length != width * height) {
+            throw new IllegalArgumentException("Need " + width * height + " pixels for " + width + "x" + height);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(SpritePixels.HEADER_BYTES + 4 * argb.length);
+        buffer.putInt(width).putInt(height);
+        buffer.asIntBuffer().put(argb);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            out.write(buffer.array());
+        }
+    }
+
+    public long getByteBudget() {
+        return byteBudget;
+    }
+
+    public synchronized long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    public synchronized int getCachedImages() {
+        return cache.size();
+    }
+
+    public synchronized int getMissingImages() {
+        return missing.size();
+    }
+
+    // Looks for the files of images found missing before on their next use.
+    public synchronized void forgetMissing() {
+        missing.clear();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+}
@@ -0,0 +1,103 @@
+package DesignPattern.StructuralDesign.flyweightPattern;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/*
+ * Writes 300 sprite images to a temporary directory and registers a robot
+ * type for each, backed by a SpriteStore whose budget holds only a quarter
+ * of them. Draws the types with a skewed popularity, as a real scene would,
+ * and prints how the cache fared, that two flyweights naming the same image
+ * share its mapping, and renders a small scene from the mapped images.
+ */
+public class SpriteStoreDemo {
+
+    public static void main(String args[]) throws IOException, InterruptedException {
+        int types = 300;
+        Path assets = Files.createTempDirectory("sprites");
+        Random random = new Random(7);
+        long totalBytes = 0;
+        for(int t = 0; t < types; t++) {
+            int size = 16 + random.nextInt(49);
+            int[] argb = new int[size * size];
+            int color = 0xFF000000 | random.nextInt(1 << 24);
+            for(int y = 0; y < size; y++) {
+                for(int x = 0; x < size; x++) {
+                    // a filled circle on a transparent background
+                    int dx = 2 * x + 1 - size;
+                    int dy = 2 * y + 1 - size;
+                    argb[y * size + x] = dx * dx + dy * dy <= size * size ? color : 0;
+                }
+            }
+            SpriteStore.write(assets.resolve("bot" + t + ".spr"), size, size, argb);
+            totalBytes += SpritePixels.HEADER_BYTES + 4L * argb.length;
+        }
+
+        SpriteStore store = new SpriteStore(assets, totalBytes / 4);
+        String[] typeNames = new String[types];
+        for(int t = 0; t < types; t++) {
+            String name = "AssetBot" + t;
+            String image = "bot" + t + ".spr";
+            RoboticFactory.registerType(name, () -> new HumanoidRobotImpl(name, new Sprite(image, "gray", store)));
+            typeNames[t] = name;
+        }
+        // a dog flyweight reusing the humanoid's image
+        RoboticFactory.registerType("AssetDog0", () -> new RoboticDogImpl("AssetDog0", new Sprite("bot0.spr", "gray", store)));
+
+        System.out.printf("%d images, %d KB on disk, budget %d KB%n", types, totalBytes / 1024, store.getByteBudget() / 1024);
+        System.out.println("mapped before first use: " + store.getCachedImages() + " images");
+
+        for(int i = 0; i < 100_000; i++) {
+            // roughly Zipf: low-numbered types are drawn far more often
+            int t = (int) (types * Math.pow(random.nextDouble(), 3));
+            RoboticFactory.createRobot(typeNames[t]).getBody().getPixels();
+        }
+        System.out.printf("after 100000 lookups: %d hits, %d misses, %d evictions; %d images, %d KB mapped%n",
+                store.getHits(), store.getMisses(), store.getEvictions(), store.getCachedImages(), store.getCachedBytes() / 1024);
+
+        SpritePixels humanoid = RoboticFactory.createRobot("AssetBot0").getBody().getPixels();
+        SpritePixels dog = RoboticFactory.createRobot("AssetDog0").getBody().getPixels();
+        System.out.println("AssetBot0 and AssetDog0 share one mapping: " + (humanoid == dog) + " (" + humanoid + ")");
+
+        // an image without a file falls back to the sprite's colour; the store looks for the file once
+        Sprite lost = new Sprite("no-such-image.spr", "red", store);
+        long missesBefore = store.getMisses();
+        for(int i = 0; i < 1_000; i++) {
+            lost.getPixels();
+        }
+        System.out.printf("missing image: %d file lookup(s) for 1000 uses, drawn %dx%d in #%08X%n",
+                store.getMisses() - missesBefore, lost.getWidth(), lost.getHeight(), lost.getArgb());
+
+        int width = 640;
+        int height = 360;
+        RobotScene scene = new RobotScene(2_000);
+        for(int i = 0; i < 2_000; i++) {
+            scene.add(typeNames[(int) (types * Math.pow(random.nextDouble(), 3))], random.nextInt(width), random.nextInt(height));
+        }
+        scene.add("AssetDog0", 100, 100);
+        Framebuffer frame = new Framebuffer(width, height);
+        try (BatchRenderer renderer = new BatchRenderer(Runtime.getRuntime().availableProcessors(), 64)) {
+            renderer.render(scene, frame, 0xFF000000);
+        }
+        int covered = 0;
+        for(int y = 0; y < height; y++) {
+            for(int x = 0; x < width; x++) {
+                if(frame.getPixel(x, y) != 0xFF000000) {
+                    covered++;
+                }
+            }
+        }
+        int middle = humanoid.getWidth() / 2;
+        System.out.printf("rendered %d robots, %.0f%% of the frame covered; centre of the dog #%08X, its image #%08X%n",
+                scene.size(), 100.0 * covered / (width * height), frame.getPixel(100 + middle, 100 + middle),
+                humanoid.getArgb(middle, middle));
+
+        for(int t = 0; t < types; t++) {
+            Files.deleteIfExists(assets.resolve("bot" + t + ".spr"));
+        }
+        Files.deleteIfExists(assets);
+    }
+
+}
@@ -1,5 +1,7 @@
 package DesignPattern.behavioralDesign.chainOfResponsibility;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public abstract class ATMHandler {
 
     protected ATMHandler nextHandler;
@@ -8,10 +10,38 @@ public abstract class ATMHandler {
         this.nextHandler = nextHandler;
     }
 
-    public abstract void handlerRequest(int amount);
+    public void handlerRequest(int amount) {
+        int remainingAmount = dispense(amount);
+        if(remainingAmount > 0) {
+            if(nextHandler != null) {
+                nextHandler.handlerRequest(remainingAmount);
+            } else {
+                System.out.println("Cannot dispense remaining amount: " + remainingAmount);
+            }
+        }
+    }
+
+    // Pays out whatever this handler can from amount and returns what is left.
+    protected abstract int dispense(int amount);
+
+    public ATMHandler getNextHandler() {
+        return nextHandler;
+    }
 
     public void setNextHandler(ATMHandler nextHandler){
         this.nextHandler = nextHandler;
     }
+
+    // Takes up to notesNeeded notes from the cassette with a CAS loop so that
+    // concurrent withdrawals can never drive the count below zero.
+    protected static int takeNotes(AtomicInteger availableNotes, int notesNeeded) {
+        while(true) {
+            int available = availableNotes.get();
+            int taken = Math.min(notesNeeded, available);
+            if(taken <= 0 || availableNotes.compareAndSet(available, available - taken)) {
+                return Math.max(taken, 0);
+            }
+        }
+    }
     
 }
@@ -0,0 +1,44 @@
+package DesignPattern.behavioralDesign.chainOfResponsibility;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// A handler backed by one cassette of a single note value.
+public abstract class CassetteHandler extends ATMHandler {
+
+    private final int denomination;
+    private final String noteName;
+    private final AtomicInteger availableNotes;
+
+    protected CassetteHandler(ATMHandler nextHandler, int denomination, String noteName, int availableNotes) {
+        super(nextHandler);
+        this.denomination = denomination;
+        this.noteName = noteName;
+        this.availableNotes = new AtomicInteger(availableNotes);
+    }
+
+    @Override
+    protected int dispense(int amount) {
+        int notesNeeded = takeNotes(availableNotes, amount / denomination);
+        if(notesNeeded > 0) {
+            System.out.println("Dispensing " + notesNeeded + " x " + noteName + " notes");
+        }
+        return amount - (notesNeeded * denomination);
+    }
+
+    public int getDenomination() {
+        return denomination;
+    }
+
+    public String getNoteName() {
+        return noteName;
+    }
+
+    AtomicInteger getCassette() {
+        return availableNotes;
+    }
+
+    public int getAvailableNotes() {
+        return availableNotes.get();
+    }
+
+}
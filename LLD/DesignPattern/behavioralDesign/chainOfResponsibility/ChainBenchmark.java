@@ -0,0 +1,75 @@
+package DesignPattern.behavioralDesign.chainOfResponsibility;
+
+// Per-request cost of the linked handler chain versus the compiled chain.
+// Every link but the last has an empty cassette, so each request walks the whole chain.
+public class ChainBenchmark {
+
+    private static final int REQUESTS = 2_000_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String args[]) {
+        System.out.println("handlers   linked ns/op   compiled ns/op");
+        for(int length = 4; length <= 64; length *= 2) {
+            CountingHandler tail = new CountingHandler();
+            ATMHandler head = buildChain(length, tail);
+            CompiledATMChain compiled = CompiledATMChain.compile(head);
+
+            double linked = Double.MAX_VALUE;
+            double flat = Double.MAX_VALUE;
+            for(int round = 0; round < ROUNDS; round++) {
+                linked = Math.min(linked, measureLinked(head));
+                flat = Math.min(flat, measureCompiled(compiled));
+            }
+            if(tail.requests != (long) 2 * ROUNDS * REQUESTS) {
+                throw new IllegalStateException("Chains disagree: " + tail.requests);
+            }
+            System.out.printf("%8d   %12.1f   %14.1f%n", length, linked, flat);
+        }
+    }
+
+    private static ATMHandler buildChain(int length, ATMHandler tail) {
+        ATMHandler head = tail;
+        for(int i = 1; i < length; i++) {
+            switch (i % 4) {
+                case 0: head = new HundredHandler(head, 0); break;
+                case 1: head = new TwoHundredHandler(head, 0); break;
+                case 2: head = new FiveHundredHandler(head, 0); break;
+                default: head = new ThousandHandler(head, 0); break;
+            }
+        }
+        return head;
+    }
+
+    private static double measureLinked(ATMHandler head) {
+        long start = System.nanoTime();
+        for(int i = 0; i < REQUESTS; i++) {
+            head.handlerRequest(1000);
+        }
+        return (System.nanoTime() - start) / (double) REQUESTS;
+    }
+
+    private static double measureCompiled(CompiledATMChain chain) {
+        long start = System.nanoTime();
+        for(int i = 0; i < REQUESTS; i++) {
+            chain.handlerRequest(1000);
+        }
+        return (System.nanoTime() - start) / (double) REQUESTS;
+    }
+
+    // Accepts whatever reaches the end of the chain, without printing.
+    static class CountingHandler extends ATMHandler {
+
+        long requests;
+
+        CountingHandler() {
+            super(null);
+        }
+
+        @Override
+        protected int dispense(int amount) {
+            requests++;
+            return 0;
+        }
+    }
+    
+}
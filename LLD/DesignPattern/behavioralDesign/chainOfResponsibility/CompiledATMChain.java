@@ -0,0 +1,105 @@
+package DesignPattern.behavioralDesign.chainOfResponsibility;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * A configured ATMHandler chain flattened into arrays.
+ *
+ * Cassette handlers are inlined into parallel primitive arrays, so walking
+ * them is a plain loop with no virtual call and no stack growth. Any other
+ * handler type, and a cassette handler that overrides dispense(), keeps its
+ * own dispense() and is called from the same loop. The first handler that
+ * overrides handlerRequest() ends the compiled part: the rest of the
+ * request goes to it and walks the linked chain from there.
+ * The compiled chain shares the cassettes with the original handlers, but
+ * it is a snapshot of the links: compile again after calling setNextHandler.
+ */
+public final class CompiledATMChain {
+
+    private final ATMHandler[] handlers;
+    private final int[] denominations;
+    private final AtomicInteger[] cassettes;
+    private final String[] noteNames;
+    private final ATMHandler linkedTail;
+
+    private CompiledATMChain(List<ATMHandler> chain, ATMHandler linkedTail) {
+        this.linkedTail = linkedTail;
+        int size = chain.size();
+        handlers = new ATMHandler[size];
+        denominations = new int[size];
+        cassettes = new AtomicInteger[size];
+        noteNames = new String[size];
+        for(int i = 0; i < size; i++) {
+            ATMHandler handler = chain.get(i);
+            if(handler instanceof CassetteHandler && declaredBy(handler, "dispense") == CassetteHandler.class) {
+                CassetteHandler cassetteHandler = (CassetteHandler) handler;
+                denominations[i] = cassetteHandler.getDenomination();
+                cassettes[i] = cassetteHandler.getCassette();
+                noteNames[i] = cassetteHandler.getNoteName();
+            } else {
+                handlers[i] = handler;
+            }
+        }
+    }
+
+    public static CompiledATMChain compile(ATMHandler head) {
+        List<ATMHandler> chain = new ArrayList<>();
+        Set<ATMHandler> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for(ATMHandler handler = head; handler != null; handler = handler.getNextHandler()) {
+            if(!seen.add(handler)) {
+                throw new IllegalArgumentException("ATM handler chain contains a cycle");
+            }
+            if(declaredBy(handler, "handlerRequest") != ATMHandler.class) {
+                return new CompiledATMChain(chain, handler);
+            }
+            chain.add(handler);
+        }
+        return new CompiledATMChain(chain, null);
+    }
+
+    // The class whose version of the (int) method the handler runs.
+    private static Class<?> declaredBy(ATMHandler handler, String method) {
+        for(Class<?> type = handler.getClass(); type != null; type = type.getSuperclass()) {
+            try {
+                type.getDeclaredMethod(method, int.class);
+                return type;
+            } catch (NoSuchMethodException e) {
+                // inherited, keep looking up
+            }
+        }
+        return null;
+    }
+
+    public void handlerRequest(int amount) {
+        int remainingAmount = amount;
+        for(int i = 0; i < denominations.length && remainingAmount > 0; i++) {
+            int denomination = denominations[i];
+            if(denomination > 0) {
+                int notesNeeded = ATMHandler.takeNotes(cassettes[i], remainingAmount / denomination);
+                if(notesNeeded > 0) {
+                    System.out.println("Dispensing " + notesNeeded + " x " + noteNames[i] + " notes");
+                    remainingAmount -= notesNeeded * denomination;
+                }
+            } else {
+                remainingAmount = handlers[i].dispense(remainingAmount);
+            }
+        }
+        if(remainingAmount > 0) {
+            if(linkedTail != null) {
+                linkedTail.handlerRequest(remainingAmount);
+            } else {
+                System.out.println("Cannot dispense remaining amount: " + remainingAmount);
+            }
+        }
+    }
+
+    public int size() {
+        return denominations.length;
+    }
+
+}
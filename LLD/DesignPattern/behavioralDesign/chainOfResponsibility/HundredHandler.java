@@ -1,36 +1,9 @@
 package DesignPattern.behavioralDesign.chainOfResponsibility;
 
-public class HundredHandler extends ATMHandler{
-
-    private int availableNotes;
+public class HundredHandler extends CassetteHandler{
 
     public HundredHandler(ATMHandler nextHandler, int availableNotes) {
-        super(nextHandler);
-        this.availableNotes = availableNotes;
-    }
-
-    @Override
-    public void handlerRequest(int amount) {
-        int notesNeeded = amount / 100;
-        if(notesNeeded > availableNotes){
-            notesNeeded = availableNotes;
-            availableNotes = 0;
-        }
-        else {
-            availableNotes = availableNotes - notesNeeded;
-        }
-        if(notesNeeded > 0) {
-            System.out.println("Dispensing " + notesNeeded + " x hundred notes");
-        }
-        int remainingAmount = amount -( notesNeeded * 100);
-        if(remainingAmount > 0) {
-            if(nextHandler != null) {
-                nextHandler.handlerRequest(remainingAmount);
-            } else {
-                System.out.println("Cannot dispense remaining amount: " + remainingAmount);
-            }
-        }
-
+        super(nextHandler, 100, "hundred", availableNotes);
     }
     
 }
@@ -0,0 +1,58 @@
+package DesignPattern.behavioralDesign.statePattern;
+
+/*
+ * The state of many ATM sessions, one byte each, driven by a shared
+ * TableDrivenATM. Different sessions may be driven from different threads;
+ * a single session must only be driven by one thread at a time.
+ */
+public final class ATMSessions {
+
+    private final TableDrivenATM atm;
+    private final byte[] states;
+
+    public ATMSessions(TableDrivenATM atm, int sessionCount) {
+        this.atm = atm;
+        this.states = new byte[sessionCount];
+    }
+
+    // Applies the event and returns the table cell, which tells whether the
+    // event was accepted and which message belongs to it.
+    public int fire(int session, int event) {
+        int cell = TableDrivenATM.cell(states[session], event);
+        states[session] = (byte) atm.nextState(cell);
+        return cell;
+    }
+
+    public boolean insertCard(int session) {
+        return atm.isAccepted(fire(session, TableDrivenATM.INSERT_CARD));
+    }
+
+    public boolean enterPin(int session) {
+        return atm.isAccepted(fire(session, TableDrivenATM.ENTER_PIN));
+    }
+
+    public boolean withdrawCash(int session) {
+        return atm.isAccepted(fire(session, TableDrivenATM.WITHDRAW_CASH));
+    }
+
+    public boolean ejectCard(int session) {
+        return atm.isAccepted(fire(session, TableDrivenATM.EJECT_CARD));
+    }
+
+    public int getState(int session) {
+        return states[session];
+    }
+
+    public void reset(int session) {
+        states[session] = TableDrivenATM.IDLE;
+    }
+
+    public int size() {
+        return states.length;
+    }
+
+    public TableDrivenATM getAtm() {
+        return atm;
+    }
+
+}
@@ -0,0 +1,42 @@
+package DesignPattern.behavioralDesign.statePattern;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AuthorizationDemo {
+
+    private static final long HOST_LATENCY_MILLIS = 100;
+
+    public static void main(String[] args) {
+        TableDrivenATM atm = new TableDrivenATM();
+        run("One request per exchange", atm, 2_000, 1, 32, 0);
+        run("Batched and pipelined", atm, 200_000, 1024, 32, 2_000);
+    }
+
+    private static void run(String label, TableDrivenATM atm, int sessionCount, int maxBatchSize, int maxInFlight, long lingerMicros) {
+        try (SimulatedBankHost host = new SimulatedBankHost(HOST_LATENCY_MILLIS, 8_000);
+             BatchingAuthorizationClient client = new BatchingAuthorizationClient(host, maxBatchSize, maxInFlight, lingerMicros)) {
+            AuthorizingATM authorizingATM = new AuthorizingATM(new ATMSessions(atm, sessionCount), client);
+            AtomicInteger withdrawn = new AtomicInteger();
+            CompletableFuture<?>[] sessions = new CompletableFuture<?>[sessionCount];
+
+            long start = System.nanoTime();
+            for(int session = 0; session < sessionCount; session++) {
+                int amount = 100 * (1 + session % 100);
+                sessions[session] = authorizingATM.withdraw(session, 4_000_000_000L + session, amount)
+                        .thenAccept(ok -> {
+                            if(ok) {
+                                withdrawn.incrementAndGet();
+                            }
+                        });
+            }
+            CompletableFuture.allOf(sessions).join();
+            long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+
+            System.out.printf("%s: %d sessions in %d ms (%d sessions/s) at %d ms host latency, %d exchanges, %.1f requests per exchange, %d withdrawn%n",
+                    label, sessionCount, elapsedMs, sessionCount * 1000L / elapsedMs, HOST_LATENCY_MILLIS,
+                    host.getExchanges(), host.getRequests() / (double) host.getExchanges(), withdrawn.get());
+        }
+    }
+
+}
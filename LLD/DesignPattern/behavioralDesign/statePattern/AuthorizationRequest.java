@@ -0,0 +1,21 @@
+package DesignPattern.behavioralDesign.statePattern;
+
+public class AuthorizationRequest {
+
+    private final long cardNumber;
+    private final int amount;
+
+    public AuthorizationRequest(long cardNumber, int amount) {
+        this.cardNumber = cardNumber;
+        this.amount = amount;
+    }
+
+    public long getCardNumber() {
+        return cardNumber;
+    }
+
+    public int getAmount() {
+        return amount;
+    }
+    
+}
@@ -0,0 +1,39 @@
+package DesignPattern.behavioralDesign.statePattern;
+
+import java.util.concurrent.CompletableFuture;
+
+/*
+ * ATM sessions with the bank authorization step between PIN entry and
+ * dispensing. The session waits for the host without holding a thread:
+ * the rest of the flow runs when the batched authorization answers.
+ */
+public class AuthorizingATM {
+
+    private final ATMSessions sessions;
+    private final BatchingAuthorizationClient authorizationClient;
+
+    public AuthorizingATM(ATMSessions sessions, BatchingAuthorizationClient authorizationClient) {
+        this.sessions = sessions;
+        this.authorizationClient = authorizationClient;
+    }
+
+    // Completes with true when cash was withdrawn, false when the host declined or could not
+    // answer; either way the card is ejected so the slot is free for the next session.
+    public CompletableFuture<Boolean> withdraw(int session, long cardNumber, int amount) {
+        if(!sessions.insertCard(session) || !sessions.enterPin(session)) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return authorizationClient.authorize(cardNumber, amount).handle((approved, error) -> {
+            if(error == null && approved) {
+                return sessions.withdrawCash(session);
+            }
+            sessions.ejectCard(session);
+            return false;
+        });
+    }
+
+    public ATMSessions getSessions() {
+        return sessions;
+    }
+
+}
@@ -0,0 +1,12 @@
+package DesignPattern.behavioralDesign.statePattern;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// The bank's authorization host. One call is one round trip carrying a whole
+// batch; the answer holds one approval flag per request, in request order.
+public interface BankHost {
+
+    CompletableFuture<boolean[]> authorize(List<AuthorizationRequest> batch);
+
+}
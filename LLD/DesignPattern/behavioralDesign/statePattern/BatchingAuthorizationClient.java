@@ -0,0 +1,147 @@
+package DesignPattern.behavioralDesign.statePattern;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Authorizes withdrawals for many ATM sessions over a few host exchanges.
+ *
+ * Sessions queue their request and get a future back. A sender thread packs
+ * everything waiting (up to maxBatchSize) into one exchange and, without
+ * waiting for the answer, goes on to the next batch, keeping up to
+ * maxInFlight exchanges on the wire at once (pipelining). With host latency L
+ * the client sustains about maxInFlight * maxBatchSize / L authorizations per
+ * second instead of one per L per session.
+ */
+public class BatchingAuthorizationClient implements AutoCloseable {
+
+    private final BankHost host;
+    private final int maxBatchSize;
+    private final long lingerMicros;
+    private final Semaphore inFlight;
+    private final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread sender;
+    // taken to queue a request and to close, so nothing is queued once the sender may have left
+    private final Object intake = new Object();
+    private volatile boolean closed;
+
+    // lingerMicros: how long a partly filled batch may wait for more requests
+    public BatchingAuthorizationClient(BankHost host, int maxBatchSize, int maxInFlight, long lingerMicros) {
+        this.host = host;
+        this.maxBatchSize = maxBatchSize;
+        this.lingerMicros = lingerMicros;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.sender = new Thread(this::sendLoop, "atm-authorization-sender");
+        this.sender.setDaemon(true);
+        this.sender.start();
+    }
+
+    public CompletableFuture<Boolean> authorize(long cardNumber, int amount) {
+        Pending pending = new Pending(new AuthorizationRequest(cardNumber, amount));
+        synchronized (intake) {
+            if(!closed) {
+                queue.add(pending);
+                return pending.approved;
+            }
+        }
+        pending.approved.completeExceptionally(new IllegalStateException("Authorization client is closed"));
+        return pending.approved;
+    }
+
+    private void sendLoop() {
+        while(!closed || !queue.isEmpty()) {
+            List<Pending> batch = new ArrayList<>(maxBatchSize);
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if(first == null) {
+                    continue;
+                }
+                batch.add(first);
+                inFlight.acquire();
+                // while waiting for a free slot more requests may have arrived
+                long lingerUntil = System.nanoTime() + lingerMicros * 1000;
+                queue.drainTo(batch, maxBatchSize - batch.size());
+                while(batch.size() < maxBatchSize && System.nanoTime() < lingerUntil) {
+                    Pending next = queue.poll(lingerUntil - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if(next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                fail(batch, e);
+                return;
+            }
+            send(batch);
+        }
+    }
+
+    private void send(List<Pending> batch) {
+        List<AuthorizationRequest> requests = new ArrayList<>(batch.size());
+        for(Pending pending : batch) {
+            requests.add(pending.request);
+        }
+        CompletableFuture<boolean[]> answer;
+        try {
+            answer = host.authorize(requests);
+        } catch (RuntimeException e) {
+            inFlight.release();
+            fail(batch, e);
+            return;
+        }
+        answer.whenComplete((approvals, error) -> {
+            inFlight.release();
+            if(error != null) {
+                fail(batch, error);
+                return;
+            }
+            if(approvals == null || approvals.length < batch.size()) {
+                fail(batch, new IllegalStateException("Host answered " + (approvals == null ? 0 : approvals.length)
+                        + " of " + batch.size() + " authorizations"));
+                return;
+            }
+            for(int i = 0; i < batch.size(); i++) {
+                batch.get(i).approved.complete(approvals[i]);
+            }
+        });
+    }
+
+    private static void fail(List<Pending> batch, Throwable error) {
+        for(Pending pending : batch) {
+            pending.approved.completeExceptionally(error);
+        }
+    }
+
+    // Sends what is queued, then fails whatever the sender could not take (it was interrupted).
+    @Override
+    public void close() {
+        synchronized (intake) {
+            closed = true;
+        }
+        try {
+            sender.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Pending left;
+        while((left = queue.poll()) != null) {
+            left.approved.completeExceptionally(new IllegalStateException("Authorization client is closed"));
+        }
+    }
+
+    private static class Pending {
+
+        final AuthorizationRequest request;
+        final CompletableFuture<Boolean> approved = new CompletableFuture<>();
+
+        Pending(AuthorizationRequest request) {
+            this.request = request;
+        }
+    }
+
+}
@@ -0,0 +1,77 @@
+package DesignPattern.behavioralDesign.statePattern;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * In-process stand-in for the bank host. Every exchange answers after a fixed
+ * latency, however many requests it carries, and no thread is held while the
+ * answer is "on the wire". Withdrawals up to the per-card limit are approved.
+ */
+public class SimulatedBankHost implements BankHost, AutoCloseable {
+
+    private final long latencyMillis;
+    private final int withdrawalLimit;
+    private final ScheduledExecutorService network = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "simulated-bank-host");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong exchanges = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final Set<CompletableFuture<boolean[]>> unanswered = ConcurrentHashMap.newKeySet();
+
+    public SimulatedBankHost(long latencyMillis, int withdrawalLimit) {
+        this.latencyMillis = latencyMillis;
+        this.withdrawalLimit = withdrawalLimit;
+    }
+
+    @Override
+    public CompletableFuture<boolean[]> authorize(List<AuthorizationRequest> batch) {
+        exchanges.incrementAndGet();
+        requests.addAndGet(batch.size());
+        boolean[] approvals = new boolean[batch.size()];
+        for(int i = 0; i < approvals.length; i++) {
+            approvals[i] = batch.get(i).getAmount() <= withdrawalLimit;
+        }
+        CompletableFuture<boolean[]> answer = new CompletableFuture<>();
+        unanswered.add(answer);
+        network.schedule(() -> {
+            unanswered.remove(answer);
+            answer.complete(approvals);
+        }, latencyMillis, TimeUnit.MILLISECONDS);
+        return answer;
+    }
+
+    public long getExchanges() {
+        return exchanges.get();
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    // Delivers the answers already on the wire; new exchanges are refused.
+    @Override
+    public void close() {
+        network.shutdown();
+        try {
+            if(!network.awaitTermination(latencyMillis + 1_000, TimeUnit.MILLISECONDS)) {
+                network.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            network.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        for(CompletableFuture<boolean[]> answer : unanswered) {
+            answer.completeExceptionally(new IllegalStateException("Bank host is closed"));
+        }
+    }
+
+}
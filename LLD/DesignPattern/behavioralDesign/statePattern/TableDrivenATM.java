@@ -0,0 +1,82 @@
+package DesignPattern.behavioralDesign.statePattern;
+
+/*
+ * The ATM state machine as an immutable transition table.
+ *
+ * States and events are small ints, and each (state, event) pair maps to a
+ * cell holding the next state and the message the state classes print.
+ * One instance is shared by every session; a session only has to remember
+ * its current state (see ATMSessions), and a transition is an array lookup
+ * with no virtual call and no allocation.
+ */
+public final class TableDrivenATM {
+
+    public static final int IDLE = 0;
+    public static final int CARD_INSERTED = 1;
+    public static final int PIN_VERIFIED = 2;
+    public static final int STATE_COUNT = 3;
+
+    public static final int INSERT_CARD = 0;
+    public static final int ENTER_PIN = 1;
+    public static final int WITHDRAW_CASH = 2;
+    public static final int EJECT_CARD = 3;
+    public static final int EVENT_COUNT = 4;
+
+    private static final String[] STATE_NAMES = {"IDLE", "CARD_INSERTED", "PIN_VERIFIED"};
+
+    private final byte[] nextState = new byte[STATE_COUNT * EVENT_COUNT];
+    private final boolean[] accepted = new boolean[STATE_COUNT * EVENT_COUNT];
+    private final String[] messages = new String[STATE_COUNT * EVENT_COUNT];
+
+    // Same flow and messages as IdleStateATM, CardInsertedState and PinVerifiedState,
+    // plus EJECT_CARD so a session can be abandoned before cash is withdrawn.
+    public TableDrivenATM() {
+        define(IDLE, INSERT_CARD, CARD_INSERTED, true, "Card Inserted.");
+        define(IDLE, ENTER_PIN, IDLE, false, "Please insert your card first.");
+        define(IDLE, WITHDRAW_CASH, IDLE, false, "Please insert your card and enter PIN first.");
+        define(IDLE, EJECT_CARD, IDLE, false, "No card inserted.");
+
+        define(CARD_INSERTED, INSERT_CARD, CARD_INSERTED, false, "Card is already inserted.");
+        define(CARD_INSERTED, ENTER_PIN, PIN_VERIFIED, true, "Please enter your PIN.");
+        define(CARD_INSERTED, WITHDRAW_CASH, CARD_INSERTED, false, "Please enter your PIN first.");
+        define(CARD_INSERTED, EJECT_CARD, IDLE, true, "Card ejected.");
+
+        define(PIN_VERIFIED, INSERT_CARD, PIN_VERIFIED, false, "Transaction in progress. Cannot insert another card.");
+        define(PIN_VERIFIED, ENTER_PIN, PIN_VERIFIED, false, "PIN is already verified.");
+        define(PIN_VERIFIED, WITHDRAW_CASH, IDLE, true, "Cash withdrawn successfully.");
+        define(PIN_VERIFIED, EJECT_CARD, IDLE, true, "Transaction cancelled. Card ejected.");
+    }
+
+    private void define(int state, int event, int target, boolean isAccepted, String message) {
+        int cell = cell(state, event);
+        nextState[cell] = (byte) target;
+        accepted[cell] = isAccepted;
+        messages[cell] = message;
+    }
+
+    // Index of the (state, event) pair; the other lookups take this index.
+    public static int cell(int state, int event) {
+        return state * EVENT_COUNT + event;
+    }
+
+    public int nextState(int cell) {
+        return nextState[cell];
+    }
+
+    public boolean isAccepted(int cell) {
+        return accepted[cell];
+    }
+
+    public String message(int cell) {
+        return messages[cell];
+    }
+
+    public int transition(int state, int event) {
+        return nextState[cell(state, event)];
+    }
+
+    public static String stateName(int state) {
+        return STATE_NAMES[state];
+    }
+
+}
@@ -0,0 +1,65 @@
+package DesignPattern.behavioralDesign.statePattern;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+public class TableDrivenMain {
+
+    public static void main(String[] args) {
+        TableDrivenATM atm = new TableDrivenATM();
+
+        // The same walk-through as Main, driven by the table.
+        ATMSessions single = new ATMSessions(atm, 1);
+        System.out.println(atm.message(single.fire(0, TableDrivenATM.INSERT_CARD)));
+        System.out.println(atm.message(single.fire(0, TableDrivenATM.ENTER_PIN)));
+        System.out.println(atm.message(single.fire(0, TableDrivenATM.WITHDRAW_CASH)));
+
+        int sessionCount = args.length > 0 ? Integer.parseInt(args[0]) : 4_000_000;
+        ATMSessions sessions = new ATMSessions(atm, sessionCount);
+        int[] script = {
+            TableDrivenATM.ENTER_PIN,      // rejected: no card yet
+            TableDrivenATM.INSERT_CARD,
+            TableDrivenATM.WITHDRAW_CASH,  // rejected: PIN not entered
+            TableDrivenATM.ENTER_PIN,
+            TableDrivenATM.WITHDRAW_CASH
+        };
+
+        int partitions = Runtime.getRuntime().availableProcessors();
+        AtomicLong completed = new AtomicLong();
+        long start = System.nanoTime();
+        IntStream.range(0, partitions).parallel().forEach(p -> {
+            int from = (int) ((long) sessionCount * p / partitions);
+            int to = (int) ((long) sessionCount * (p + 1) / partitions);
+            completed.addAndGet(runSessions(sessions, script, from, to));
+        });
+        long elapsed = System.nanoTime() - start;
+        long transitions = (long) sessionCount * script.length;
+
+        System.out.println(sessionCount + " sessions on " + partitions + " partitions, "
+                + transitions + " transitions in " + elapsed / 1_000_000 + " ms ("
+                + (transitions * 1_000_000_000L / Math.max(elapsed, 1)) + " transitions/s), "
+                + completed.get() + " withdrawals completed");
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        runSessions(sessions, script, 0, sessionCount);
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        System.out.println("Bytes allocated by " + transitions + " more transitions on one thread: " + allocated);
+    }
+
+    private static long runSessions(ATMSessions sessions, int[] script, int from, int to) {
+        TableDrivenATM atm = sessions.getAtm();
+        long completed = 0;
+        for(int session = from; session < to; session++) {
+            for(int event : script) {
+                int cell = sessions.fire(session, event);
+                if(event == TableDrivenATM.WITHDRAW_CASH && atm.isAccepted(cell)) {
+                    completed++;
+                }
+            }
+        }
+        return completed;
+    }
+
+}